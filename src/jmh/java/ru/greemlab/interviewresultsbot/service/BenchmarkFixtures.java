@@ -0,0 +1,32 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.StringJoiner;
+
+/**
+ * Общие заготовки для бенчмарков.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    static String key(int index) {
+        return index == 0 ? "victoria" : "c" + index;
+    }
+
+    /**
+     * Реестр из count активных кандидатов в отдельном каталоге.
+     */
+    static CandidateRegistry registry(Path dir, int count) throws IOException {
+        var initial = new StringJoiner(",");
+        for (int i = 0; i < count; i++) {
+            initial.add(key(i) + ":Кандидат " + i);
+        }
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), initial.toString());
+        registry.load();
+        return registry;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор callbackData нажатой кнопки: корректный токен и мусор той же длины.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CallbackCommandsBenchmark {
+
+    private final String score = CallbackCommands.score(1, 4, 17, 12345);
+    private final String garbage = "RESP_5_____";
+
+    @Benchmark
+    public long decodeScore() {
+        long token = CallbackCommands.decode(score);
+        return CallbackCommands.score(token) + CallbackCommands.nonce(token) + CallbackCommands.candidateId(token);
+    }
+
+    @Benchmark
+    public long decodeGarbage() {
+        return CallbackCommands.decode(garbage);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
+import ru.greemlab.interviewresultsbot.candidate.CandidateMenu;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+import ru.greemlab.interviewresultsbot.metrics.BotMetrics;
+import ru.greemlab.interviewresultsbot.report.ReportExporter;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Полный цикл голосования (кандидат → три оценки → приглашение) через
+ * {@link DialogStateMachineService#processCallbackQuery}. Бот-заглушка не ходит в сеть,
+ * а только считает исходящие запросы. Каждая операция — новый чат.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DialogStateMachineBenchmark {
+
+    // Номера нажимаемых кнопок в клавиатурах шагов: оценки 5, 4, 3 и «Да»
+    private static final int[] VOTE_FLOW = {4, 3, 2, 0};
+
+    private final AtomicLong chatIds = new AtomicLong();
+
+    private DialogStateMachineService dialog;
+    private UserStateService users;
+    private StubBot bot;
+    private String selectCandidate;
+
+    @Setup
+    public void setUp() throws Exception {
+        var dir = Files.createTempDirectory("jmh");
+        var registry = BenchmarkFixtures.registry(dir, 3);
+        users = new UserStateService(registry, TimeUnit.HOURS.toMillis(1), 1_000, VoteStore.Mode.HEAP);
+        var templates = EvaluationTemplates.defaults();
+        var stats = new VoteStatisticsService(registry, templates);
+        var archiveStore = new ArchiveStore(dir);
+        // Журнал выключен: бенчмарк меряет диалог, а не диск
+        var journal = new VoteJournal(stats, users, false, dir, VoteJournal.FsyncPolicy.NEVER, 0, 0, 1);
+        dialog = new DialogStateMachineService(
+                users,
+                stats,
+                new ArchiveCandidatesService(archiveStore, templates),
+                journal,
+                registry,
+                templates,
+                new CandidateMenu(registry, 8),
+                new CandidateAdminService(registry, stats, users, archiveStore, journal, templates, ""),
+                new BotMetrics(new SimpleMeterRegistry()),
+                new VoteLedger(users, stats, journal, Optional.empty()),
+                Optional.empty(),
+                new ReportExporter(stats, archiveStore, registry, templates, 1),
+                new LiveStatsBoard(stats, new DefaultListableBeanFactory().getBeanProvider(CandidateEvaluationBot.class),
+                        dir.resolve("live-boards.txt"), 10_000, 1_000)
+        );
+        bot = new StubBot(dialog);
+        selectCandidate = CallbackCommands.selectCandidate(registry.findByKey(BenchmarkFixtures.key(0)).id());
+    }
+
+    /**
+     * Сессии копятся (каждая операция — новый чат), поэтому сбрасываем их между итерациями.
+     */
+    @TearDown(Level.Iteration)
+    public void resetSessions() {
+        users.resetAllSessions();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long voteFlow1() {
+        return voteFlow();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long voteFlow8() {
+        return voteFlow();
+    }
+
+    private long voteFlow() {
+        long chatId = chatIds.incrementAndGet();
+        dialog.processCallbackQuery(bot, callback(chatId, selectCandidate));
+        for (int button : VOTE_FLOW) {
+            // Кнопки несут nonce сессии, поэтому жмём их из клавиатуры последнего ответа бота
+            var keyboard = bot.lastKeyboard.get();
+            dialog.processCallbackQuery(bot, callback(chatId, keyboard.getKeyboard().get(0).get(button).getCallbackData()));
+        }
+        return bot.calls.sum();
+    }
+
+    private static CallbackQuery callback(long chatId, String data) {
+        var chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        var message = new Message();
+        message.setChat(chat);
+        message.setMessageId(1);
+        var callbackQuery = new CallbackQuery();
+        callbackQuery.setId(Long.toString(chatId));
+        callbackQuery.setMessage(message);
+        callbackQuery.setData(data);
+        return callbackQuery;
+    }
+
+    /**
+     * Бот, который вместо запросов к Telegram только считает их и запоминает последнюю клавиатуру потока.
+     */
+    static final class StubBot extends CandidateEvaluationBot {
+
+        private final LongAdder calls = new LongAdder();
+        private final ThreadLocal<InlineKeyboardMarkup> lastKeyboard = new ThreadLocal<>();
+
+        StubBot(DialogStateMachineService dialog) {
+            super("benchmark", "0:benchmark", new DefaultBotOptions(), dialog, null, null, 16);
+        }
+
+        @Override
+        public CompletableFuture<Integer> sendTextMessage(Long chatId, String text, InlineKeyboardMarkup keyboard) {
+            calls.increment();
+            lastKeyboard.set(keyboard);
+            return CompletableFuture.completedFuture(1);
+        }
+
+        @Override
+        public CompletableFuture<Void> editMessage(Long chatId, Integer messageId, String newText,
+                                                   InlineKeyboardMarkup keyboard) {
+            calls.increment();
+            lastKeyboard.set(keyboard);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteMessage(Long chatId, Integer messageId) {
+            calls.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сводка по всем кандидатам: повторное чтение без изменений и чтение после одного нового голоса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsRenderingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int candidates;
+
+    private VoteStatisticsService service;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new VoteStatisticsService(BenchmarkFixtures.registry(Files.createTempDirectory("jmh"), candidates), EvaluationTemplates.defaults());
+        for (int i = 0; i < candidates; i++) {
+            var key = BenchmarkFixtures.key(i);
+            service.apply(VoteEvent.of(1L, key, 0, new int[]{1 + i % 5, 1 + (i + 1) % 5, 1 + (i + 2) % 5}, true));
+        }
+        service.getAllCandidatesStatistics();
+    }
+
+    @Benchmark
+    public String unchanged() {
+        return service.getAllCandidatesStatistics();
+    }
+
+    @Benchmark
+    public String afterOneVote() {
+        service.apply(VoteEvent.of(1L, BenchmarkFixtures.key(next++ % candidates), 0, new int[]{3, 4, 5}, true));
+        return service.getAllCandidatesStatistics();
+    }
+}
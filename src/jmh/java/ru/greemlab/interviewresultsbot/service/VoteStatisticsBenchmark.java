@@ -0,0 +1,75 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись голосов и чтение статистики под конкуренцией.
+ * Все потоки пишут в одного кандидата — худший случай для счётчиков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VoteStatisticsBenchmark {
+
+    private static final String CANDIDATE = "victoria";
+
+    private VoteStatisticsService service;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new VoteStatisticsService(BenchmarkFixtures.registry(Files.createTempDirectory("jmh"), 3), EvaluationTemplates.defaults());
+        service.apply(VoteEvent.of(1L, CANDIDATE, 0, new int[]{5, 5, 5}, true));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void add1() {
+        add();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void add4() {
+        add();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void add16() {
+        add();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedAdd() {
+        add();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public String mixedRead() {
+        return service.getCandidateStatistics(CANDIDATE);
+    }
+
+    private void add() {
+        int score = 1 + ThreadLocalRandom.current().nextInt(5);
+        service.apply(VoteEvent.of(1L, CANDIDATE, 0, new int[]{score, score, score}, score > 2));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import ru.greemlab.interviewresultsbot.candidate.Candidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Клавиатуры: выдача шагов голосования по готовой раскладке (подстановка кандидата и nonce)
+ * и сборка страницы главного меню.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyboardFactoryBenchmark {
+
+    private List<Candidate> page;
+    private VoteKeyboard rating;
+    private VoteKeyboard invite;
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            page.add(new Candidate(i, "c" + i, "Кандидат " + i, Candidate.Status.ACTIVE, null));
+        }
+        rating = KeyboardFactory.buildRatingButtons(1, 5);
+        invite = KeyboardFactory.buildInviteKeyboard();
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup ratingButtons() {
+        return rating.render(1, 42);
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup inviteKeyboard() {
+        return invite.render(1, 42);
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup mainMenuPageBuild() {
+        return KeyboardFactory.buildMainMenuKeyboard(page, 1, 3);
+    }
+}
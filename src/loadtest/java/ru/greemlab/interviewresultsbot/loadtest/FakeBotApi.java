@@ -0,0 +1,268 @@
+package ru.greemlab.interviewresultsbot.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Заглушка Telegram Bot API в том же процессе.
+ * <p>
+ * Отдаёт боту обновления через getUpdates (long polling с подтверждением по offset, как настоящий API)
+ * и принимает sendMessage / editMessageText / deleteMessage / answerCallbackQuery.
+ * На исходящие запросы добавляется задержка, часть из них получает 429 с retry_after.
+ * Остальные методы (deleteWebhook, getMe и т.п.) просто отвечают успехом.
+ */
+public class FakeBotApi implements AutoCloseable {
+
+    /**
+     * Успешно принятый исходящий запрос бота; buttons — callback_data его inline-кнопок.
+     */
+    public record Outbound(String method, long chatId, int messageId, List<String> buttons) {
+    }
+
+    public interface OutboundListener {
+        void onOutbound(Outbound outbound);
+    }
+
+    // Имена методов сравниваются без учёта регистра: telegrambots пишет часть путей строчными буквами
+    private static final Set<String> THROTTLED_METHODS = Set.of("sendmessage", "editmessagetext", "deletemessage");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final long latencyMs;
+    private final double rateLimitProbability;
+    private final int retryAfterSeconds;
+    private final OutboundListener listener;
+
+    private final ReentrantLock updatesLock = new ReentrantLock();
+    private final Condition hasUpdates = updatesLock.newCondition();
+    private final ArrayDeque<ObjectNode> pendingUpdates = new ArrayDeque<>();
+    private long nextUpdateId = 1;
+
+    private final AtomicInteger nextMessageId = new AtomicInteger(1_000);
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong deliveredUpdates = new AtomicLong();
+    private final AtomicLong messageRequests = new AtomicLong();
+
+    public FakeBotApi(long latencyMs, double rateLimitProbability, int retryAfterSeconds,
+                      OutboundListener listener) throws IOException {
+        this.latencyMs = latencyMs;
+        this.rateLimitProbability = rateLimitProbability;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.listener = listener;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Платформенные потоки: HTTP-клиент бота блокирует (pin) несущие потоки виртуальных,
+        // и сервер на виртуальных потоках в том же процессе не успевал бы ответить
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Базовый адрес для DefaultBotOptions.setBaseUrl (к нему дописывается токен).
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public long getDeliveredUpdates() {
+        return deliveredUpdates.get();
+    }
+
+    /**
+     * Запросы sendMessage / editMessageText / deleteMessage, включая получившие 429.
+     */
+    public long getMessageRequests() {
+        return messageRequests.get();
+    }
+
+    /**
+     * Нажатие inline-кнопки в сообщении messageId чата chatId.
+     */
+    public void pushCallback(long chatId, int messageId, String data) {
+        var chat = mapper.createObjectNode().put("id", chatId).put("type", "private");
+        var from = mapper.createObjectNode().put("id", chatId).put("is_bot", false).put("first_name", "Interviewer");
+        var message = mapper.createObjectNode()
+                .put("message_id", messageId)
+                .put("date", System.currentTimeMillis() / 1000)
+                .put("text", "menu");
+        message.set("chat", chat);
+        var callback = mapper.createObjectNode()
+                .put("id", chatId + ":" + System.nanoTime())
+                .put("chat_instance", Long.toString(chatId))
+                .put("data", data);
+        callback.set("from", from);
+        callback.set("message", message);
+        updatesLock.lock();
+        try {
+            var update = mapper.createObjectNode().put("update_id", nextUpdateId++);
+            update.set("callback_query", callback);
+            pendingUpdates.add(update);
+            hasUpdates.signalAll();
+        } finally {
+            updatesLock.unlock();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var path = exchange.getRequestURI().getPath();
+            var method = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            var body = exchange.getRequestBody().readAllBytes();
+            JsonNode request = body.length == 0 ? mapper.createObjectNode() : mapper.readTree(body);
+
+            if ("getupdates".equals(method)) {
+                reply(exchange, 200, ok(getUpdates(request)));
+                return;
+            }
+            if (THROTTLED_METHODS.contains(method)) {
+                messageRequests.incrementAndGet();
+                pause(latencyMs);
+                if (rateLimitProbability > 0 && ThreadLocalRandom.current().nextDouble() < rateLimitProbability) {
+                    rateLimited.incrementAndGet();
+                    reply(exchange, 429, tooManyRequests());
+                    return;
+                }
+            }
+            reply(exchange, 200, ok(execute(method, request)));
+        } catch (Exception e) {
+            var error = mapper.createObjectNode().put("ok", false).put("error_code", 500).put("description", e.toString());
+            reply(exchange, 500, error);
+        }
+    }
+
+    private JsonNode execute(String method, JsonNode request) throws JsonProcessingException {
+        long chatId = request.path("chat_id").asLong();
+        return switch (method) {
+            case "sendmessage" -> {
+                int messageId = nextMessageId.incrementAndGet();
+                listener.onOutbound(new Outbound("sendMessage", chatId, messageId, buttons(request)));
+                yield message(chatId, messageId, request.path("text").asText());
+            }
+            case "editmessagetext" -> {
+                int messageId = request.path("message_id").asInt();
+                listener.onOutbound(new Outbound("editMessageText", chatId, messageId, buttons(request)));
+                yield message(chatId, messageId, request.path("text").asText());
+            }
+            case "deletemessage" -> {
+                listener.onOutbound(new Outbound("deleteMessage", chatId, request.path("message_id").asInt(), List.of()));
+                yield mapper.getNodeFactory().booleanNode(true);
+            }
+            default -> mapper.getNodeFactory().booleanNode(true);
+        };
+    }
+
+    /**
+     * callback_data всех inline-кнопок запроса по порядку.
+     */
+    private List<String> buttons(JsonNode request) throws JsonProcessingException {
+        var markup = request.path("reply_markup");
+        if (markup.isTextual()) {
+            markup = mapper.readTree(markup.asText());
+        }
+        var buttons = new ArrayList<String>();
+        for (var row : markup.path("inline_keyboard")) {
+            for (var button : row) {
+                buttons.add(button.path("callback_data").asText());
+            }
+        }
+        return buttons;
+    }
+
+    /**
+     * Long polling: отдаёт обновления с id >= offset, при их отсутствии ждёт до timeout секунд.
+     * Всё, что меньше offset, считается подтверждённым и выбрасывается.
+     */
+    private ArrayNode getUpdates(JsonNode request) throws InterruptedException {
+        long offset = request.path("offset").asLong(0);
+        int limit = request.path("limit").asInt(100);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(request.path("timeout").asInt(0));
+        var result = mapper.createArrayNode();
+        updatesLock.lock();
+        try {
+            while (!pendingUpdates.isEmpty() && pendingUpdates.peek().get("update_id").asLong() < offset) {
+                pendingUpdates.poll();
+            }
+            long remaining;
+            while (pendingUpdates.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                hasUpdates.awaitNanos(remaining);
+            }
+            for (var update : pendingUpdates) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(update);
+            }
+        } finally {
+            updatesLock.unlock();
+        }
+        deliveredUpdates.addAndGet(result.size());
+        return result;
+    }
+
+    private ObjectNode message(long chatId, int messageId, String text) {
+        var message = mapper.createObjectNode()
+                .put("message_id", messageId)
+                .put("date", System.currentTimeMillis() / 1000)
+                .put("text", text);
+        message.set("chat", mapper.createObjectNode().put("id", chatId).put("type", "private"));
+        return message;
+    }
+
+    private ObjectNode ok(JsonNode result) {
+        var response = mapper.createObjectNode().put("ok", true);
+        response.set("result", result);
+        return response;
+    }
+
+    private ObjectNode tooManyRequests() {
+        var response = mapper.createObjectNode()
+                .put("ok", false)
+                .put("error_code", 429)
+                .put("description", "Too Many Requests: retry after " + retryAfterSeconds);
+        response.set("parameters", mapper.createObjectNode().put("retry_after", retryAfterSeconds));
+        return response;
+    }
+
+    private void reply(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        var bytes = mapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
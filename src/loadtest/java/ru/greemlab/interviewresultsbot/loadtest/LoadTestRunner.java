@@ -0,0 +1,301 @@
+package ru.greemlab.interviewresultsbot.loadtest;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import ru.greemlab.interviewresultsbot.InterviewResultsBotApplication;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.service.CallbackCommands;
+import ru.greemlab.interviewresultsbot.service.VoteLedger;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест: поднимает приложение целиком против {@link FakeBotApi}
+ * и прогоняет N интервьюеров, каждый из которых голосует за всех кандидатов по полному сценарию
+ * (кандидат → три оценки → приглашение), дожидаясь ответа бота на каждом шаге.
+ * При app.evaluation.mode=scorecard интервьюер заполняет оценочный лист: отметки уходят подряд без ожидания
+ * (бот отвечает на них только уведомлением), шаги — выбор кандидата и «Отправить».
+ * <p>
+ * Параметры (системные свойства, в Gradle — {@code -Ploadtest.xxx=...}):
+ * interviewers, candidates, latency-ms, rate-limit-percent, retry-after-seconds, step-timeout-ms.
+ * Свойства app.* передаются приложению как есть (например, лимиты очереди исходящих).
+ * <p>
+ * Итог: p50/p99 задержки шага (от появления обновления в getUpdates до ответа бота),
+ * пропускная способность, потерянные и задвоенные голоса. Голоса сверяются попарно (интервьюер, кандидат):
+ * отправленные интервьюерами — с учтёнными {@link VoteLedger} (его вызовы перехватываются в тесте),
+ * а сумма учтённых — со статистикой.
+ * Код выхода 1, если голоса разошлись или какой-то шаг не дождался ответа.
+ */
+public class LoadTestRunner {
+
+    private static final List<String> CANDIDATES = List.of("victoria", "svetlana", "alexander");
+
+    private final int interviewers = Integer.getInteger("loadtest.interviewers", 50);
+    private final int candidates = Math.min(Integer.getInteger("loadtest.candidates", CANDIDATES.size()), CANDIDATES.size());
+    private final long latencyMs = Long.getLong("loadtest.latency-ms", 20);
+    private final double rateLimitPercent = Double.parseDouble(System.getProperty("loadtest.rate-limit-percent", "1"));
+    private final int retryAfterSeconds = Integer.getInteger("loadtest.retry-after-seconds", 1);
+    private final long stepTimeoutMs = Long.getLong("loadtest.step-timeout-ms", 60_000);
+    private final boolean scorecard = "scorecard".equalsIgnoreCase(System.getProperty("app.evaluation.mode"));
+
+    private final Map<Long, BlockingQueue<FakeBotApi.Outbound>> inboxes = new ConcurrentHashMap<>();
+    private final List<long[]> latencies = new ArrayList<>();
+    // Голоса по парам «chatId:кандидат»: отправленные интервьюерами и учтённые ботом
+    private final Map<String, Integer> sentVotes = new ConcurrentHashMap<>();
+    private final Map<String, Integer> countedVotes = new ConcurrentHashMap<>();
+    private final AtomicLong timedOutSteps = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new LoadTestRunner().run());
+    }
+
+    private int run() throws Exception {
+        var dataDir = Files.createTempDirectory("loadtest");
+        try (var api = new FakeBotApi(latencyMs, rateLimitPercent / 100, retryAfterSeconds,
+                outbound -> inbox(outbound.chatId()).add(outbound))) {
+
+            // Аргументы командной строки перекрывают application.yml и переменные окружения
+            var context = new SpringApplicationBuilder(InterviewResultsBotApplication.class)
+                    .initializers(app -> app.getBeanFactory().addBeanPostProcessor(countingLedger()))
+                    .run(
+                    "--app.bot.token=loadtest",
+                    "--app.bot.username=loadtest_bot",
+                    "--app.bot.mode=polling",
+                    "--app.bot.api-url=" + api.getBaseUrl(),
+                    "--app.journal.dir=" + dataDir.resolve("journal"),
+                    "--app.archive.dir=" + dataDir,
+                    "--app.candidates.file=" + dataDir.resolve("candidates.txt"),
+                    "--app.live.file=" + dataDir.resolve("live-boards.txt"),
+                    "--server.port=0",
+                    "--logging.level.root=WARN");
+
+            var registry = context.getBean(CandidateRegistry.class);
+            long started = System.nanoTime();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < interviewers; i++) {
+                    long chatId = 100_000L + i;
+                    var samples = new long[candidates * 5];
+                    synchronized (latencies) {
+                        latencies.add(samples);
+                    }
+                    executor.execute(() -> interview(api, registry, chatId, samples));
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            // Голоса пишутся до ответа бота, так что к этому моменту все учтены
+            var statistics = context.getBean(VoteStatisticsService.class);
+            long inStatistics = 0;
+            for (var key : CANDIDATES.subList(0, candidates)) {
+                var snapshot = statistics.getSnapshot(key);
+                if (snapshot != null) {
+                    inStatistics += snapshot.getInviteYes() + snapshot.getInviteNo();
+                }
+            }
+            context.close();
+            return report(api, seconds, inStatistics);
+        }
+    }
+
+    /**
+     * Оборачивает {@link VoteLedger}: каждый учтённый голос отмечается в countedVotes по своей паре.
+     */
+    private BeanPostProcessor countingLedger() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof VoteLedger)) {
+                    return bean;
+                }
+                var proxy = new ProxyFactory(bean);
+                proxy.setProxyTargetClass(true);
+                proxy.addAdvice((MethodInterceptor) invocation -> {
+                    var result = invocation.proceed();
+                    if (result == VoteLedger.Result.APPLIED && invocation.getArguments()[0] instanceof VoteEvent event) {
+                        countedVotes.merge(pair(event.chatId(), event.candidateKey()), 1, Integer::sum);
+                    }
+                    return result;
+                });
+                return proxy.getProxy();
+            }
+        };
+    }
+
+    private static String pair(long chatId, String candidate) {
+        return chatId + ":" + candidate;
+    }
+
+    /**
+     * Один интервьюер: голосует за каждого кандидата и ждёт ответа бота на каждом шаге.
+     */
+    private void interview(FakeBotApi api, CandidateRegistry registry, long chatId, long[] samples) {
+        if (scorecard) {
+            fillScorecards(api, registry, chatId, samples);
+            return;
+        }
+        int step = 0;
+        for (var candidate : CANDIDATES.subList(0, candidates)) {
+            // Первое нажатие — кнопка главного меню, дальше жмём кнопки из последнего ответа бота:
+            // оценки 5, 4, 3 и «Да» (номер кнопки в клавиатуре)
+            int[] buttons = {-1, 4, 3, 2, 0};
+            // Ответ, по которому шаг считается обработанным: новое сообщение, правки, затем удаление
+            String[] expected = {"sendMessage", "editMessageText", "editMessageText", "editMessageText", "deleteMessage"};
+            int messageId = 1;
+            FakeBotApi.Outbound previous = null;
+            for (int i = 0; i < buttons.length; i++) {
+                var data = previous == null
+                        ? CallbackCommands.selectCandidate(registry.findByKey(candidate).id())
+                        : previous.buttons().get(buttons[i]);
+                long start = System.nanoTime();
+                api.pushCallback(chatId, messageId, data);
+                if (i == buttons.length - 1) {
+                    sentVotes.merge(pair(chatId, candidate), 1, Integer::sum);
+                }
+                var response = await(chatId, expected[i]);
+                if (response == null) {
+                    timedOutSteps.incrementAndGet();
+                    samples[step++] = -1;
+                    return;
+                }
+                samples[step++] = System.nanoTime() - start;
+                if (i == 0) {
+                    messageId = response.messageId();
+                }
+                previous = response;
+            }
+        }
+    }
+
+    /**
+     * Один интервьюер в режиме оценочного листа: выбор кандидата, отметки 5, 4, 3 и «Да», затем «Отправить».
+     */
+    private void fillScorecards(FakeBotApi api, CandidateRegistry registry, long chatId, long[] samples) {
+        int step = 0;
+        for (var candidate : CANDIDATES.subList(0, candidates)) {
+            long start = System.nanoTime();
+            api.pushCallback(chatId, 1, CallbackCommands.selectCandidate(registry.findByKey(candidate).id()));
+            var card = await(chatId, "sendMessage");
+            if (card == null) {
+                timedOutSteps.incrementAndGet();
+                samples[step++] = -1;
+                return;
+            }
+            samples[step++] = System.nanoTime() - start;
+
+            String submit = null;
+            for (var data : card.buttons()) {
+                long token = CallbackCommands.decode(data);
+                var action = CallbackCommands.action(token);
+                boolean mark = action == CallbackCommands.Action.SCORE
+                               && CallbackCommands.score(token) == 5 - CallbackCommands.criterion(token)
+                               || action == CallbackCommands.Action.INVITE && CallbackCommands.invite(token);
+                if (mark) {
+                    api.pushCallback(chatId, card.messageId(), data);
+                } else if (action == CallbackCommands.Action.SUBMIT) {
+                    submit = data;
+                }
+            }
+            start = System.nanoTime();
+            api.pushCallback(chatId, card.messageId(), submit);
+            sentVotes.merge(pair(chatId, candidate), 1, Integer::sum);
+            if (await(chatId, "deleteMessage") == null) {
+                timedOutSteps.incrementAndGet();
+                samples[step++] = -1;
+                return;
+            }
+            samples[step++] = System.nanoTime() - start;
+        }
+    }
+
+    private FakeBotApi.Outbound await(long chatId, String method) {
+        var inbox = inbox(chatId);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stepTimeoutMs);
+        try {
+            while (true) {
+                var outbound = inbox.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (outbound == null || outbound.method().equals(method)) {
+                    return outbound;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private BlockingQueue<FakeBotApi.Outbound> inbox(long chatId) {
+        return inboxes.computeIfAbsent(chatId, id -> new LinkedBlockingQueue<>());
+    }
+
+    private int report(FakeBotApi api, double seconds, long inStatistics) {
+        var all = latencies.stream().flatMapToLong(Arrays::stream).filter(nanos -> nanos > 0).sorted().toArray();
+        long expectedVotes = sentVotes.values().stream().mapToLong(Integer::longValue).sum();
+        long recordedVotes = countedVotes.values().stream().mapToLong(Integer::longValue).sum();
+        // Потерян — отправлен, но не учтён; задвоен — учтён больше раз, чем отправлен (в том числе не отправленный)
+        var lost = new TreeSet<String>();
+        var duplicated = new TreeSet<String>();
+        sentVotes.forEach((pair, sent) -> {
+            if (countedVotes.getOrDefault(pair, 0) < sent) {
+                lost.add(pair);
+            }
+        });
+        countedVotes.forEach((pair, counted) -> {
+            if (counted > sentVotes.getOrDefault(pair, 0)) {
+                duplicated.add(pair);
+            }
+        });
+
+        System.out.printf("""
+                        === Нагрузочный тест ===
+                        Интервьюеров: %d, кандидатов: %d, задержка API: %d мс, 429: %.1f%%
+                        Время: %.1f c, шагов: %d (%.1f шаг/с), голосов: %d (%.1f голос/с)
+                        Задержка шага: p50 %.1f мс, p99 %.1f мс, max %.1f мс
+                        Шагов без ответа (таймаут): %d, ответов 429: %d, обновлений выдано: %d
+                        Голоса: отправлено %d, учтено %d (в статистике %d), потеряно %d, задвоено %d
+                        Потерянные пары chatId:кандидат: %s
+                        Задвоенные пары chatId:кандидат: %s
+                        Режим: %s, запросов сообщений к API на голос: %.1f
+                        """,
+                interviewers, candidates, latencyMs, rateLimitPercent,
+                seconds, all.length, all.length / seconds, recordedVotes, recordedVotes / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0.0 : all[all.length - 1] / 1e6,
+                timedOutSteps.get(), api.getRateLimitedCount(), api.getDeliveredUpdates(),
+                expectedVotes, recordedVotes, inStatistics, lost.size(), duplicated.size(),
+                examples(lost), examples(duplicated),
+                scorecard ? "оценочный лист" : "пошаговый",
+                expectedVotes == 0 ? 0.0 : (double) api.getMessageRequests() / expectedVotes);
+        boolean consistent = lost.isEmpty() && duplicated.isEmpty() && inStatistics == recordedVotes;
+        return consistent && timedOutSteps.get() == 0 ? 0 : 1;
+    }
+
+    private static String examples(TreeSet<String> pairs) {
+        if (pairs.isEmpty()) {
+            return "нет";
+        }
+        var shown = pairs.stream().limit(10).toList();
+        return String.join(", ", shown) + (pairs.size() > shown.size() ? " и ещё " + (pairs.size() - shown.size()) : "");
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
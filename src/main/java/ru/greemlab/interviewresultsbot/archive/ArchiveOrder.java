@@ -0,0 +1,28 @@
+package ru.greemlab.interviewresultsbot.archive;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Comparator;
+
+/**
+ * Варианты просмотра архива. Каждому соответствует свой индекс в {@link ArchiveStore}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ArchiveOrder {
+    BY_DATE("📅 По дате"),
+    BY_SCORE("⭐ По баллу"),
+    INVITED("✅ Приглашённые"),
+    NOT_INVITED("❌ Отказы");
+
+    private final String title;
+
+    static final Comparator<ArchivedCandidate> NEWEST_FIRST = Comparator
+            .comparing(ArchivedCandidate::archivedOn).reversed()
+            .thenComparing(Comparator.comparingInt(ArchivedCandidate::id).reversed());
+
+    static final Comparator<ArchivedCandidate> BEST_FIRST = Comparator
+            .comparingDouble(ArchivedCandidate::averageScore).reversed()
+            .thenComparing(Comparator.comparingInt(ArchivedCandidate::id).reversed());
+}
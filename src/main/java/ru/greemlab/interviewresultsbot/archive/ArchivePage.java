@@ -0,0 +1,18 @@
+package ru.greemlab.interviewresultsbot.archive;
+
+import java.util.List;
+
+/**
+ * Одна страница архива. Курсоры — id первого и последнего кандидата на странице.
+ */
+public record ArchivePage(ArchiveOrder order, List<ArchivedCandidate> items,
+                          boolean hasPrevious, boolean hasNext, int total) {
+
+    public Integer firstId() {
+        return items.isEmpty() ? null : items.getFirst().id();
+    }
+
+    public Integer lastId() {
+        return items.isEmpty() ? null : items.getLast().id();
+    }
+}
@@ -0,0 +1,230 @@
+package ru.greemlab.interviewresultsbot.archive;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.CRC32;
+
+/**
+ * Хранилище архива кандидатов.
+ * <p>
+ * На диске — файл с записями {@code [int длина][int crc32][payload]}, в который только дописывают.
+ * В памяти — первичный индекс по id и вторичные индексы (по дате, по среднему баллу,
+ * по итогу приглашения) на skip-list'ах, поэтому страница архива читается по курсору
+ * за O(log n + размер страницы) без сортировки всего архива.
+ */
+@Slf4j
+@Lazy
+@Component
+public class ArchiveStore {
+
+    static final String ARCHIVE_FILE = "archive.dat";
+
+    private final Path file;
+
+    private final Map<Integer, ArchivedCandidate> byId = new ConcurrentHashMap<>();
+    private final Map<ArchiveOrder, NavigableSet<ArchivedCandidate>> indexes = new EnumMap<>(ArchiveOrder.class);
+
+    private FileChannel channel;
+    private int nextId = 1;
+
+    public ArchiveStore(@Value("${app.archive.dir:data}") Path dir) {
+        this.file = dir.resolve(ARCHIVE_FILE);
+        indexes.put(ArchiveOrder.BY_DATE, new ConcurrentSkipListSet<>(ArchiveOrder.NEWEST_FIRST));
+        indexes.put(ArchiveOrder.BY_SCORE, new ConcurrentSkipListSet<>(ArchiveOrder.BEST_FIRST));
+        indexes.put(ArchiveOrder.INVITED, new ConcurrentSkipListSet<>(ArchiveOrder.NEWEST_FIRST));
+        indexes.put(ArchiveOrder.NOT_INVITED, new ConcurrentSkipListSet<>(ArchiveOrder.NEWEST_FIRST));
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long loaded = load();
+        log.info("Архив загружен: {} кандидатов", loaded);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public ArchivedCandidate get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Переносит кандидата в архив: запись сначала попадает на диск, затем в индексы.
+     *
+     * @param template ключ шаблона оценки, по которому собраны счётчики
+     */
+    public synchronized ArchivedCandidate add(String name, LocalDate archivedOn, String template, StatsSnapshot stats)
+            throws IOException {
+        var candidate = new ArchivedCandidate(nextId++, name, archivedOn, template, stats);
+        var payload = encode(candidate);
+        var crc = new CRC32();
+        crc.update(payload);
+        var buffer = ByteBuffer.allocate(Integer.BYTES * 2 + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        index(candidate);
+        return candidate;
+    }
+
+    /**
+     * Страница архива в заданном порядке.
+     *
+     * @param cursor   id кандидата, от которого листаем (null — с начала)
+     * @param backward true — страница перед курсором, false — после него
+     */
+    public ArchivePage page(ArchiveOrder order, Integer cursor, boolean backward, int limit) {
+        var index = indexes.get(order);
+        var anchor = cursor == null ? null : byId.get(cursor);
+
+        if (backward && anchor != null) {
+            Iterator<ArchivedCandidate> it = index.headSet(anchor, false).descendingIterator();
+            var items = take(it, limit);
+            Collections.reverse(items);
+            return new ArchivePage(order, items, it.hasNext(), true, index.size());
+        }
+        var view = anchor == null ? index : index.tailSet(anchor, false);
+        Iterator<ArchivedCandidate> it = view.iterator();
+        var items = take(it, limit);
+        return new ArchivePage(order, items, anchor != null, it.hasNext(), index.size());
+    }
+
+    private static List<ArchivedCandidate> take(Iterator<ArchivedCandidate> it, int limit) {
+        var items = new ArrayList<ArchivedCandidate>(limit);
+        while (items.size() < limit && it.hasNext()) {
+            items.add(it.next());
+        }
+        return items;
+    }
+
+    private void index(ArchivedCandidate candidate) {
+        byId.put(candidate.id(), candidate);
+        indexes.get(ArchiveOrder.BY_DATE).add(candidate);
+        indexes.get(ArchiveOrder.BY_SCORE).add(candidate);
+        indexes.get(candidate.invited() ? ArchiveOrder.INVITED : ArchiveOrder.NOT_INVITED).add(candidate);
+    }
+
+    /* ====================== Формат файла ====================== */
+
+    private long load() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long loaded = 0;
+        var header = ByteBuffer.allocate(Integer.BYTES * 2);
+        while (position + header.capacity() <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length <= 0 || position + header.capacity() + length > size) {
+                break;
+            }
+            var payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + header.capacity());
+            var crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            var candidate = decode(payload.array());
+            index(candidate);
+            nextId = Math.max(nextId, candidate.id() + 1);
+            loaded++;
+            position += header.capacity() + length;
+        }
+        if (position < size) {
+            log.warn("Файл архива {} обрезан с {} до {} байт: повреждённый хвост", file, size, position);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return loaded;
+    }
+
+    private static byte[] encode(ArchivedCandidate candidate) throws IOException {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(candidate.id());
+            out.writeUTF(candidate.name());
+            out.writeLong(candidate.archivedOn().toEpochDay());
+            out.writeUTF(candidate.template() == null ? "" : candidate.template());
+            var stats = candidate.stats();
+            out.writeByte(stats.getCriteria());
+            out.writeByte(stats.getMaxScore());
+            for (int c = 0; c < stats.getCriteria(); c++) {
+                for (int score = 1; score <= stats.getMaxScore(); score++) {
+                    out.writeLong(stats.getScoreCount(c, score));
+                }
+            }
+            out.writeLong(stats.getInviteYes());
+            out.writeLong(stats.getInviteNo());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ArchivedCandidate decode(byte[] payload) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int id = in.readInt();
+            var name = in.readUTF();
+            var archivedOn = LocalDate.ofEpochDay(in.readLong());
+            var template = in.readUTF();
+            int criteria = in.readByte();
+            int maxScore = in.readByte();
+            long[][] histograms = new long[criteria][maxScore];
+            for (int c = 0; c < criteria; c++) {
+                for (int s = 0; s < maxScore; s++) {
+                    histograms[c][s] = in.readLong();
+                }
+            }
+            long yes = in.readLong();
+            long no = in.readLong();
+            return new ArchivedCandidate(id, name, archivedOn, template.isEmpty() ? null : template,
+                    new StatsSnapshot(histograms, yes, no, 0));
+        }
+    }
+}
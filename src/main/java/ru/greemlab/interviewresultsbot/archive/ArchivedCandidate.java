@@ -0,0 +1,36 @@
+package ru.greemlab.interviewresultsbot.archive;
+
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.time.LocalDate;
+
+/**
+ * Кандидат в архиве: итоговые счётчики на момент переноса в архив.
+ *
+ * @param template ключ шаблона оценки, по которому собраны счётчики; null — запись старого формата,
+ *                 подписывается шаблоном по умолчанию
+ */
+public record ArchivedCandidate(int id, String name, LocalDate archivedOn, String template, StatsSnapshot stats) {
+
+    /**
+     * Средняя оценка по всем оценённым критериям; -1, если оценок нет.
+     */
+    public double averageScore() {
+        double sum = 0;
+        int rated = 0;
+        for (int c = 0; c < stats.getCriteria(); c++) {
+            if (stats.getCount(c) > 0) {
+                sum += stats.getAverage(c);
+                rated++;
+            }
+        }
+        return rated == 0 ? -1 : sum / rated;
+    }
+
+    /**
+     * Итог по приглашению: большинство голосов «пригласить».
+     */
+    public boolean invited() {
+        return stats.getInviteYes() > stats.getInviteNo();
+    }
+}
@@ -7,11 +7,18 @@ import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.pinnedmessages.PinChatMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.DeleteMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import ru.greemlab.interviewresultsbot.service.DialogStateMachineService;
+import ru.greemlab.interviewresultsbot.util.RecentKeyWindow;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Getter
@@ -21,30 +28,88 @@ public class CandidateEvaluationBot extends TelegramLongPollingBot {
     private final String botUsername;
     private final String botToken;
     private final DialogStateMachineService dialogStateMachineService;
+    private final UpdateDispatcher updateDispatcher;
+    private final OutboundMessageQueue outboundQueue;
+    private final RecentKeyWindow<String> recentCallbackIds;
 
     public CandidateEvaluationBot(
             @Value("${app.bot.username}") String botUsername,
             @Value("${app.bot.token}") String botToken,
             DefaultBotOptions options,
-            DialogStateMachineService dialogStateMachineService
+            DialogStateMachineService dialogStateMachineService,
+            UpdateDispatcher updateDispatcher,
+            OutboundMessageQueue outboundQueue,
+            @Value("${app.bot.callback-dedup-window:10000}") int callbackDedupWindow
     ) {
         super(options);
         this.botUsername = botUsername;
         this.botToken = botToken;
         this.dialogStateMachineService = dialogStateMachineService;
+        this.updateDispatcher = updateDispatcher;
+        this.outboundQueue = outboundQueue;
+        this.recentCallbackIds = new RecentKeyWindow<>(callbackDedupWindow);
     }
 
+    /**
+     * Обновления не обрабатываются на потоке получения: они раскладываются по очередям чатов
+     * в {@link UpdateDispatcher}, где выполняются на виртуальных потоках в порядке поступления.
+     */
     @Override
     public void onUpdateReceived(Update update) {
+        acceptUpdate(update);
+    }
+
+    /**
+     * Ставит обновление в очередь его чата (используется и long polling'ом, и webhook'ом).
+     * Повторы по update_id отсекают сами транспорты (offset long polling'а, окно в WebhookController),
+     * здесь — повторы одного и того же нажатия по id callback-запроса.
+     *
+     * @return false, если очередь переполнена и обновление не принято
+     */
+    public boolean acceptUpdate(Update update) {
+        final Long chatId = resolveChatId(update);
+        if (chatId == null) {
+            log.debug("Обновление без chatId пропущено: {}", update.getUpdateId());
+            return true;
+        }
+        final String callbackId = update.hasCallbackQuery() ? update.getCallbackQuery().getId() : null;
+        if (callbackId != null && !recentCallbackIds.add(callbackId)) {
+            log.debug("Повторное нажатие пропущено: {} (chatId={})", callbackId, chatId);
+            return true;
+        }
+        if (!updateDispatcher.dispatch(chatId, () -> handleUpdate(update))) {
+            // Обновление придёт ещё раз — его нажатие не должно считаться повтором
+            if (callbackId != null) {
+                recentCallbackIds.remove(callbackId);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    static Long resolveChatId(Update update) {
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        return null;
+    }
+
+    private void handleUpdate(Update update) {
         try {
             if (update.hasCallbackQuery()) {
                 // Callback запрос (клик по inline-кнопке)
                 final var callbackQuery = update.getCallbackQuery();
-                // Убираем "часики" на нажатой кнопке
-                execute(AnswerCallbackQuery.builder()
-                        .callbackQueryId(callbackQuery.getId())
-                        .build());
-                dialogStateMachineService.processCallbackQuery(this, callbackQuery);
+                String notification = null;
+                try {
+                    notification = dialogStateMachineService.processCallbackQuery(this, callbackQuery);
+                } finally {
+                    // Убираем "часики" на нажатой кнопке (не дожидаясь ответа Telegram);
+                    // текст уведомления — подтверждение отметки в оценочном листе
+                    answerCallbackQuery(callbackQuery.getId(), notification);
+                }
             } else if (update.hasMessage() && update.getMessage().hasText()) {
                 dialogStateMachineService.processTextMessage(this, update.getMessage());
             }
@@ -53,53 +118,73 @@ public class CandidateEvaluationBot extends TelegramLongPollingBot {
         }
     }
 
+    /**
+     * Ответ на нажатие inline-кнопки, при непустом text — со всплывающим уведомлением.
+     * Идёт вне очередей сообщений: это не сообщение в чат и под лимиты Telegram на сообщения не попадает.
+     */
+    private void answerCallbackQuery(String callbackQueryId, String text) {
+        outboundQueue.submitUnthrottled("answerCallbackQuery", () -> execute(AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQueryId)
+                .text(text)
+                .build()));
+    }
+
     /**
      * Утилитный метод: отправка нового сообщения в чат.
+     * Запрос ставится в {@link OutboundMessageQueue}; future завершится ID отправленного сообщения.
      */
-    public Integer sendTextMessage(Long chatId, String text,
-                                   org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup keyboard) {
-        try {
-            var send = SendMessage.builder()
-                    .chatId(chatId.toString())
-                    .text(text)
-                    .replyMarkup(keyboard)
-                    .build();
-            var msg = execute(send);
-            return msg.getMessageId(); // Возвращаем ID отправленного сообщения
-        } catch (Exception e) {
-            log.error("Ошибка при отправке сообщения: {}", e.getMessage(), e);
-        }
-        return null;
+    public CompletableFuture<Integer> sendTextMessage(Long chatId, String text,
+                                                      org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup keyboard) {
+        return outboundQueue.send(chatId, () -> execute(SendMessage.builder()
+                .chatId(chatId.toString())
+                .text(text)
+                .replyMarkup(keyboard)
+                .build()).getMessageId());
+    }
+
+    /**
+     * Отправка файла документом; future завершится ID сообщения с документом.
+     * Файл читается при загрузке, поэтому удалять его можно только после завершения future.
+     */
+    public CompletableFuture<Integer> sendDocument(Long chatId, Path file, String fileName) {
+        return outboundQueue.send(chatId, () -> execute(SendDocument.builder()
+                .chatId(chatId.toString())
+                .document(new InputFile(file.toFile(), fileName))
+                .build()).getMessageId());
     }
 
     /**
      * Редактирование существующего сообщения (меняем текст и/или клавиатуру).
+     * Несколько ещё не отправленных правок одного сообщения схлопываются в последнюю.
      */
-    public void editMessage(Long chatId, Integer messageId, String newText,
-                            org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup keyboard) {
-        try {
-            execute(EditMessageText.builder()
-                    .chatId(chatId.toString())
-                    .messageId(messageId)
-                    .text(newText)
-                    .replyMarkup(keyboard)
-                    .build());
-        } catch (Exception e) {
-            log.error("Ошибка при редактировании сообщения: {}", e.getMessage(), e);
-        }
+    public CompletableFuture<Void> editMessage(Long chatId, Integer messageId, String newText,
+                                               org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup keyboard) {
+        return outboundQueue.edit(chatId, messageId, () -> execute(EditMessageText.builder()
+                .chatId(chatId.toString())
+                .messageId(messageId)
+                .text(newText)
+                .replyMarkup(keyboard)
+                .build()));
+    }
+
+    /**
+     * Закрепление сообщения в чате без уведомления участников.
+     */
+    public CompletableFuture<Boolean> pinMessage(Long chatId, Integer messageId) {
+        return outboundQueue.send(chatId, () -> execute(PinChatMessage.builder()
+                .chatId(chatId.toString())
+                .messageId(messageId)
+                .disableNotification(true)
+                .build()));
     }
 
     /**
      * Удаление сообщения из чата по его ID.
      */
-    public void deleteMessage(Long chatId, Integer messageId) {
-        try {
-            execute(DeleteMessage.builder()
-                    .chatId(chatId.toString())
-                    .messageId(messageId)
-                    .build());
-        } catch (Exception e) {
-            log.error("Ошибка при удалении сообщения: {}", e.getMessage(), e);
-        }
+    public CompletableFuture<Void> deleteMessage(Long chatId, Integer messageId) {
+        return outboundQueue.delete(chatId, messageId, () -> execute(DeleteMessage.builder()
+                .chatId(chatId.toString())
+                .messageId(messageId)
+                .build()));
     }
 }
@@ -0,0 +1,31 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * В режиме polling запускает long polling, когда контекст полностью готов.
+ * Регистрация ходит в Telegram (снимает webhook), поэтому она не держит обновление контекста
+ * и не выполняется в пробном запуске, которым снимается архив классов CDS.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.bot.mode", havingValue = "polling", matchIfMissing = true)
+public class LongPollingRegistrar {
+
+    private final TelegramBotsApi telegramBotsApi;
+    private final CandidateEvaluationBot bot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() throws TelegramApiException {
+        telegramBotsApi.registerBot(bot);
+        log.info("Long polling запущен");
+    }
+}
@@ -0,0 +1,390 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import ru.greemlab.interviewresultsbot.metrics.BotMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Асинхронная очередь исходящих запросов к Telegram.
+ * <p>
+ * Запросы одного чата выполняются по порядку, разных чатов — параллельно на виртуальных потоках.
+ * Ещё не отправленные правки одного и того же сообщения схлопываются в последнюю,
+ * а правка сообщения, для которого уже стоит в очереди удаление, не отправляется вовсе.
+ * Скорость ограничивается двумя token bucket'ами: на чат и на бота в целом.
+ * Очередь чата живёт, пока её ведро не восстановится полностью, — так пауза
+ * между запросами не сбрасывает лимит чата.
+ * <p>
+ * Число одновременных HTTP-запросов ограничено app.outbound.max-in-flight — по размеру пула
+ * соединений клиента telegrambots (2 на хост). Ожидание соединения внутри Apache HttpClient
+ * идёт под synchronized и «прибивает» виртуальный поток к несущему; без семафора десятки
+ * ждущих потоков занимали все несущие, и ответы на уже отправленные запросы некому было дочитать.
+ */
+@Slf4j
+@Component
+public class OutboundMessageQueue {
+
+    /**
+     * Вызов Telegram API, который выполнится в очереди.
+     */
+    @FunctionalInterface
+    public interface TelegramCall<T> {
+        T call() throws TelegramApiException;
+    }
+
+    private enum Kind {
+        SEND("sendMessage", "Ошибка при отправке сообщения"),
+        EDIT("editMessageText", "Ошибка при редактировании сообщения"),
+        DELETE("deleteMessage", "Ошибка при удалении сообщения");
+
+        private final String method;
+        private final String errorText;
+
+        Kind(String method, String errorText) {
+            this.method = method;
+            this.errorText = errorText;
+        }
+    }
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("outbound-", 0).factory());
+
+    private final Map<Long, ChatOutbox> outboxes = new ConcurrentHashMap<>();
+    private final TokenBucket globalBucket;
+    private final double perChatRate;
+    private final int perChatBurst;
+    private final int maxRetries;
+    private final Semaphore inFlight;
+    private final BotMetrics botMetrics;
+
+    public OutboundMessageQueue(
+            @Value("${app.outbound.global-rate-per-second:30}") double globalRate,
+            @Value("${app.outbound.global-burst:30}") int globalBurst,
+            @Value("${app.outbound.per-chat-rate-per-second:1}") double perChatRate,
+            @Value("${app.outbound.per-chat-burst:5}") int perChatBurst,
+            @Value("${app.outbound.max-retries:3}") int maxRetries,
+            @Value("${app.outbound.max-in-flight:2}") int maxInFlight,
+            BotMetrics botMetrics
+    ) {
+        this.globalBucket = new TokenBucket(globalRate, globalBurst);
+        this.perChatRate = perChatRate;
+        this.perChatBurst = perChatBurst;
+        this.maxRetries = maxRetries;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight), true);
+        this.botMetrics = botMetrics;
+    }
+
+    /**
+     * Отправка нового сообщения (или любого другого запроса, который нельзя схлопывать).
+     */
+    public <T> CompletableFuture<T> send(Long chatId, TelegramCall<T> call) {
+        return enqueue(chatId, Kind.SEND, null, call);
+    }
+
+    /**
+     * Правка сообщения. Если в очереди уже есть неотправленная правка того же сообщения,
+     * она заменяется новой, и обе получают один и тот же future.
+     */
+    public CompletableFuture<Void> edit(Long chatId, Integer messageId, TelegramCall<?> call) {
+        return enqueue(chatId, Kind.EDIT, messageId, asVoid(call));
+    }
+
+    /**
+     * Удаление сообщения. Неотправленные правки этого сообщения из очереди выбрасываются.
+     */
+    public CompletableFuture<Void> delete(Long chatId, Integer messageId, TelegramCall<?> call) {
+        return enqueue(chatId, Kind.DELETE, messageId, asVoid(call));
+    }
+
+    /**
+     * Запрос вне очередей и лимитов (например, AnswerCallbackQuery — он не считается сообщением).
+     *
+     * @param method имя метода Bot API — для метрик
+     */
+    public <T> CompletableFuture<T> submitUnthrottled(String method, TelegramCall<T> call) {
+        var future = new CompletableFuture<T>();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                future.complete(invoke(call));
+                botMetrics.recordTelegramCall(method, BotMetrics.OUTCOME_OK, System.nanoTime() - start);
+            } catch (Exception e) {
+                recordFailure(method, e, System.nanoTime() - start);
+                log.error("Ошибка при вызове Telegram API: {}", e.getMessage(), e);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Количество запросов, ожидающих отправки во всех чатах.
+     */
+    public int getBacklog() {
+        int total = 0;
+        for (var outbox : outboxes.values()) {
+            outbox.lock.lock();
+            try {
+                total += outbox.queue.size();
+            } finally {
+                outbox.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> enqueue(Long chatId, Kind kind, Integer messageId, TelegramCall<T> call) {
+        while (true) {
+            var outbox = outboxes.computeIfAbsent(chatId, ChatOutbox::new);
+            outbox.lock.lock();
+            try {
+                if (outbox.closed) {
+                    continue;
+                }
+                if (kind == Kind.EDIT) {
+                    var pending = coalesceEdit(outbox, messageId, call);
+                    if (pending != null) {
+                        return (CompletableFuture<T>) pending;
+                    }
+                } else if (kind == Kind.DELETE) {
+                    var pending = coalesceDelete(outbox, messageId);
+                    if (pending != null) {
+                        return (CompletableFuture<T>) pending;
+                    }
+                }
+                var operation = new Operation<>(kind, messageId, call);
+                outbox.queue.add(operation);
+                if (outbox.running) {
+                    outbox.hasWork.signal();
+                } else {
+                    outbox.running = true;
+                    executor.execute(() -> drain(outbox));
+                }
+                return operation.future;
+            } finally {
+                outbox.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return future уже стоящей в очереди операции, если новая правка с ней слилась
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<?> coalesceEdit(ChatOutbox outbox, Integer messageId, TelegramCall<?> call) {
+        for (var op : outbox.queue) {
+            if (!Objects.equals(op.messageId, messageId)) {
+                continue;
+            }
+            if (op.kind == Kind.DELETE) {
+                // Сообщение всё равно будет удалено — правка бессмысленна
+                return CompletableFuture.completedFuture(null);
+            }
+            if (op.kind == Kind.EDIT) {
+                ((Operation<Object>) op).call = (TelegramCall<Object>) call;
+                return op.future;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<?> coalesceDelete(ChatOutbox outbox, Integer messageId) {
+        for (Iterator<Operation<?>> it = outbox.queue.iterator(); it.hasNext(); ) {
+            var op = it.next();
+            if (!Objects.equals(op.messageId, messageId)) {
+                continue;
+            }
+            if (op.kind == Kind.DELETE) {
+                return op.future;
+            }
+            if (op.kind == Kind.EDIT) {
+                it.remove();
+                op.future.complete(null);
+            }
+        }
+        return null;
+    }
+
+    private void drain(ChatOutbox outbox) {
+        while (true) {
+            var op = nextOperation(outbox);
+            if (op == null) {
+                return;
+            }
+            pause(outbox.bucket.reserve());
+            pause(globalBucket.reserve());
+            execute(outbox.chatId, op);
+        }
+    }
+
+    /**
+     * Берёт следующую операцию чата; если очередь пуста — ждёт новых запросов,
+     * пока ведро чата не наполнится, после чего закрывает очередь.
+     */
+    private Operation<?> nextOperation(ChatOutbox outbox) {
+        outbox.lock.lock();
+        try {
+            var op = outbox.queue.poll();
+            while (op == null) {
+                long untilFull = outbox.bucket.nanosUntilFull();
+                if (untilFull <= 0) {
+                    close(outbox);
+                    return null;
+                }
+                outbox.hasWork.awaitNanos(untilFull);
+                op = outbox.queue.poll();
+            }
+            return op;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close(outbox);
+            return null;
+        } finally {
+            outbox.lock.unlock();
+        }
+    }
+
+    private void close(ChatOutbox outbox) {
+        outbox.running = false;
+        outbox.closed = true;
+        outboxes.remove(outbox.chatId, outbox);
+    }
+
+    private <T> void execute(Long chatId, Operation<T> op) {
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                var result = invoke(op.call);
+                botMetrics.recordTelegramCall(op.kind.method, BotMetrics.OUTCOME_OK, System.nanoTime() - start);
+                op.future.complete(result);
+                return;
+            } catch (TelegramApiRequestException e) {
+                recordFailure(op.kind.method, e, System.nanoTime() - start);
+                if (isTooManyRequests(e) && attempt < maxRetries) {
+                    long retryAfter = retryAfterSeconds(e);
+                    log.warn("Telegram ограничил частоту запросов (chatId={}), повтор через {} c", chatId, retryAfter);
+                    pause(TimeUnit.SECONDS.toNanos(retryAfter));
+                    continue;
+                }
+                fail(chatId, op, e);
+                return;
+            } catch (Exception e) {
+                recordFailure(op.kind.method, e, System.nanoTime() - start);
+                fail(chatId, op, e);
+                return;
+            }
+        }
+    }
+
+    private <T> T invoke(TelegramCall<T> call) throws TelegramApiException {
+        inFlight.acquireUninterruptibly();
+        try {
+            return call.call();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void recordFailure(String method, Exception e, long nanos) {
+        if (e instanceof TelegramApiRequestException requestException && requestException.getErrorCode() != null) {
+            boolean tooMany = isTooManyRequests(requestException);
+            botMetrics.recordTelegramCall(method, tooMany ? BotMetrics.OUTCOME_RATE_LIMITED : BotMetrics.OUTCOME_ERROR, nanos);
+            botMetrics.countApiError(method, requestException.getErrorCode().toString());
+            return;
+        }
+        botMetrics.recordTelegramCall(method, BotMetrics.OUTCOME_ERROR, nanos);
+        botMetrics.countApiError(method, "io");
+    }
+
+    private void fail(Long chatId, Operation<?> op, Exception e) {
+        log.error("{} (chatId={}): {}", op.kind.errorText, chatId, e.getMessage(), e);
+        op.future.completeExceptionally(e);
+    }
+
+    private static boolean isTooManyRequests(TelegramApiRequestException e) {
+        return e.getErrorCode() != null && e.getErrorCode() == TOO_MANY_REQUESTS;
+    }
+
+    private static long retryAfterSeconds(TelegramApiRequestException e) {
+        var parameters = e.getParameters();
+        if (parameters != null && parameters.getRetryAfter() != null) {
+            return parameters.getRetryAfter();
+        }
+        return 1;
+    }
+
+    private static void pause(long nanos) {
+        // parkNanos может вернуться раньше срока (ложное пробуждение), поэтому паркуемся до дедлайна
+        long end = System.nanoTime() + nanos;
+        long left;
+        while ((left = end - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private static TelegramCall<Void> asVoid(TelegramCall<?> call) {
+        return () -> {
+            call.call();
+            return null;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Не все исходящие запросы успели отправиться до остановки: {}", getBacklog());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Operation<T> {
+        private final Kind kind;
+        private final Integer messageId;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private TelegramCall<T> call;
+
+        private Operation(Kind kind, Integer messageId, TelegramCall<T> call) {
+            this.kind = kind;
+            this.messageId = messageId;
+            this.call = call;
+        }
+    }
+
+    private final class ChatOutbox {
+        private final Long chatId;
+        private final ArrayDeque<Operation<?>> queue = new ArrayDeque<>();
+        private final TokenBucket bucket = new TokenBucket(perChatRate, perChatBurst);
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition hasWork = lock.newCondition();
+        private boolean running;
+        private boolean closed;
+
+        private ChatOutbox(Long chatId) {
+            this.chatId = chatId;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+/**
+ * Простой token bucket с резервированием.
+ * <p>
+ * {@link #reserve()} всегда выдаёт токен, но может уйти «в долг»: возвращает,
+ * сколько наносекунд вызывающий должен подождать перед запросом.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double tokensPerSecond, int capacity) {
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Забирает один токен и возвращает время ожидания (нс) до его фактической доступности.
+     */
+    synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    /**
+     * Сколько наносекунд осталось до полного восстановления ведра.
+     */
+    synchronized long nanosUntilFull() {
+        refill();
+        return (long) Math.ceil((capacity - tokens) / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,164 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Диспетчер входящих обновлений.
+ * <p>
+ * У каждого чата свой «почтовый ящик» (mailbox): обновления одного чата обрабатываются
+ * строго по очереди (FIFO), разные чаты — параллельно, каждый на своём виртуальном потоке.
+ * Общее число ожидающих обновлений ограничено: при переполнении поток-источник
+ * (long polling / webhook) ждёт освобождения места, а не теряет голоса.
+ * Число одновременно обрабатываемых обновлений можно ограничить (max-concurrency, 0 — без ограничения).
+ */
+@Slf4j
+@Component
+public class UpdateDispatcher {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("update-", 0).factory());
+
+    private final Map<Long, ChatMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    // Разрешения на «место в очереди» — общий лимит ожидающих обновлений
+    private final Semaphore pendingPermits;
+    // Лимит одновременно выполняющихся обработчиков (null — без ограничения)
+    private final Semaphore concurrencyPermits;
+    private final int maxPendingUpdates;
+    private final int maxQueuePerChat;
+    private final long offerTimeoutMs;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public UpdateDispatcher(
+            @Value("${app.dispatcher.max-pending-updates:10000}") int maxPendingUpdates,
+            @Value("${app.dispatcher.max-queue-per-chat:100}") int maxQueuePerChat,
+            @Value("${app.dispatcher.offer-timeout-ms:30000}") long offerTimeoutMs,
+            @Value("${app.dispatcher.max-concurrency:0}") int maxConcurrency
+    ) {
+        this.pendingPermits = new Semaphore(maxPendingUpdates);
+        this.concurrencyPermits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        this.maxPendingUpdates = maxPendingUpdates;
+        this.maxQueuePerChat = maxQueuePerChat;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    /**
+     * Ставит задачу в очередь чата.
+     * Блокирует вызывающий поток, пока не появится место в общей очереди (backpressure).
+     *
+     * @return false, если задача отклонена (таймаут ожидания или переполнена очередь чата)
+     */
+    public boolean dispatch(Long chatId, Runnable task) {
+        try {
+            if (!pendingPermits.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejectedCount.incrementAndGet();
+                log.error("Очередь обновлений переполнена, обновление отклонено (chatId={})", chatId);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        while (true) {
+            var mailbox = mailboxes.computeIfAbsent(chatId, ChatMailbox::new);
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    // Ящик только что удалён опустевшим обработчиком — берём новый
+                    continue;
+                }
+                if (mailbox.queue.size() >= maxQueuePerChat) {
+                    pendingPermits.release();
+                    rejectedCount.incrementAndGet();
+                    log.warn("Очередь чата переполнена ({} обновлений), обновление отклонено (chatId={})",
+                            maxQueuePerChat, chatId);
+                    return false;
+                }
+                mailbox.queue.add(task);
+                if (!mailbox.running) {
+                    mailbox.running = true;
+                    executor.execute(() -> drain(mailbox));
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Количество обновлений, ожидающих обработки (включая выполняющиеся).
+     */
+    public int getPendingCount() {
+        return maxPendingUpdates - pendingPermits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Последовательно выполняет задачи одного чата, пока его очередь не опустеет.
+     */
+    private void drain(ChatMailbox mailbox) {
+        while (true) {
+            Runnable task;
+            synchronized (mailbox) {
+                task = mailbox.queue.poll();
+                if (task == null) {
+                    mailbox.running = false;
+                    mailbox.closed = true;
+                    mailboxes.remove(mailbox.chatId, mailbox);
+                    return;
+                }
+            }
+            if (concurrencyPermits != null) {
+                concurrencyPermits.acquireUninterruptibly();
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Ошибка при обработке обновления (chatId={}): {}", mailbox.chatId, e.getMessage(), e);
+            } finally {
+                if (concurrencyPermits != null) {
+                    concurrencyPermits.release();
+                }
+                pendingPermits.release();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Не все обновления успели обработаться до остановки: {}", getPendingCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ChatMailbox {
+        private final Long chatId;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean closed;
+
+        private ChatMailbox(Long chatId) {
+            this.chatId = chatId;
+        }
+    }
+}
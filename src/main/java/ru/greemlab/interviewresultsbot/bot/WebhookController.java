@@ -0,0 +1,94 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import ru.greemlab.interviewresultsbot.cluster.ClusterNode;
+import ru.greemlab.interviewresultsbot.util.RecentKeyWindow;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+/**
+ * Приём обновлений в режиме webhook (app.bot.mode=webhook).
+ * Обновление сразу передаётся в бота, а ответ Telegram отдаётся, не дожидаясь обработки.
+ * В кластере (app.cluster.enabled=true) обновление чужого чата пересылается узлу-владельцу.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "app.bot.mode", havingValue = "webhook")
+public class WebhookController {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final CandidateEvaluationBot bot;
+    private final byte[] secretToken;
+    private final RecentKeyWindow<Integer> recentUpdateIds;
+    private final Optional<ClusterNode> clusterNode;
+
+    public WebhookController(
+            CandidateEvaluationBot bot,
+            @Value("${app.bot.webhook.secret-token:}") String secretToken,
+            @Value("${app.bot.webhook.dedup-window:10000}") int dedupWindow,
+            Optional<ClusterNode> clusterNode
+    ) {
+        this.bot = bot;
+        this.clusterNode = clusterNode;
+        this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+        this.recentUpdateIds = new RecentKeyWindow<>(dedupWindow);
+        if (secretToken.isEmpty()) {
+            log.warn("Webhook принимает обновления без проверки секретного токена");
+        }
+    }
+
+    @PostMapping("${app.bot.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> onUpdate(
+            @RequestHeader(value = SECRET_HEADER, required = false) String secret,
+            @RequestHeader(value = ClusterNode.FORWARDED_HEADER, required = false) String forwardedBy,
+            @RequestBody Update update
+    ) {
+        if (!secretMatches(secret)) {
+            log.warn("Отклонён запрос на webhook с неверным секретным токеном");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (clusterNode.isPresent() && forwardedBy == null) {
+            // Пересланное обновление обрабатываем сами, даже если составы кольца на узлах на миг разошлись
+            var chatId = CandidateEvaluationBot.resolveChatId(update);
+            var owner = chatId == null ? null : clusterNode.get().ownerOf(chatId);
+            if (owner != null && !clusterNode.get().isLocal(owner)) {
+                return clusterNode.get().forward(owner, update, SECRET_HEADER, secret)
+                        ? ResponseEntity.ok().build()
+                        : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+        }
+        var updateId = update.getUpdateId();
+        if (updateId != null && !recentUpdateIds.add(updateId)) {
+            // Telegram повторяет доставку, если не дождался ответа, — второй раз не обрабатываем
+            log.debug("Повторное обновление пропущено: {}", updateId);
+            return ResponseEntity.ok().build();
+        }
+        if (!bot.acceptUpdate(update)) {
+            // Очередь переполнена: пусть Telegram доставит обновление ещё раз
+            if (updateId != null) {
+                recentUpdateIds.remove(updateId);
+            }
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean secretMatches(String secret) {
+        if (secretToken.length == 0) {
+            return true;
+        }
+        return secret != null && MessageDigest.isEqual(secretToken, secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.util.List;
+
+/**
+ * В режиме webhook сообщает Telegram адрес, на который слать обновления.
+ * Регистрация выполняется, когда встроенный веб-сервер уже принимает запросы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.bot.mode", havingValue = "webhook")
+public class WebhookRegistrar {
+
+    private final CandidateEvaluationBot bot;
+
+    @Value("${app.bot.webhook.url}")
+    private String baseUrl;
+
+    @Value("${app.bot.webhook.path:/telegram/webhook}")
+    private String path;
+
+    @Value("${app.bot.webhook.secret-token:}")
+    private String secretToken;
+
+    @Value("${app.bot.webhook.max-connections:40}")
+    private int maxConnections;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register(ApplicationReadyEvent event) throws TelegramApiException {
+        if (!(event.getApplicationContext() instanceof WebServerApplicationContext)) {
+            throw new IllegalStateException("Режиму webhook нужен веб-сервер: уберите web-application-type: none");
+        }
+        var url = baseUrl.replaceAll("/+$", "") + path;
+        var setWebhook = SetWebhook.builder()
+                .url(url)
+                .maxConnections(maxConnections)
+                .allowedUpdates(List.of("message", "callback_query"))
+                .build();
+        if (!secretToken.isEmpty()) {
+            setWebhook.setSecretToken(secretToken);
+        }
+        bot.execute(setWebhook);
+        log.info("Webhook зарегистрирован: {}", url);
+    }
+}
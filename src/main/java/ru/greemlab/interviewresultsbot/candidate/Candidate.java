@@ -0,0 +1,29 @@
+package ru.greemlab.interviewresultsbot.candidate;
+
+/**
+ * Кандидат из реестра.
+ *
+ * @param id          компактный числовой id (не переиспользуется), индекс в массивах реестра
+ * @param key         ключ кандидата — он же callback-данные кнопки и ключ статистики
+ * @param displayName имя для вывода в чат
+ * @param template    ключ шаблона оценки (null — шаблон по умолчанию)
+ */
+public record Candidate(int id, String key, String displayName, Status status, String template) {
+
+    public enum Status {
+        /** Идёт голосование */
+        ACTIVE,
+        /** Снят с голосования, статистика сохраняется */
+        RETIRED,
+        /** Перенесён в архив */
+        ARCHIVED
+    }
+
+    public boolean isActive() {
+        return status == Status.ACTIVE;
+    }
+
+    Candidate withStatus(Status newStatus) {
+        return new Candidate(id, key, displayName, newStatus, template);
+    }
+}
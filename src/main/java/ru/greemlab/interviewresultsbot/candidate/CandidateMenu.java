@@ -0,0 +1,81 @@
+package ru.greemlab.interviewresultsbot.candidate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import ru.greemlab.interviewresultsbot.util.KeyboardFactory;
+
+/**
+ * Кэш страниц главного меню.
+ * <p>
+ * Клавиатуры всех страниц строятся один раз и раздаются как общие экземпляры;
+ * пересборка происходит, только когда меняется версия {@link CandidateRegistry}.
+ * Кандидатов на странице не больше app.candidates.menu-page-size, поэтому меню
+ * не упирается в лимиты Telegram на число кнопок при любом размере реестра.
+ */
+@Slf4j
+@Component
+public class CandidateMenu {
+
+    /**
+     * Страницы меню, собранные для конкретной версии реестра.
+     */
+    private record Pages(long registryVersion, InlineKeyboardMarkup[] keyboards) {
+    }
+
+    private final CandidateRegistry candidateRegistry;
+    private final int pageSize;
+
+    private volatile Pages pages;
+
+    public CandidateMenu(
+            CandidateRegistry candidateRegistry,
+            @Value("${app.candidates.menu-page-size:8}") int pageSize
+    ) {
+        this.candidateRegistry = candidateRegistry;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Клавиатура страницы меню. Номер вне диапазона прижимается к ближайшей существующей странице.
+     */
+    public InlineKeyboardMarkup getPage(int page) {
+        var keyboards = current().keyboards();
+        return keyboards[Math.clamp(page, 0, keyboards.length - 1)];
+    }
+
+    public int getPageCount() {
+        return current().keyboards().length;
+    }
+
+    private Pages current() {
+        var cached = pages;
+        long version = candidateRegistry.getVersion();
+        if (cached != null && cached.registryVersion() == version) {
+            return cached;
+        }
+        return rebuild();
+    }
+
+    private synchronized Pages rebuild() {
+        // Версию читаем до списка: если реестр изменится в процессе, следующий вызов соберёт меню заново
+        long version = candidateRegistry.getVersion();
+        var cached = pages;
+        if (cached != null && cached.registryVersion() == version) {
+            return cached;
+        }
+        var active = candidateRegistry.getActive();
+        int pageCount = Math.max(1, (active.size() + pageSize - 1) / pageSize);
+        var keyboards = new InlineKeyboardMarkup[pageCount];
+        for (int page = 0; page < pageCount; page++) {
+            int from = page * pageSize;
+            var candidates = active.subList(Math.min(from, active.size()), Math.min(from + pageSize, active.size()));
+            keyboards[page] = KeyboardFactory.buildMainMenuKeyboard(candidates, page, pageCount);
+        }
+        var fresh = new Pages(version, keyboards);
+        pages = fresh;
+        log.debug("Главное меню пересобрано: {} кандидатов, {} страниц", active.size(), pageCount);
+        return fresh;
+    }
+}
@@ -0,0 +1,210 @@
+package ru.greemlab.interviewresultsbot.candidate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Реестр кандидатов, который можно менять без передеплоя.
+ * <p>
+ * Кандидаты хранятся в текстовом файле ({@code id;ключ;статус[/шаблон];имя} на строку) и загружаются при старте;
+ * если файла ещё нет, он создаётся из списка app.candidates.initial.
+ * Поиск по ключу — O(1) по хэш-таблице, по id — индекс в массиве.
+ * Списки для меню и номер версии пересчитываются только при изменении реестра.
+ */
+@Slf4j
+@Component
+public class CandidateRegistry {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[a-z0-9_]{1,32}");
+
+    private final Path file;
+    private final String initialCandidates;
+
+    private final Map<String, Candidate> byKey = new ConcurrentHashMap<>();
+    private volatile Candidate[] byId = new Candidate[1];
+    private volatile List<Candidate> active = List.of();
+    private volatile long version;
+
+    public CandidateRegistry(
+            @Value("${app.candidates.file:data/candidates.txt}") Path file,
+            @Value("${app.candidates.initial:}") String initialCandidates
+    ) {
+        this.file = file;
+        this.initialCandidates = initialCandidates;
+    }
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        if (!Files.exists(file)) {
+            seed();
+            return;
+        }
+        var loaded = new ArrayList<Candidate>();
+        var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int number = 1; number <= lines.size(); number++) {
+            var line = lines.get(number - 1);
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            var parts = line.split(";", 4);
+            if (parts.length < 4) {
+                log.warn("Пропущена некорректная строка {} реестра кандидатов: {}", number, line);
+                continue;
+            }
+            // Шаблон оценки пишется через «/» после статуса — строки без него остаются совместимыми
+            var status = parts[2].trim().split("/", 2);
+            try {
+                loaded.add(new Candidate(Integer.parseInt(parts[0].trim()), parts[1].trim(),
+                        parts[3].trim(), Candidate.Status.valueOf(status[0]), status.length > 1 ? status[1] : null));
+            } catch (IllegalArgumentException e) {
+                // Сюда же попадает NumberFormatException: неверный id или неизвестный статус
+                log.warn("Пропущена некорректная строка {} реестра кандидатов: {} ({})", number, line, e.getMessage());
+            }
+        }
+        replaceAll(loaded);
+        log.info("Реестр кандидатов загружен: {} (активных: {})", loaded.size(), active.size());
+    }
+
+    /**
+     * Кандидат по ключу или null.
+     */
+    public Candidate findByKey(String key) {
+        return key == null ? null : byKey.get(key);
+    }
+
+    /**
+     * Кандидат по id или null.
+     */
+    public Candidate get(int id) {
+        var candidates = byId;
+        return id > 0 && id < candidates.length ? candidates[id] : null;
+    }
+
+    /**
+     * Имя для вывода в чат (для неизвестного ключа — заглушка).
+     */
+    public String getDisplayName(String key) {
+        var candidate = findByKey(key);
+        return candidate == null ? "Неизвестный кандидат" : candidate.displayName();
+    }
+
+    /**
+     * Активные кандидаты в порядке добавления (неизменяемый список).
+     */
+    public List<Candidate> getActive() {
+        return active;
+    }
+
+    public List<Candidate> getAll() {
+        return Arrays.stream(byId).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Номер версии реестра: меняется при каждом добавлении или смене статуса.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Candidate add(String key, String displayName) throws IOException {
+        return add(key, displayName, null);
+    }
+
+    /**
+     * Добавляет активного кандидата, который голосуется по шаблону template (null — по умолчанию).
+     */
+    public synchronized Candidate add(String key, String displayName, String template) throws IOException {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Ключ должен состоять из a-z, 0-9 и _ (до 32 символов): " + key);
+        }
+        if (displayName.isBlank() || displayName.contains("\n")) {
+            throw new IllegalArgumentException("Некорректное имя кандидата");
+        }
+        if (template != null && !KEY_PATTERN.matcher(template).matches()) {
+            throw new IllegalArgumentException("Некорректный ключ шаблона: " + template);
+        }
+        if (byKey.containsKey(key)) {
+            throw new IllegalArgumentException("Кандидат с ключом " + key + " уже есть");
+        }
+        var candidate = new Candidate(byId.length, key, displayName.trim(), Candidate.Status.ACTIVE, template);
+        var all = new ArrayList<>(getAll());
+        all.add(candidate);
+        replaceAll(all);
+        save();
+        return candidate;
+    }
+
+    public synchronized Candidate changeStatus(String key, Candidate.Status status) throws IOException {
+        var candidate = byKey.get(key);
+        if (candidate == null) {
+            throw new IllegalArgumentException("Кандидат " + key + " не найден");
+        }
+        var updated = candidate.withStatus(status);
+        var all = new ArrayList<>(getAll());
+        all.set(all.indexOf(candidate), updated);
+        replaceAll(all);
+        save();
+        return updated;
+    }
+
+    private void seed() throws IOException {
+        var seeded = new ArrayList<Candidate>();
+        int id = 1;
+        for (var entry : initialCandidates.split(",")) {
+            var parts = entry.split(":", 2);
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                seeded.add(new Candidate(id++, parts[0].trim(), parts[1].trim(), Candidate.Status.ACTIVE, null));
+            }
+        }
+        replaceAll(seeded);
+        save();
+        log.info("Реестр кандидатов создан из начального списка: {}", seeded.size());
+    }
+
+    /**
+     * Пересобирает индексы из полного списка кандидатов.
+     */
+    private void replaceAll(List<Candidate> candidates) {
+        int maxId = candidates.stream().mapToInt(Candidate::id).max().orElse(0);
+        var ids = new Candidate[maxId + 1];
+        for (var candidate : candidates) {
+            ids[candidate.id()] = candidate;
+            byKey.put(candidate.key(), candidate);
+        }
+        byKey.keySet().removeIf(key -> candidates.stream().noneMatch(c -> c.key().equals(key)));
+        byId = ids;
+        active = candidates.stream().filter(Candidate::isActive).toList();
+        version++;
+    }
+
+    private void save() throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add("# id;ключ;статус[/шаблон];имя");
+        for (var candidate : getAll()) {
+            var status = candidate.template() == null
+                    ? candidate.status().name()
+                    : candidate.status() + "/" + candidate.template();
+            lines.add(candidate.id() + ";" + candidate.key() + ";" + status + ";" + candidate.displayName());
+        }
+        var parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var tmp = parent.resolve(file.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,468 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+import ru.greemlab.interviewresultsbot.service.UserStateService;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Узел кластера из нескольких экземпляров бота (app.cluster.enabled=true, только режим webhook).
+ * <p>
+ * Балансировщик раздаёт webhook-запросы любым узлам, но каждым чатом владеет ровно один узел —
+ * по {@link ConsistentHashRing} над живыми узлами. Чужие обновления пересылаются владельцу,
+ * поэтому сессия диалога и очередь исходящих сообщений чата остаются на одном узле.
+ * <p>
+ * Через {@link SharedStateStore} узлы делят:
+ * <ul>
+ *     <li>сердцебиения: узел, не обновлявший запись дольше node-ttl, выбывает из кольца,
+ *     и его чаты переходят к остальным (незавершённые голосования этих чатов начинаются заново);</li>
+ *     <li>счётчики голосов как G-counter: каждый узел публикует только свои, монотонно растущие счётчики
+ *     в своё поле, а сумма остальных полей подмешивается в статистику. Публикация идемпотентна —
+ *     повтор той же записи ничего не удваивает;</li>
+ *     <li>отметки учтённых голосов (SADD): голос, дошедший до двух узлов (например, при смене владельца),
+ *     учитывается один раз;</li>
+ *     <li>раунд статистики: /restart на любом узле увеличивает его, остальные сбрасываются при синхронизации.</li>
+ * </ul>
+ * Свои голоса узел по-прежнему пишет в локальный журнал и после перезапуска публикует их заново
+ * под тем же app.cluster.node-id — поэтому id узла должен быть постоянным.
+ * Реестр кандидатов и архив остаются файлами узла: команды /candidate_* и архивацию
+ * стоит выполнять на одном узле с общим томом данных.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterNode {
+
+    /** Заголовок пересланного обновления: получатель обрабатывает его сам, не пересылая дальше */
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+
+    /**
+     * Живой узел кластера и адрес его webhook для пересылки обновлений.
+     */
+    public record Member(String nodeId, String webhookUrl) {
+    }
+
+    private final SharedStateStore store;
+    private final VoteStatisticsService voteStatisticsService;
+    private final UserStateService userStateService;
+    private final VoteJournal voteJournal;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    private final String nodeId;
+    private final String webhookUrl;
+    private final String botMode;
+    private final String keyPrefix;
+    private final long syncMs;
+    private final long nodeTtlMs;
+    private final int virtualNodes;
+    private final HttpClient httpClient;
+
+    // Синхронизация и смена раунда не пересекаются: иначе счётчики старого раунда попадут в новый
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile Map<String, Member> members;
+    private volatile ConsistentHashRing ring;
+    private volatile long round;
+    // Версии своих счётчиков, уже опубликованные в текущем раунде
+    private final Map<String, Long> published = new HashMap<>();
+    // Последние прочитанные значения чужих счётчиков по кандидатам: сумма пересчитывается, только если они изменились
+    private final Map<String, String> merged = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread syncThread;
+
+    public ClusterNode(
+            SharedStateStore store,
+            VoteStatisticsService voteStatisticsService,
+            UserStateService userStateService,
+            VoteJournal voteJournal,
+            ObjectMapper objectMapper,
+            @Value("${app.cluster.node-id}") String nodeId,
+            @Value("${app.cluster.advertised-url}") String advertisedUrl,
+            @Value("${app.bot.webhook.path:/telegram/webhook}") String webhookPath,
+            @Value("${app.bot.mode:polling}") String botMode,
+            @Value("${app.cluster.key-prefix:irb:}") String keyPrefix,
+            @Value("${app.cluster.sync-ms:1000}") long syncMs,
+            @Value("${app.cluster.node-ttl-ms:5000}") long nodeTtlMs,
+            @Value("${app.cluster.virtual-nodes:128}") int virtualNodes
+    ) {
+        if (nodeId.isBlank() || nodeId.contains("|")) {
+            throw new IllegalArgumentException("Некорректный app.cluster.node-id: '" + nodeId + "'");
+        }
+        this.store = store;
+        this.voteStatisticsService = voteStatisticsService;
+        this.userStateService = userStateService;
+        this.voteJournal = voteJournal;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+        this.webhookUrl = advertisedUrl.replaceAll("/+$", "") + webhookPath;
+        this.botMode = botMode;
+        this.keyPrefix = keyPrefix;
+        this.syncMs = syncMs;
+        this.nodeTtlMs = nodeTtlMs;
+        this.virtualNodes = virtualNodes;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(nodeTtlMs))
+                .build();
+        var self = new Member(nodeId, webhookUrl);
+        this.members = Map.of(nodeId, self);
+        this.ring = new ConsistentHashRing(Set.of(nodeId), virtualNodes);
+    }
+
+    /**
+     * Догоняет общий раунд, регистрирует узел и запускает периодическую синхронизацию.
+     * Вызывается после восстановления журнала: публиковать есть что.
+     */
+    @PostConstruct
+    public void start() {
+        if (!"webhook".equals(botMode)) {
+            // Long polling раздаёт каждое обновление одному получателю — делить чаты между узлами нечем
+            throw new IllegalStateException("Кластерный режим работает только с app.bot.mode=webhook");
+        }
+        syncLock.lock();
+        try {
+            var cluster = store.entries(key("cluster"));
+            var sharedRound = parseRound(cluster.get("round"), "round");
+            // Повреждённый общий раунд не догоняем: синхронизация подхватит его, когда значение исправят
+            long shared = sharedRound == null ? 0 : sharedRound;
+            var seenValue = cluster.get("round:" + nodeId);
+            var seen = seenValue == null ? null : parseRound(seenValue, "round:" + nodeId);
+            round = shared;
+            if (sharedRound != null && seen != null && seen != shared) {
+                // Пока узел не работал, на другом узле был /restart
+                log.info("Узел пропустил сброс статистики (раунд {} → {}): локальные голоса сброшены", seen, shared);
+                resetLocally();
+            }
+            if (sharedRound != null) {
+                store.put(key("cluster"), "round:" + nodeId, Long.toString(shared));
+            }
+        } finally {
+            syncLock.unlock();
+        }
+        sync();
+        running = true;
+        syncThread = Thread.ofPlatform().name("cluster-sync").daemon().start(this::syncLoop);
+        log.info("Узел кластера {} запущен, пересылка на {}", nodeId, webhookUrl);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (syncThread != null) {
+            syncThread.interrupt();
+            syncThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        try {
+            // Уходим сами — остальные узлы заберут чаты сразу, не дожидаясь node-ttl
+            store.remove(key("nodes"), nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось снять регистрацию узла {}: {}", nodeId, e.getMessage());
+        }
+        store.close();
+    }
+
+    /* ====================== Владение чатами ====================== */
+
+    /**
+     * Узел-владелец чата по текущему составу кластера.
+     */
+    public Member ownerOf(long chatId) {
+        var owner = members.get(ring.owner(chatId));
+        return owner == null ? members.get(nodeId) : owner;
+    }
+
+    public boolean isLocal(Member member) {
+        return nodeId.equals(member.nodeId());
+    }
+
+    public Set<String> liveNodes() {
+        return ring.nodes();
+    }
+
+    /**
+     * Пересылает обновление узлу-владельцу.
+     *
+     * @return true, если владелец принял обновление; false — пусть Telegram доставит его ещё раз
+     * (к тому времени недоступный владелец выбудет из кольца)
+     */
+    public boolean forward(Member owner, Update update, String secretHeader, String secret) {
+        try {
+            var request = HttpRequest.newBuilder(URI.create(owner.webhookUrl()))
+                    .timeout(Duration.ofMillis(nodeTtlMs))
+                    .header("Content-Type", "application/json")
+                    .header(FORWARDED_HEADER, nodeId);
+            if (secret != null) {
+                request.header(secretHeader, secret);
+            }
+            var body = objectMapper.writeValueAsString(update);
+            var response = httpClient.send(request.POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                log.warn("Узел {} не принял обновление {}: HTTP {}", owner.nodeId(), update.getUpdateId(),
+                        response.statusCode());
+                return false;
+            }
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("Не удалось сериализовать обновление {}: {}", update.getUpdateId(), e.getMessage(), e);
+            return false;
+        } catch (IOException e) {
+            log.warn("Узел {} недоступен для пересылки: {}", owner.nodeId(), e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /* ====================== Голоса и раунды ====================== */
+
+    /**
+     * Общая для кластера отметка голоса (chatId, кандидат) в текущем раунде.
+     *
+     * @return true, если голос ещё не был учтён ни одним узлом
+     */
+    public boolean claimVote(VoteEvent event) {
+        return store.addMember(key("voted:" + round), event.chatId() + ":" + event.candidateKey());
+    }
+
+    /**
+     * /restart: сбрасывает статистику на этом узле и начинает новый раунд для всего кластера.
+     * Остальные узлы сбрасываются при ближайшей синхронизации.
+     */
+    public void advanceRound() {
+        syncLock.lock();
+        try {
+            long previous = round;
+            long next = store.increment(key("cluster"), "round", 1);
+            resetLocally();
+            round = next;
+            store.put(key("cluster"), "round:" + nodeId, Long.toString(next));
+            store.delete(key("stats:" + previous));
+            store.delete(key("voted:" + previous));
+            log.info("Начат раунд статистики {} кластера", next);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void resetLocally() {
+        userStateService.resetAllSessions();
+        voteStatisticsService.resetStatistic();
+        voteJournal.appendReset();
+        published.clear();
+        merged.clear();
+    }
+
+    /* ====================== Синхронизация ====================== */
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                Thread.sleep(syncMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sync();
+        }
+    }
+
+    /**
+     * Один шаг синхронизации: сердцебиение, состав кластера, раунд, свои счётчики наружу, чужие внутрь.
+     * При недоступном хранилище узел работает с последним известным составом и счётчиками.
+     */
+    void sync() {
+        syncLock.lock();
+        try {
+            heartbeat();
+            followRound();
+            publishStats();
+            mergeStats();
+        } catch (RuntimeException e) {
+            log.warn("Синхронизация узла {} не удалась: {}", nodeId, e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void heartbeat() {
+        long now = System.currentTimeMillis();
+        store.put(key("nodes"), nodeId, (now + nodeTtlMs) + "|" + webhookUrl);
+        var live = new TreeMap<String, Member>();
+        for (var entry : store.entries(key("nodes")).entrySet()) {
+            var value = entry.getValue();
+            int separator = value.indexOf('|');
+            long expiresAt;
+            try {
+                expiresAt = separator < 0 ? 0 : Long.parseLong(value.substring(0, separator));
+            } catch (NumberFormatException e) {
+                // Запись узла перезапишет его же следующее сердцебиение — до тех пор узел не в кольце
+                log.warn("Пропущена повреждённая запись узла {}: {}", entry.getKey(), value);
+                continue;
+            }
+            if (separator < 0 || expiresAt < now) {
+                log.warn("Узел {} не отвечает дольше {} мс и выбывает из кластера", entry.getKey(), nodeTtlMs);
+                store.remove(key("nodes"), entry.getKey());
+                continue;
+            }
+            live.put(entry.getKey(), new Member(entry.getKey(), value.substring(separator + 1)));
+        }
+        live.putIfAbsent(nodeId, new Member(nodeId, webhookUrl));
+        if (!live.keySet().equals(ring.nodes())) {
+            ring = new ConsistentHashRing(live.keySet(), virtualNodes);
+            log.info("Состав кластера изменился: {}", live.keySet());
+        }
+        members = Map.copyOf(live);
+    }
+
+    private void followRound() {
+        var shared = parseRound(store.entries(key("cluster")).get("round"), "round");
+        if (shared != null && shared != round) {
+            log.info("Статистика сброшена на другом узле: раунд {} → {}", round, shared);
+            resetLocally();
+            round = shared;
+            store.put(key("cluster"), "round:" + nodeId, Long.toString(shared));
+        }
+    }
+
+    private void publishStats() {
+        var statsKey = key("stats:" + round);
+        var current = new HashMap<String, Long>();
+        voteStatisticsService.forEachLocal((candidateKey, snapshot) -> {
+            var version = published.get(candidateKey);
+            if (version == null || version != snapshot.getVersion()) {
+                store.put(statsKey, candidateKey + "|" + nodeId, encode(snapshot));
+            }
+            current.put(candidateKey, snapshot.getVersion());
+        });
+        // Кандидат убран из статистики этого узла (архив) — его счётчики узла больше не публикуются
+        for (var candidateKey : published.keySet()) {
+            if (!current.containsKey(candidateKey)) {
+                store.remove(statsKey, candidateKey + "|" + nodeId);
+            }
+        }
+        published.clear();
+        published.putAll(current);
+    }
+
+    private void mergeStats() {
+        var byCandidate = new TreeMap<String, TreeMap<String, String>>();
+        for (var entry : store.entries(key("stats:" + round)).entrySet()) {
+            var field = entry.getKey();
+            int separator = field.lastIndexOf('|');
+            var node = field.substring(separator + 1);
+            if (separator > 0 && !node.equals(nodeId)) {
+                byCandidate.computeIfAbsent(field.substring(0, separator), k -> new TreeMap<>())
+                        .put(node, entry.getValue());
+            }
+        }
+        for (var entry : byCandidate.entrySet()) {
+            var raw = entry.getValue().toString();
+            if (!raw.equals(merged.get(entry.getKey()))) {
+                var others = new ArrayList<StatsSnapshot>(entry.getValue().size());
+                entry.getValue().forEach((node, value) -> {
+                    try {
+                        others.add(decode(value));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Пропущены повреждённые счётчики узла {} по кандидату {}: {}",
+                                node, entry.getKey(), e.getMessage());
+                    }
+                });
+                voteStatisticsService.mergeRemote(entry.getKey(), others);
+                merged.put(entry.getKey(), raw);
+            }
+        }
+        // Кандидаты, чьи чужие счётчики пропали (архив на другом узле)
+        merged.keySet().removeIf(candidateKey -> {
+            if (byCandidate.containsKey(candidateKey)) {
+                return false;
+            }
+            voteStatisticsService.mergeRemote(candidateKey, List.of());
+            return true;
+        });
+    }
+
+    private String key(String name) {
+        return keyPrefix + name;
+    }
+
+    /**
+     * Номер раунда из общего хранилища: 0, если его ещё нет, null — если значение повреждено (пишется в лог).
+     */
+    private static Long parseRound(String value, String field) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("Пропущено повреждённое значение {} в общем хранилище: {}", field, value);
+            return null;
+        }
+    }
+
+    /**
+     * Счётчики узла строкой: критерии:шкала:да:нет:гистограммы по критериям подряд через запятую.
+     */
+    static String encode(StatsSnapshot snapshot) {
+        var sb = new StringBuilder(32 + 4 * snapshot.getCriteria() * snapshot.getMaxScore())
+                .append(snapshot.getCriteria()).append(':').append(snapshot.getMaxScore()).append(':')
+                .append(snapshot.getInviteYes()).append(':').append(snapshot.getInviteNo()).append(':');
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            for (int score = 1; score <= snapshot.getMaxScore(); score++) {
+                if (c > 0 || score > 1) {
+                    sb.append(',');
+                }
+                sb.append(snapshot.getScoreCount(c, score));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException значение повреждено (в том числе {@link NumberFormatException})
+     */
+    static StatsSnapshot decode(String value) {
+        var parts = value.split(":", 5);
+        if (parts.length < 5) {
+            throw new IllegalArgumentException("Повреждённые счётчики узла: " + value);
+        }
+        int criteria = Integer.parseInt(parts[0]);
+        int maxScore = Integer.parseInt(parts[1]);
+        var counts = parts[4].isEmpty() ? new String[0] : parts[4].split(",");
+        if (criteria < 0 || maxScore < 0 || counts.length != criteria * maxScore) {
+            throw new IllegalArgumentException("Повреждённые счётчики узла: " + value);
+        }
+        long[][] histograms = new long[criteria][maxScore];
+        for (int i = 0; i < counts.length; i++) {
+            histograms[i / maxScore][i % maxScore] = Long.parseLong(counts[i]);
+        }
+        return new StatsSnapshot(histograms, Long.parseLong(parts[2]), Long.parseLong(parts[3]), 0);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Неизменяемое кольцо согласованного хэширования: какой узел владеет чатом.
+ * <p>
+ * Каждый узел занимает на кольце virtualNodes точек, чат принадлежит узлу первой точки
+ * не меньше хэша chatId. При выбытии узла к другим владельцам переходят только его чаты,
+ * остальные остаются на месте. Хэши не зависят от JVM, поэтому все узлы строят одинаковое кольцо
+ * из одинакового состава. Точки лежат в отсортированном массиве — поиск владельца двоичный, без объектов.
+ */
+public final class ConsistentHashRing {
+
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes должно быть положительным: " + virtualNodes);
+        }
+        this.nodes = Set.copyOf(nodes);
+        // Упорядоченный состав: при совпадении точек побеждает один и тот же узел на всех экземплярах
+        var sorted = new TreeSet<>(nodes).toArray(String[]::new);
+        int size = sorted.length * virtualNodes;
+        long[] packed = new long[size];
+        var entries = new long[size][2];
+        for (int n = 0; n < sorted.length; n++) {
+            long base = fnv(sorted[n]);
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[n * virtualNodes + v][0] = mix(base + v * 0x9E3779B97F4A7C15L);
+                entries[n * virtualNodes + v][1] = n;
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = entries[i][0];
+            owners[i] = sorted[(int) entries[i][1]];
+        }
+        this.points = packed;
+    }
+
+    /**
+     * Узел-владелец чата или null, если кольцо пустое.
+     */
+    public String owner(long chatId) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, mix(chatId));
+        if (i < 0) {
+            i = -i - 1;
+        } else {
+            // Первая из совпадающих точек
+            while (i > 0 && points[i - 1] == points[i]) {
+                i--;
+            }
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    private static long fnv(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Финализатор MurmurHash3 (fmix64): соседние значения расходятся по всему кольцу.
+     */
+    static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
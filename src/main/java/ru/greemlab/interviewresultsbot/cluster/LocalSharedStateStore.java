@@ -0,0 +1,56 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище в памяти процесса (app.cluster.store=local): кластер из одного узла
+ * или нескольких узлов в одном процессе (тесты). Между процессами состояние не разделяется.
+ */
+public class LocalSharedStateStore implements SharedStateStore {
+
+    private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, String field, String value) {
+        hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(field, value);
+    }
+
+    @Override
+    public Map<String, String> entries(String key) {
+        var hash = hashes.get(key);
+        return hash == null ? Map.of() : Map.copyOf(hash);
+    }
+
+    @Override
+    public void remove(String key, String field) {
+        var hash = hashes.get(key);
+        if (hash != null) {
+            hash.remove(field);
+        }
+    }
+
+    @Override
+    public long increment(String key, String field, long delta) {
+        var value = hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .merge(field, Long.toString(delta), (old, d) -> Long.toString(Long.parseLong(old) + delta));
+        return Long.parseLong(value);
+    }
+
+    @Override
+    public boolean addMember(String key, String member) {
+        return sets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(member);
+    }
+
+    @Override
+    public void delete(String key) {
+        hashes.remove(key);
+        sets.remove(key);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,222 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилище на сервере с протоколом Redis (RESP2): Redis, Valkey, KeyDB и т. п.
+ * <p>
+ * Минимальный клиент без зависимостей: одно соединение, команды по очереди под ReentrantLock
+ * (не synchronized — вызывающие бывают виртуальными потоками, а ожидание ответа блокирует сокет).
+ * Обрыв соединения закрывает сокет; следующая команда подключается заново.
+ */
+@Slf4j
+public class RespSharedStateStore implements SharedStateStore {
+
+    private final String host;
+    private final int port;
+    private final int timeoutMs;
+    private final String password;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    public RespSharedStateStore(String host, int port, int timeoutMs, String password) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMs = timeoutMs;
+        this.password = password;
+    }
+
+    @Override
+    public void put(String key, String field, String value) {
+        call("HSET", key, field, value);
+    }
+
+    @Override
+    public Map<String, String> entries(String key) {
+        var reply = (List<?>) call("HGETALL", key);
+        var result = new HashMap<String, String>(reply.size());
+        for (int i = 0; i + 1 < reply.size(); i += 2) {
+            result.put((String) reply.get(i), (String) reply.get(i + 1));
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key, String field) {
+        call("HDEL", key, field);
+    }
+
+    @Override
+    public long increment(String key, String field, long delta) {
+        return (Long) call("HINCRBY", key, field, Long.toString(delta));
+    }
+
+    @Override
+    public boolean addMember(String key, String member) {
+        return (Long) call("SADD", key, member) == 1;
+    }
+
+    @Override
+    public void delete(String key) {
+        call("DEL", key);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            disconnect();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отправляет команду и читает ответ: String, Long, List или null.
+     */
+    Object call(String... command) {
+        lock.lock();
+        try {
+            if (socket == null) {
+                connect();
+            }
+            write(command);
+            return read();
+        } catch (IOException e) {
+            disconnect();
+            throw new UncheckedIOException("Хранилище " + host + ":" + port + " недоступно: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void connect() throws IOException {
+        var s = new Socket();
+        try {
+            s.connect(new InetSocketAddress(host, port), timeoutMs);
+            s.setSoTimeout(timeoutMs);
+            s.setTcpNoDelay(true);
+            socket = s;
+            in = new BufferedInputStream(s.getInputStream());
+            out = new BufferedOutputStream(s.getOutputStream());
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        if (password != null && !password.isEmpty()) {
+            try {
+                write("AUTH", password);
+                read();
+            } catch (IOException | RuntimeException e) {
+                disconnect();
+                throw e;
+            }
+        }
+        log.info("Подключено к хранилищу кластера {}:{}", host, port);
+    }
+
+    private void disconnect() {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Ошибка при закрытии соединения с хранилищем: {}", e.getMessage());
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    private void write(String... command) throws IOException {
+        writeLine('*', command.length);
+        for (var arg : command) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            writeLine('$', bytes.length);
+            out.write(bytes);
+            out.write('\r');
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private void writeLine(char type, int value) throws IOException {
+        out.write(type);
+        out.write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private Object read() throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            throw new EOFException("Соединение закрыто сервером");
+        }
+        var line = readLine();
+        return switch (type) {
+            case '+' -> line;
+            case '-' -> throw new IllegalStateException("Ошибка хранилища: " + line);
+            case ':' -> Long.parseLong(line);
+            case '$' -> readBulk(Integer.parseInt(line));
+            case '*' -> {
+                int size = Integer.parseInt(line);
+                if (size < 0) {
+                    yield null;
+                }
+                var items = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    items.add(read());
+                }
+                yield items;
+            }
+            default -> throw new IOException("Неизвестный тип ответа: " + (char) type);
+        };
+    }
+
+    private String readBulk(int length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length || in.read() != '\r' || in.read() != '\n') {
+            throw new EOFException("Ответ хранилища оборван");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readLine() throws IOException {
+        var line = new ByteArrayOutputStream(16);
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                throw new EOFException("Ответ хранилища оборван");
+            }
+            line.write(b);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("Ожидался конец строки ответа");
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import java.util.Map;
+
+/**
+ * Общее для узлов кластера хранилище: хэши строк и множества, как в Redis.
+ * Набор операций ровно такой, какой нужен {@link ClusterNode}: сердцебиения узлов,
+ * счётчики голосов по узлам, общий раунд статистики и отметки учтённых голосов.
+ * <p>
+ * Ошибки связи с хранилищем выбрасываются как {@link java.io.UncheckedIOException}.
+ */
+public interface SharedStateStore extends AutoCloseable {
+
+    /**
+     * Записывает значение поля хэша (HSET).
+     */
+    void put(String key, String field, String value);
+
+    /**
+     * Все поля хэша (HGETALL); пустая карта, если ключа нет.
+     */
+    Map<String, String> entries(String key);
+
+    /**
+     * Удаляет поле хэша (HDEL).
+     */
+    void remove(String key, String field);
+
+    /**
+     * Атомарно прибавляет delta к числовому полю хэша (HINCRBY) и возвращает новое значение.
+     */
+    long increment(String key, String field, long delta);
+
+    /**
+     * Добавляет элемент во множество (SADD).
+     *
+     * @return true, если элемента во множестве ещё не было
+     */
+    boolean addMember(String key, String member);
+
+    /**
+     * Удаляет ключ целиком (DEL).
+     */
+    void delete(String key);
+
+    @Override
+    void close();
+}
@@ -1,6 +1,7 @@
 package ru.greemlab.interviewresultsbot.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
@@ -8,6 +9,9 @@ import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
+import ru.greemlab.interviewresultsbot.bot.LongPollingRegistrar;
+import ru.greemlab.interviewresultsbot.bot.OutboundMessageQueue;
+import ru.greemlab.interviewresultsbot.bot.UpdateDispatcher;
 import ru.greemlab.interviewresultsbot.service.DialogStateMachineService;
 
 /**
@@ -18,12 +22,16 @@ public class BotConfig {
 
     /**
      * Настраиваем DefaultBotOptions и задаём многопоточность (maxThreads).
+     * Адрес Bot API можно подменить (app.bot.api-url) — например, на заглушку для нагрузочного теста.
      */
     @Bean
-    public DefaultBotOptions defaultBotOptions() {
+    public DefaultBotOptions defaultBotOptions(
+            @Value("${app.bot.api-url:https://api.telegram.org/bot}") String apiUrl
+    ) {
         DefaultBotOptions options = new DefaultBotOptions();
         // например, выставим пул в 10 потоков
         options.setMaxThreads(50);
+        options.setBaseUrl(apiUrl);
         return options;
     }
 
@@ -33,26 +41,31 @@ public class BotConfig {
      * - token
      * - настроенный DefaultBotOptions
      * - сервис DialogStateMachineService
+     * - диспетчер обновлений (очереди по чатам на виртуальных потоках)
+     * - очередь исходящих запросов к Telegram
+     * - размер окна id callback-запросов для отсева повторных нажатий
      */
     @Bean
     public CandidateEvaluationBot candidateEvaluationBot(
             DefaultBotOptions options,
             @Value("${app.bot.username}") String botUsername,
             @Value("${app.bot.token}") String botToken,
-            DialogStateMachineService dialogStateMachineService
+            DialogStateMachineService dialogStateMachineService,
+            UpdateDispatcher updateDispatcher,
+            OutboundMessageQueue outboundQueue,
+            @Value("${app.bot.callback-dedup-window:10000}") int callbackDedupWindow
     ) {
-        return new CandidateEvaluationBot(botUsername, botToken, options, dialogStateMachineService);
+        return new CandidateEvaluationBot(botUsername, botToken, options, dialogStateMachineService,
+                updateDispatcher, outboundQueue, callbackDedupWindow);
     }
 
     /**
-     * Регистрируемся как LongPollingBot с многопоточными опциями.
-     * Если нужно очень много подключений, рассмотрите переход на Webhook.
+     * TelegramBotsApi для long polling; бота в нём регистрирует {@link LongPollingRegistrar}, когда контекст готов.
+     * При app.bot.mode=webhook long polling не запускается: обновления принимает WebhookController.
      */
     @Bean
-    public TelegramBotsApi telegramBotsApi(CandidateEvaluationBot bot) throws TelegramApiException {
-        TelegramBotsApi api = new TelegramBotsApi(DefaultBotSession.class);
-        // Регистрируем бота (уже с многопоточными настройками)
-        api.registerBot(bot);
-        return api;
+    @ConditionalOnProperty(name = "app.bot.mode", havingValue = "polling", matchIfMissing = true)
+    public TelegramBotsApi telegramBotsApi() throws TelegramApiException {
+        return new TelegramBotsApi(DefaultBotSession.class);
     }
 }
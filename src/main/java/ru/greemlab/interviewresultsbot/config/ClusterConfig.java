@@ -0,0 +1,36 @@
+package ru.greemlab.interviewresultsbot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.greemlab.interviewresultsbot.cluster.LocalSharedStateStore;
+import ru.greemlab.interviewresultsbot.cluster.RespSharedStateStore;
+import ru.greemlab.interviewresultsbot.cluster.SharedStateStore;
+
+/**
+ * Общее хранилище состояния для кластерного режима (app.cluster.enabled=true).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * local — в памяти процесса (один узел, тесты), resp — сервер с протоколом Redis.
+     * Закрывает хранилище сам ClusterNode: ему нужно снять регистрацию узла до закрытия.
+     */
+    @Bean(destroyMethod = "")
+    public SharedStateStore sharedStateStore(
+            @Value("${app.cluster.store:local}") String store,
+            @Value("${app.cluster.resp.host:localhost}") String host,
+            @Value("${app.cluster.resp.port:6379}") int port,
+            @Value("${app.cluster.resp.timeout-ms:2000}") int timeoutMs,
+            @Value("${app.cluster.resp.password:}") String password
+    ) {
+        return switch (store) {
+            case "local" -> new LocalSharedStateStore();
+            case "resp" -> new RespSharedStateStore(host, port, timeoutMs, password);
+            default -> throw new IllegalArgumentException("Неизвестное хранилище app.cluster.store: " + store);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package ru.greemlab.interviewresultsbot.evaluation;
+
+/**
+ * Критерий оценки из шаблона.
+ *
+ * @param title    название (в подсказке шага и в статистике)
+ * @param maxScore верхняя граница шкалы, оценки от 1 до maxScore
+ */
+public record EvaluationCriterion(String title, int maxScore) {
+}
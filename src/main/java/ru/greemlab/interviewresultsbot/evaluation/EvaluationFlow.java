@@ -0,0 +1,177 @@
+package ru.greemlab.interviewresultsbot.evaluation;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import ru.greemlab.interviewresultsbot.service.CallbackCommands;
+import ru.greemlab.interviewresultsbot.util.KeyboardFactory;
+import ru.greemlab.interviewresultsbot.util.VoteKeyboard;
+
+import static ru.greemlab.interviewresultsbot.service.UserStateService.UserState;
+
+/**
+ * Сценарий голосования по шаблону, собранный в таблицу переходов «шаг × событие».
+ * <p>
+ * Шаг 0 — выбор кандидата, шаги 1..N — оценки по критериям шаблона, шаг N+1 — решение о приглашении.
+ * Событие — действие нажатой кнопки ({@link CallbackCommands.Action}); переход ищется индексом в массиве,
+ * тексты подсказок и раскладки клавиатур шагов собираются один раз при построении.
+ * <p>
+ * В режиме {@link Mode#SCORECARD} после выбора кандидата есть один шаг — оценочный лист со всеми критериями
+ * и приглашением: нажатия только отмечают выбор в сессии, а голос целиком записывается кнопкой «Отправить».
+ */
+public final class EvaluationFlow {
+
+    public static final int START = 0;
+
+    /**
+     * Вид сценария: по шагу на критерий или один оценочный лист.
+     */
+    public enum Mode {
+        STEPS,
+        SCORECARD
+    }
+
+    /**
+     * Что сделать при переходе.
+     */
+    public enum Effect {
+        /** Начать голосование за выбранного кандидата */
+        BEGIN,
+        /** Записать оценку критерия шага */
+        RECORD_SCORE,
+        /** Записать решение о приглашении и завершить голосование */
+        FINISH,
+        /** Отметить оценку критерия в оценочном листе */
+        MARK_SCORE,
+        /** Отметить решение о приглашении в оценочном листе */
+        MARK_INVITE,
+        /** Записать заполненный оценочный лист одним голосом */
+        SUBMIT
+    }
+
+    /**
+     * Переход из шага: действие, следующий шаг и состояние диалога на нём.
+     */
+    public record Transition(Effect effect, int nextStep, UserState nextState) {
+    }
+
+    private static final int EVENTS = CallbackCommands.Action.values().length;
+
+    private static final int SCORECARD_STEP = 1;
+
+    private final EvaluationTemplate template;
+    private final Mode mode;
+    private final Transition[][] table;
+    private final String[] prompts;
+    private final VoteKeyboard[] keyboards;
+    private final int[] scales;
+
+    public EvaluationFlow(EvaluationTemplate template) {
+        this(template, Mode.STEPS);
+    }
+
+    public EvaluationFlow(EvaluationTemplate template, Mode mode) {
+        this.template = template;
+        this.mode = mode;
+        if (mode == Mode.SCORECARD) {
+            this.table = new Transition[SCORECARD_STEP + 1][EVENTS];
+            this.prompts = new String[SCORECARD_STEP + 1];
+            this.keyboards = new VoteKeyboard[SCORECARD_STEP + 1];
+            this.scales = new int[SCORECARD_STEP + 1];
+            buildScorecard();
+            return;
+        }
+        int criteria = template.size();
+        int inviteStep = criteria + 1;
+        int total = criteria + 1;
+        this.table = new Transition[inviteStep + 1][EVENTS];
+        this.prompts = new String[inviteStep + 1];
+        this.keyboards = new VoteKeyboard[inviteStep + 1];
+        this.scales = new int[inviteStep + 1];
+
+        table[START][CallbackCommands.Action.SELECT_CANDIDATE.ordinal()] =
+                new Transition(Effect.BEGIN, 1, UserState.SCORING);
+        for (int c = 0; c < criteria; c++) {
+            int step = c + 1;
+            var criterion = template.criteria().get(c);
+            scales[step] = criterion.maxScore();
+            prompts[step] = "➡ Шаг " + step + "/" + total + ": Оцените «" + criterion.title()
+                            + "» (1-" + criterion.maxScore() + ")";
+            keyboards[step] = KeyboardFactory.buildRatingButtons(c, criterion.maxScore());
+            table[step][CallbackCommands.Action.SCORE.ordinal()] = new Transition(Effect.RECORD_SCORE, step + 1,
+                    step + 1 == inviteStep ? UserState.WAITING_INVITE : UserState.SCORING);
+        }
+        prompts[inviteStep] = "➡ Шаг " + total + "/" + total + ": Пригласили ли Вы данного кандидата на работу?";
+        keyboards[inviteStep] = KeyboardFactory.buildInviteKeyboard();
+        table[inviteStep][CallbackCommands.Action.INVITE.ordinal()] = new Transition(Effect.FINISH, START, UserState.START);
+    }
+
+    private void buildScorecard() {
+        table[START][CallbackCommands.Action.SELECT_CANDIDATE.ordinal()] =
+                new Transition(Effect.BEGIN, SCORECARD_STEP, UserState.SCORECARD);
+        var card = table[SCORECARD_STEP];
+        card[CallbackCommands.Action.SCORE.ordinal()] = new Transition(Effect.MARK_SCORE, SCORECARD_STEP, UserState.SCORECARD);
+        card[CallbackCommands.Action.INVITE.ordinal()] = new Transition(Effect.MARK_INVITE, SCORECARD_STEP, UserState.SCORECARD);
+        card[CallbackCommands.Action.SUBMIT.ordinal()] = new Transition(Effect.SUBMIT, START, UserState.START);
+
+        var prompt = new StringBuilder("📋 Оценочный лист:\n");
+        for (var criterion : template.criteria()) {
+            prompt.append("• ").append(criterion.title()).append(" (1-").append(criterion.maxScore()).append(")\n");
+        }
+        prompts[SCORECARD_STEP] = prompt.append("• Пригласили ли Вы кандидата на работу?\n\n")
+                .append("Отметьте оценку в каждой строке и решение о приглашении, затем нажмите «📨 Отправить».")
+                .toString();
+        keyboards[SCORECARD_STEP] = KeyboardFactory.buildScorecardKeyboard(template);
+    }
+
+    public EvaluationTemplate getTemplate() {
+        return template;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Переход по нажатой кнопке или null, если на этом шаге она недопустима
+     * (чужое действие, критерий другого шага, оценка вне шкалы критерия).
+     */
+    public Transition transition(int step, long token) {
+        var action = CallbackCommands.action(token);
+        if (action == null || step < 0 || step >= table.length) {
+            return null;
+        }
+        var transition = table[step][action.ordinal()];
+        if (transition == null) {
+            return null;
+        }
+        int criterion = CallbackCommands.criterion(token);
+        int score = CallbackCommands.score(token);
+        return switch (transition.effect()) {
+            case RECORD_SCORE -> criterion == criterion(step) && score <= scales[step] ? transition : null;
+            case MARK_SCORE -> criterion < template.size() && score <= template.criteria().get(criterion).maxScore()
+                    ? transition : null;
+            default -> transition;
+        };
+    }
+
+    /**
+     * Индекс критерия, который оценивается на шаге (только для пошагового режима).
+     */
+    public int criterion(int step) {
+        return step - 1;
+    }
+
+    /**
+     * Подсказка шага («➡ Шаг 2/4: ...»).
+     */
+    public String prompt(int step) {
+        return prompts[step];
+    }
+
+    /**
+     * Клавиатура шага для голосования с данным nonce (null для шага выбора кандидата).
+     */
+    public InlineKeyboardMarkup keyboard(int step, int candidateId, int nonce) {
+        var keyboard = keyboards[step];
+        return keyboard == null ? null : keyboard.render(candidateId, nonce);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.greemlab.interviewresultsbot.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Шаблон оценки кандидата: набор критериев со своими шкалами.
+ * Индекс критерия в списке — индекс в {@link ru.greemlab.interviewresultsbot.stats.ScoreAccumulator} и журнале голосов.
+ *
+ * @param key      ключ шаблона (на него ссылается кандидат в реестре)
+ * @param criteria критерии в порядке шагов голосования
+ */
+public record EvaluationTemplate(String key, List<EvaluationCriterion> criteria) {
+
+    /**
+     * Ограничения формата кнопок: индекс критерия и оценка занимают по 4 бита.
+     */
+    public static final int MAX_CRITERIA = 16;
+    public static final int MAX_SCALE = 15;
+
+    public EvaluationTemplate {
+        if (criteria.isEmpty() || criteria.size() > MAX_CRITERIA) {
+            throw new IllegalArgumentException("В шаблоне " + key + " должно быть от 1 до " + MAX_CRITERIA + " критериев");
+        }
+        for (var criterion : criteria) {
+            if (criterion.maxScore() < 2 || criterion.maxScore() > MAX_SCALE) {
+                throw new IllegalArgumentException("Шкала критерия «" + criterion.title() + "» должна быть от 2 до " + MAX_SCALE);
+            }
+        }
+        criteria = List.copyOf(criteria);
+    }
+
+    /**
+     * Разбирает описание вида {@code Название:5,Название:10}.
+     */
+    public static EvaluationTemplate parse(String key, String spec) {
+        var criteria = new ArrayList<EvaluationCriterion>();
+        for (var entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Критерий шаблона " + key + " задан без шкалы: " + entry.trim());
+            }
+            criteria.add(new EvaluationCriterion(entry.substring(0, colon).trim(),
+                    Integer.parseInt(entry.substring(colon + 1).trim())));
+        }
+        return new EvaluationTemplate(key, criteria);
+    }
+
+    public int size() {
+        return criteria.size();
+    }
+
+    /**
+     * Самая длинная шкала шаблона — ширина гистограмм в статистике.
+     */
+    public int maxScore() {
+        int max = 0;
+        for (var criterion : criteria) {
+            max = Math.max(max, criterion.maxScore());
+        }
+        return max;
+    }
+
+    /**
+     * Название критерия; для индекса вне шаблона (старые данные архива) — номер критерия.
+     */
+    public String title(int criterion) {
+        return criterion < criteria.size() ? criteria.get(criterion).title() : "Критерий " + (criterion + 1);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.greemlab.interviewresultsbot.evaluation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Шаблоны оценки из конфигурации и собранные по ним сценарии голосования.
+ * <p>
+ * Формат app.evaluation.templates: {@code ключ=Критерий:шкала,Критерий:шкала;ключ2=...}.
+ * Кандидат без шаблона или с неизвестным шаблоном голосуется по шаблону app.evaluation.default-template.
+ * Режим app.evaluation.mode выбирает сценарий: пошаговый ({@code steps}) или оценочный лист ({@code scorecard}).
+ */
+@Slf4j
+@Component
+public class EvaluationTemplates {
+
+    public static final String DEFAULT_KEY = "default";
+    public static final String DEFAULT_TEMPLATES = "default=Ответственность:5,Интерес:5,Результативность:5";
+
+    private final Map<String, EvaluationFlow> flows;
+    private final EvaluationFlow defaultFlow;
+
+    public EvaluationTemplates(
+            @Value("${app.evaluation.templates:" + DEFAULT_TEMPLATES + "}") String spec,
+            @Value("${app.evaluation.default-template:" + DEFAULT_KEY + "}") String defaultKey,
+            @Value("${app.evaluation.mode:steps}") EvaluationFlow.Mode mode
+    ) {
+        var parsed = new LinkedHashMap<String, EvaluationFlow>();
+        for (var entry : spec.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Шаблон оценки задан без ключа: " + entry.trim());
+            }
+            var key = entry.substring(0, eq).trim();
+            parsed.put(key, new EvaluationFlow(EvaluationTemplate.parse(key, entry.substring(eq + 1)), mode));
+        }
+        this.flows = Map.copyOf(parsed);
+        this.defaultFlow = flows.get(defaultKey);
+        if (defaultFlow == null) {
+            throw new IllegalStateException("Шаблон оценки по умолчанию не найден: " + defaultKey);
+        }
+        log.info("Шаблоны оценки: {}, режим голосования: {}", parsed.keySet(), mode);
+    }
+
+    /**
+     * Встроенный набор из одного шаблона — три критерия по пятибалльной шкале, пошаговый режим.
+     */
+    public static EvaluationTemplates defaults() {
+        return new EvaluationTemplates(DEFAULT_TEMPLATES, DEFAULT_KEY, EvaluationFlow.Mode.STEPS);
+    }
+
+    public boolean contains(String key) {
+        return key != null && flows.containsKey(key);
+    }
+
+    /**
+     * Сценарий голосования по шаблону (для неизвестного ключа — по шаблону по умолчанию).
+     */
+    public EvaluationFlow flow(String key) {
+        var flow = key == null ? null : flows.get(key);
+        return flow != null ? flow : defaultFlow;
+    }
+
+    public EvaluationTemplate get(String key) {
+        return flow(key).getTemplate();
+    }
+
+    public EvaluationTemplate getDefault() {
+        return defaultFlow.getTemplate();
+    }
+}
@@ -0,0 +1,129 @@
+package ru.greemlab.interviewresultsbot.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Запись журнала голосов.
+ * <p>
+ * Формат на диске: {@code [int длина][int crc32][payload]}, где payload —
+ * {@code seq, тип, время, chatId, ключ кандидата, значение}, а у VOTE за ними —
+ * {@code раунд, число оценок, оценки по байту}.
+ *
+ * @param value  1/0 — пригласить/нет (для VOTE)
+ * @param round  раунд, в котором учтён голос (для VOTE): запись может лечь в журнал уже после ROUND
+ * @param scores оценки по критериям (для VOTE, у остальных записей пусто)
+ */
+public record JournalRecord(Type type, long timestamp, long chatId, String candidateKey, int value, long round,
+                            int[] scores) {
+
+    private static final int[] NO_SCORES = new int[0];
+
+    public enum Type {
+        RESET(3),
+        /** Кандидат перенесён в архив: его счётчики и отметки «голосовал» больше не нужны */
+        ARCHIVE(4),
+        /** Голос целиком ({@link VoteEvent}) */
+        VOTE(5),
+        /** Закрыт раунд собеседований: счётчики остаются, отметки «голосовал» сбрасываются */
+        ROUND(6);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        static Type of(byte code) {
+            for (var type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    public static JournalRecord vote(VoteEvent event) {
+        return new JournalRecord(Type.VOTE, event.timestamp(), event.chatId(), event.candidateKey(),
+                event.invite() ? 1 : 0, event.round(), event.scores());
+    }
+
+    public static JournalRecord reset() {
+        return new JournalRecord(Type.RESET, System.currentTimeMillis(), 0, "", 0, 0, NO_SCORES);
+    }
+
+    public static JournalRecord roundClose() {
+        return new JournalRecord(Type.ROUND, System.currentTimeMillis(), 0, "", 0, 0, NO_SCORES);
+    }
+
+    public static JournalRecord archive(String candidateKey) {
+        return new JournalRecord(Type.ARCHIVE, System.currentTimeMillis(), 0, candidateKey, 0, 0, NO_SCORES);
+    }
+
+    /**
+     * Размер payload'а в байтах.
+     */
+    int payloadSize(byte[] key) {
+        return Long.BYTES          // seq
+               + 1                 // type
+               + Long.BYTES        // timestamp
+               + Long.BYTES        // chatId
+               + Short.BYTES + key.length
+               + 1                 // value
+               + (type == Type.VOTE ? Long.BYTES + 1 + scores.length : 0);
+    }
+
+    byte[] keyBytes() {
+        return candidateKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Пишет payload (без заголовка) в буфер.
+     */
+    void writePayload(ByteBuffer buffer, long seq, byte[] key) {
+        buffer.putLong(seq)
+                .put(type.code)
+                .putLong(timestamp)
+                .putLong(chatId)
+                .putShort((short) key.length)
+                .put(key)
+                .put((byte) value);
+        if (type == Type.VOTE) {
+            buffer.putLong(round);
+            buffer.put((byte) scores.length);
+            for (int score : scores) {
+                buffer.put((byte) score);
+            }
+        }
+    }
+
+    /**
+     * Читает payload. Возвращает null, если тип записи неизвестен.
+     */
+    static JournalRecord readPayload(ByteBuffer buffer) {
+        buffer.getLong(); // seq читается отдельно
+        var type = Type.of(buffer.get());
+        long timestamp = buffer.getLong();
+        long chatId = buffer.getLong();
+        var key = new byte[buffer.getShort()];
+        buffer.get(key);
+        int value = buffer.get();
+        if (type == null) {
+            return null;
+        }
+        var scores = NO_SCORES;
+        long round = 0;
+        if (type == Type.VOTE) {
+            round = buffer.getLong();
+            scores = new int[buffer.get() & 0xFF];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = buffer.get();
+            }
+        }
+        return new JournalRecord(type, timestamp, chatId, new String(key, StandardCharsets.UTF_8), value, round,
+                scores);
+    }
+}
@@ -0,0 +1,459 @@
+package ru.greemlab.interviewresultsbot.journal;
+
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+import ru.greemlab.interviewresultsbot.util.LongIntPairSet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Состояние, восстановленное из журнала: счётчики кандидатов, отметки «уже голосовал»,
+ * номер раунда собеседований и корзины счётчиков по дням и раундам (последние days/roundsRetained).
+ * Используется при старте (replay) и в потоке записи журнала — для снапшотов.
+ * Не потокобезопасно: работает с ним всегда один поток.
+ * <p>
+ * Состояние живёт столько же, сколько процесс, поэтому хранится без объектов на голос или корзину:
+ * кандидаты получают номера, отметки «голосовал» — пары (chatId, номер) в {@link LongIntPairSet},
+ * а счётчики и корзины — массивы long (см. {@link #HEADER}).
+ */
+final class JournalState {
+
+    /*
+     * Блок счётчиков — один long[]: [критериев, шкала, «да», «нет», гистограммы критериев подряд].
+     * Блок растёт по мере появления новых критериев и оценок, поэтому журнал не зависит от шаблона оценки.
+     */
+    private static final int CRITERIA = 0;
+    private static final int MAX_SCORE = 1;
+    private static final int YES = 2;
+    private static final int NO = 3;
+    private static final int HEADER = 4;
+
+    /**
+     * Кольцо корзин кандидата: корзина id лежит в ячейке id % ёмкость, более новая вытесняет старую —
+     * как в {@link ru.greemlab.interviewresultsbot.stats.BucketRing} в памяти.
+     */
+    private static final class Ring {
+        private final long[] ids;
+        private final long[][] blocks;
+
+        private Ring(int capacity) {
+            this.ids = new long[capacity];
+            this.blocks = new long[capacity][];
+        }
+
+        /**
+         * Индекс ячейки корзины id или -1, если корзина старше окна.
+         */
+        private int slot(long id) {
+            int index = (int) Math.floorMod(id, (long) ids.length);
+            if (blocks[index] != null && ids[index] != id) {
+                if (ids[index] > id) {
+                    return -1;
+                }
+                blocks[index] = null;
+            }
+            if (blocks[index] == null) {
+                ids[index] = id;
+                blocks[index] = new long[HEADER];
+            }
+            return index;
+        }
+
+        private int size() {
+            int size = 0;
+            for (var block : blocks) {
+                if (block != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Всё, что журнал знает о кандидате; null в {@link #candidates} — кандидат ушёл в архив или ещё не голосовал.
+     */
+    private static final class CandidateLog {
+        private long[] totals = new long[HEADER];
+        private Ring days;
+        private Ring rounds;
+    }
+
+    /**
+     * Получатель корзины: ключ кандидата, номер корзины (день или раунд), счётчики.
+     */
+    @FunctionalInterface
+    interface BucketConsumer {
+        void accept(String candidateKey, long id, StatsSnapshot snapshot);
+    }
+
+    private final LongUnaryOperator dayOf;
+    private final int daysRetained;
+    private final int roundsRetained;
+
+    // Номер кандидата — его индекс в keys и candidates и бит в voted; номера не переиспользуются до сброса
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<CandidateLog> candidates = new ArrayList<>();
+    private final LongIntPairSet voted = new LongIntPairSet();
+    private long round;
+    // Раунд, начатый последним сбросом: голоса более ранних раундов стёрты вместе со статистикой
+    private long resetRound;
+
+    /**
+     * @param dayOf номер дня по времени голоса — в том же часовом поясе, что и статистика в памяти
+     */
+    JournalState(LongUnaryOperator dayOf, int daysRetained, int roundsRetained) {
+        this.dayOf = dayOf;
+        this.daysRetained = daysRetained;
+        this.roundsRetained = roundsRetained;
+    }
+
+    void apply(JournalRecord record) {
+        switch (record.type()) {
+            case VOTE -> {
+                // Голос относится к своему раунду, а не к тому, до которого дошло воспроизведение: учтённый
+                // перед /new_round голос может лечь в журнал после ROUND. Тогда он идёт в корзину своего раунда,
+                // а отметка «голосовал» в новый раунд не переносится — как и в памяти
+                long voteRound = record.round();
+                if (voteRound < resetRound || voteRound > round) {
+                    return;
+                }
+                // Голос учитывается один раз на (интервьюер, кандидат), как и в памяти
+                if (voteRound == round && !voted.set(record.chatId(), id(record.candidateKey()))) {
+                    return;
+                }
+                var scores = record.scores();
+                boolean invite = record.value() == 1;
+                var candidate = candidate(record.candidateKey());
+                candidate.totals = addVote(candidate.totals, scores, invite);
+                if (daysRetained > 0) {
+                    if (candidate.days == null) {
+                        candidate.days = new Ring(daysRetained);
+                    }
+                    addVote(candidate.days, dayOf.applyAsLong(record.timestamp()), scores, invite);
+                }
+                if (roundsRetained > 0) {
+                    if (candidate.rounds == null) {
+                        candidate.rounds = new Ring(roundsRetained);
+                    }
+                    addVote(candidate.rounds, voteRound, scores, invite);
+                }
+            }
+            case RESET -> {
+                ids.clear();
+                keys.clear();
+                candidates.clear();
+                voted.clear();
+                resetRound = ++round;
+            }
+            case ROUND -> {
+                voted.clear();
+                round++;
+            }
+            case ARCHIVE -> {
+                var id = ids.get(record.candidateKey());
+                if (id != null) {
+                    candidates.set(id, null);
+                    voted.clearBit(id);
+                }
+            }
+        }
+    }
+
+    void forEachCandidate(BiConsumer<String, StatsSnapshot> consumer) {
+        for (int id = 0; id < candidates.size(); id++) {
+            var candidate = candidates.get(id);
+            if (candidate != null) {
+                consumer.accept(keys.get(id), snapshot(candidate.totals));
+            }
+        }
+    }
+
+    void forEachDay(BucketConsumer consumer) {
+        forEachBucket(consumer, true);
+    }
+
+    void forEachRound(BucketConsumer consumer) {
+        forEachBucket(consumer, false);
+    }
+
+    long getRound() {
+        return round;
+    }
+
+    void forEachVote(BiConsumer<Long, String> consumer) {
+        voted.forEach((chatId, id) -> consumer.accept(chatId, keys.get(id)));
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(countCandidates());
+        for (int id = 0; id < candidates.size(); id++) {
+            if (candidates.get(id) != null) {
+                out.writeUTF(keys.get(id));
+                writeCounters(out, candidates.get(id).totals);
+            }
+        }
+        writeVotes(out);
+        out.writeLong(round);
+        out.writeLong(resetRound);
+        writeBuckets(out, true);
+        writeBuckets(out, false);
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            var candidate = candidate(in.readUTF());
+            candidate.totals = readCounters(in);
+        }
+        readVotes(in);
+        round = in.readLong();
+        resetRound = in.readLong();
+        readBuckets(in, true);
+        readBuckets(in, false);
+    }
+
+    /* ====================== Блоки счётчиков ====================== */
+
+    /**
+     * Блок не меньше criteria × maxScore; старые гистограммы переносятся на свои места.
+     */
+    private static long[] reshape(long[] block, int criteria, int maxScore) {
+        int oldCriteria = (int) block[CRITERIA];
+        int oldMaxScore = (int) block[MAX_SCORE];
+        if (criteria <= oldCriteria && maxScore <= oldMaxScore) {
+            return block;
+        }
+        criteria = Math.max(criteria, oldCriteria);
+        maxScore = Math.max(maxScore, oldMaxScore);
+        var grown = new long[HEADER + criteria * maxScore];
+        grown[CRITERIA] = criteria;
+        grown[MAX_SCORE] = maxScore;
+        grown[YES] = block[YES];
+        grown[NO] = block[NO];
+        for (int c = 0; c < oldCriteria; c++) {
+            System.arraycopy(block, HEADER + c * oldMaxScore, grown, HEADER + c * maxScore, oldMaxScore);
+        }
+        return grown;
+    }
+
+    private static long[] addScore(long[] block, int criterion, int score) {
+        block = reshape(block, criterion + 1, score);
+        block[HEADER + criterion * (int) block[MAX_SCORE] + score - 1]++;
+        return block;
+    }
+
+    private static long[] addVote(long[] block, int[] scores, boolean invite) {
+        for (int c = 0; c < scores.length && c < EvaluationTemplate.MAX_CRITERIA; c++) {
+            if (scores[c] >= 1 && scores[c] <= EvaluationTemplate.MAX_SCALE) {
+                block = addScore(block, c, scores[c]);
+            }
+        }
+        block[invite ? YES : NO]++;
+        return block;
+    }
+
+    private static void addVote(Ring ring, long id, int[] scores, boolean invite) {
+        int slot = ring.slot(id);
+        if (slot >= 0) {
+            ring.blocks[slot] = addVote(ring.blocks[slot], scores, invite);
+        }
+    }
+
+    private static StatsSnapshot snapshot(long[] block) {
+        int criteria = (int) block[CRITERIA];
+        int maxScore = (int) block[MAX_SCORE];
+        long[][] histograms = new long[criteria][maxScore];
+        for (int c = 0; c < criteria; c++) {
+            System.arraycopy(block, HEADER + c * maxScore, histograms[c], 0, maxScore);
+        }
+        return new StatsSnapshot(histograms, block[YES], block[NO], 0);
+    }
+
+    private static void writeCounters(DataOutputStream out, long[] block) throws IOException {
+        int criteria = (int) block[CRITERIA];
+        int maxScore = (int) block[MAX_SCORE];
+        out.writeLong(block[YES]);
+        out.writeLong(block[NO]);
+        out.writeByte(criteria);
+        for (int c = 0; c < criteria; c++) {
+            out.writeByte(maxScore);
+            for (int s = 0; s < maxScore; s++) {
+                out.writeLong(block[HEADER + c * maxScore + s]);
+            }
+        }
+    }
+
+    private static long[] readCounters(DataInputStream in) throws IOException {
+        long yes = in.readLong();
+        long no = in.readLong();
+        // Длины гистограмм в снапшоте могут различаться: читаем их, затем укладываем в блок общей формы
+        var histograms = new long[in.readUnsignedByte()][];
+        int maxScore = 0;
+        for (int c = 0; c < histograms.length; c++) {
+            histograms[c] = new long[in.readUnsignedByte()];
+            for (int s = 0; s < histograms[c].length; s++) {
+                histograms[c][s] = in.readLong();
+            }
+            maxScore = Math.max(maxScore, histograms[c].length);
+        }
+        var block = reshape(new long[HEADER], histograms.length, maxScore);
+        for (int c = 0; c < histograms.length; c++) {
+            System.arraycopy(histograms[c], 0, block, HEADER + c * maxScore, histograms[c].length);
+        }
+        block[YES] = yes;
+        block[NO] = no;
+        return block;
+    }
+
+    /* ====================== Корзины и отметки ====================== */
+
+    private void writeBuckets(DataOutputStream out, boolean days) throws IOException {
+        int count = 0;
+        for (var candidate : candidates) {
+            if (candidate != null && ring(candidate, days) != null) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (int id = 0; id < candidates.size(); id++) {
+            var candidate = candidates.get(id);
+            var ring = candidate == null ? null : ring(candidate, days);
+            if (ring == null) {
+                continue;
+            }
+            out.writeUTF(keys.get(id));
+            out.writeInt(ring.size());
+            for (int slot = 0; slot < ring.blocks.length; slot++) {
+                if (ring.blocks[slot] != null) {
+                    out.writeLong(ring.ids[slot]);
+                    writeCounters(out, ring.blocks[slot]);
+                }
+            }
+        }
+    }
+
+    private void readBuckets(DataInputStream in, boolean days) throws IOException {
+        int retained = days ? daysRetained : roundsRetained;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            var candidate = candidate(in.readUTF());
+            int buckets = in.readInt();
+            for (int b = 0; b < buckets; b++) {
+                long id = in.readLong();
+                var block = readCounters(in);
+                if (retained <= 0) {
+                    continue;
+                }
+                // Корзина старше окна (окно могли уменьшить в настройках) вытесняется, как при голосовании
+                var ring = ring(candidate, days);
+                if (ring == null) {
+                    ring = new Ring(retained);
+                    if (days) {
+                        candidate.days = ring;
+                    } else {
+                        candidate.rounds = ring;
+                    }
+                }
+                int slot = ring.slot(id);
+                if (slot >= 0) {
+                    ring.blocks[slot] = block;
+                }
+            }
+        }
+    }
+
+    private void forEachBucket(BucketConsumer consumer, boolean days) {
+        for (int id = 0; id < candidates.size(); id++) {
+            var candidate = candidates.get(id);
+            var ring = candidate == null ? null : ring(candidate, days);
+            if (ring == null) {
+                continue;
+            }
+            for (int slot = 0; slot < ring.blocks.length; slot++) {
+                if (ring.blocks[slot] != null) {
+                    consumer.accept(keys.get(id), ring.ids[slot], snapshot(ring.blocks[slot]));
+                }
+            }
+        }
+    }
+
+    private static Ring ring(CandidateLog candidate, boolean days) {
+        return days ? candidate.days : candidate.rounds;
+    }
+
+    /**
+     * Отметки пишутся парами «чат — один кандидат»: формат тот же, что группировка по чатам,
+     * а при чтении повторяющиеся чаты просто сливаются.
+     */
+    private void writeVotes(DataOutputStream out) throws IOException {
+        out.writeInt(voted.size());
+        IOException[] failure = new IOException[1];
+        voted.forEach((chatId, id) -> {
+            if (failure[0] != null) {
+                return;
+            }
+            try {
+                out.writeLong(chatId);
+                out.writeInt(1);
+                out.writeUTF(keys.get(id));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private void readVotes(DataInputStream in) throws IOException {
+        int chats = in.readInt();
+        for (int i = 0; i < chats; i++) {
+            long chatId = in.readLong();
+            int count = in.readInt();
+            for (int k = 0; k < count; k++) {
+                voted.set(chatId, id(in.readUTF()));
+            }
+        }
+    }
+
+    private int countCandidates() {
+        int count = 0;
+        for (var candidate : candidates) {
+            if (candidate != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int id(String candidateKey) {
+        var id = ids.get(candidateKey);
+        if (id == null) {
+            id = keys.size();
+            ids.put(candidateKey, id);
+            keys.add(candidateKey);
+            candidates.add(null);
+        }
+        return id;
+    }
+
+    private CandidateLog candidate(String candidateKey) {
+        int id = id(candidateKey);
+        var candidate = candidates.get(id);
+        if (candidate == null) {
+            candidate = new CandidateLog();
+            candidates.set(id, candidate);
+        }
+        return candidate;
+    }
+}
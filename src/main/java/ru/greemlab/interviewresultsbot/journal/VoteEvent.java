@@ -0,0 +1,27 @@
+package ru.greemlab.interviewresultsbot.journal;
+
+/**
+ * Голос как неизменяемое событие: все оценки интервьюера по кандидату и решение о приглашении.
+ * <p>
+ * Ключ события — (chatId, candidateKey, round): в одном раунде статистики интервьюер голосует
+ * за кандидата не больше одного раза, событие с уже учтённым ключом отбрасывается.
+ * Из потока таких событий выводятся и счётчики в памяти, и состояние журнала.
+ *
+ * @param round  раунд статистики (растёт при /restart), в котором начато голосование
+ * @param scores оценки по индексам критериев шаблона (0 — критерий не оценён)
+ */
+public record VoteEvent(long chatId, String candidateKey, long round, int[] scores, boolean invite, long timestamp) {
+
+    public VoteEvent {
+        scores = scores.clone();
+    }
+
+    public static VoteEvent of(long chatId, String candidateKey, long round, int[] scores, boolean invite) {
+        return new VoteEvent(chatId, candidateKey, round, scores, invite, System.currentTimeMillis());
+    }
+
+    @Override
+    public int[] scores() {
+        return scores.clone();
+    }
+}
@@ -0,0 +1,413 @@
+package ru.greemlab.interviewresultsbot.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.greemlab.interviewresultsbot.service.UserStateService;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Журнал голосов (write-ahead log) с периодическими снапшотами.
+ * <p>
+ * Голоса ставятся в очередь и пишутся на диск отдельным потоком пачками (group commit),
+ * поэтому обработчик нажатия не ждёт диска. Каждая запись снабжена CRC32;
+ * при старте читается снапшот, затем хвост журнала до первой повреждённой записи.
+ * Когда записей после снапшота накапливается достаточно, поток журнала пишет новый снапшот
+ * и обрезает журнал. Снапшот хранит номер последней вошедшей в него записи,
+ * так что сбой между снапшотом и обрезкой не приводит к повторному учёту голосов.
+ * <p>
+ * Пачка, которую не удалось записать, не выбрасывается: недописанный хвост отрезается, и пачка
+ * пишется заново с нарастающей паузой. Пока диск недоступен, очередь заполняется, и {@link #append}
+ * блокирует обработчики голосов — новые голоса не подтверждаются, а уже принятые не теряются.
+ */
+@Slf4j
+@Component
+public class VoteJournal {
+
+    public enum FsyncPolicy {
+        /** fsync после каждой пачки записей */
+        ALWAYS,
+        /** fsync не чаще, чем раз в fsync-interval-ms */
+        INTERVAL,
+        /** сброс на диск остаётся на усмотрение ОС */
+        NEVER
+    }
+
+    static final String JOURNAL_FILE = "votes.journal";
+    static final String SNAPSHOT_FILE = "votes.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x564A5334; // "VJS4"
+    private static final int MAX_BATCH = 1024;
+    private static final long RETRY_MIN_MS = 100;
+    private static final long RETRY_MAX_MS = 5_000;
+
+    private final VoteStatisticsService voteStatisticsService;
+    private final UserStateService userStateService;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final long snapshotEveryRecords;
+
+    private final BlockingQueue<JournalRecord> queue;
+    // Заменяется только при чтении снапшота, до запуска потока записи
+    private JournalState state;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private Thread writer;
+    private volatile boolean running;
+
+    // Используются только потоком записи (и при старте — до его запуска)
+    private long lastSeq;
+    private long snapshotSeq;
+    // Конец последней целиком записанной пачки: всё дальше — обрывок неудачной записи
+    private long committedPosition;
+    private long lastFsyncMillis;
+
+    public VoteJournal(
+            VoteStatisticsService voteStatisticsService,
+            UserStateService userStateService,
+            @Value("${app.journal.enabled:true}") boolean enabled,
+            @Value("${app.journal.dir:data/journal}") Path dir,
+            @Value("${app.journal.fsync:interval}") FsyncPolicy fsyncPolicy,
+            @Value("${app.journal.fsync-interval-ms:200}") long fsyncIntervalMs,
+            @Value("${app.journal.snapshot-every-records:50000}") long snapshotEveryRecords,
+            @Value("${app.journal.queue-capacity:65536}") int queueCapacity
+    ) {
+        this.voteStatisticsService = voteStatisticsService;
+        this.userStateService = userStateService;
+        this.enabled = enabled;
+        this.state = newState();
+        this.dir = dir;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.snapshotEveryRecords = snapshotEveryRecords;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Восстанавливает голоса из снапшота и журнала и запускает поток записи.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("Журнал голосов отключён: голоса хранятся только в памяти");
+            return;
+        }
+        Files.createDirectories(dir);
+        long started = System.nanoTime();
+        readSnapshot();
+        channel = FileChannel.open(dir.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long replayed = replayJournal();
+
+        state.forEachCandidate(voteStatisticsService::restore);
+        state.forEachDay(voteStatisticsService::restoreDay);
+        state.forEachRound(voteStatisticsService::restoreRoundBucket);
+        voteStatisticsService.restoreRound(state.getRound());
+        state.forEachVote((chatId, candidateKey) ->
+                userStateService.markVoted(chatId, candidateKey));
+        log.info("Журнал голосов восстановлен за {} мс: записей после снапшота — {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), replayed);
+
+        running = true;
+        writer = Thread.ofPlatform().name("vote-journal").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Ставит запись в очередь на запись. Не ждёт диска; блокируется, только если очередь переполнена.
+     */
+    public void append(JournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Запись журнала прервана, голос не сохранён на диск: {}", record);
+        }
+    }
+
+    public void appendVote(VoteEvent event) {
+        append(JournalRecord.vote(event));
+    }
+
+    public void appendReset() {
+        append(JournalRecord.reset());
+    }
+
+    public void appendRoundClose() {
+        append(JournalRecord.roundClose());
+    }
+
+    public void appendArchive(String candidateKey) {
+        append(JournalRecord.archive(candidateKey));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            log.error("Журнал голосов не дописан при остановке: в очереди {} записей", queue.size());
+        }
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            log.error("Ошибка при закрытии журнала голосов: {}", e.getMessage(), e);
+        }
+    }
+
+    /* ====================== Поток записи ====================== */
+
+    private void writeLoop() {
+        var batch = new ArrayList<JournalRecord>(MAX_BATCH);
+        long retryMs = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (retryMs > 0) {
+                    Thread.sleep(retryMs);
+                }
+                // Пачка после неудачной записи остаётся и пишется снова, новые записи ждут в очереди
+                if (batch.isEmpty()) {
+                    var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_BATCH - 1);
+                    }
+                }
+                boolean wrote = !batch.isEmpty();
+                if (wrote) {
+                    writeBatch(batch);
+                    batch.forEach(state::apply);
+                    batch.clear();
+                }
+                maybeFsync(wrote);
+                if (lastSeq - snapshotSeq >= snapshotEveryRecords) {
+                    writeSnapshot();
+                }
+                retryMs = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                retryMs = retryMs == 0 ? RETRY_MIN_MS : Math.min(retryMs * 2, RETRY_MAX_MS);
+                log.error("Ошибка записи журнала голосов ({} записей ждут повтора через {} мс): {}",
+                        batch.size(), retryMs, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Дописывает пачку в конец журнала. Номера записей и {@link #committedPosition} сдвигаются,
+     * только когда пачка записана целиком, поэтому повтор пишет её с теми же номерами поверх обрывка.
+     */
+    private void writeBatch(List<JournalRecord> batch) throws IOException {
+        if (channel.size() > committedPosition) {
+            channel.truncate(committedPosition);
+        }
+        channel.position(committedPosition);
+        long seq = lastSeq;
+        buffer.clear();
+        for (var record : batch) {
+            var key = record.keyBytes();
+            int payloadSize = record.payloadSize(key);
+            ensureCapacity(JournalRecord.HEADER_BYTES + payloadSize);
+            int start = buffer.position();
+            buffer.putInt(payloadSize).putInt(0);
+            record.writePayload(buffer, ++seq, key);
+            var crc = new CRC32();
+            crc.update(buffer.slice(start + JournalRecord.HEADER_BYTES, payloadSize));
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        }
+        buffer.flip();
+        write(buffer);
+        lastSeq = seq;
+        committedPosition = channel.position();
+    }
+
+    /**
+     * Дописывает буфер в журнал целиком. Отдельный метод — чтобы тест мог оборвать запись посреди пачки.
+     */
+    void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private void maybeFsync(boolean wrote) throws IOException {
+        switch (fsyncPolicy) {
+            case ALWAYS -> {
+                if (wrote) {
+                    channel.force(false);
+                }
+            }
+            case INTERVAL -> {
+                long now = System.currentTimeMillis();
+                if (now - lastFsyncMillis >= fsyncIntervalMs) {
+                    channel.force(false);
+                    lastFsyncMillis = now;
+                }
+            }
+            case NEVER -> {
+            }
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        var grown = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    /* ====================== Снапшоты ====================== */
+
+    /**
+     * Пишет снапшот во временный файл, атомарно подменяет им старый и обрезает журнал.
+     */
+    private void writeSnapshot() throws IOException {
+        channel.force(false);
+        var tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        var crc = new CRC32();
+        try (var fileOut = Files.newOutputStream(tmp);
+             var out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut), crc))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastSeq);
+            state.writeTo(out);
+            out.flush();
+            fileOut.write(longBytes(crc.getValue()));
+        }
+        try (var tmpChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            tmpChannel.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        channel.truncate(0);
+        channel.position(0);
+        committedPosition = 0;
+        channel.force(true);
+        snapshotSeq = lastSeq;
+        log.info("Снапшот голосов записан (seq={})", lastSeq);
+    }
+
+    /**
+     * Снапшот читается в отдельное состояние и подменяет текущее, только если совпала контрольная сумма:
+     * иначе частично прочитанные счётчики остались бы в памяти, и журнал проигрался бы поверх них повторно.
+     */
+    private void readSnapshot() {
+        var file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        var crc = new CRC32();
+        try (var fileIn = new BufferedInputStream(Files.newInputStream(file));
+             var in = new DataInputStream(new CheckedInputStream(fileIn, crc))) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC) {
+                throw new IOException("Неизвестный формат снапшота");
+            }
+            long seq = in.readLong();
+            var loaded = newState();
+            loaded.readFrom(in);
+            long expected = crc.getValue();
+            long actual = new DataInputStream(fileIn).readLong();
+            if (expected != actual) {
+                throw new IOException("Контрольная сумма снапшота не совпадает");
+            }
+            state = loaded;
+            snapshotSeq = seq;
+            lastSeq = seq;
+        } catch (IOException e) {
+            log.error("Снапшот голосов {} повреждён и пропущен: {}", file, e.getMessage(), e);
+        }
+    }
+
+    /* ====================== Воспроизведение журнала ====================== */
+
+    /**
+     * Применяет к состоянию записи журнала новее снапшота.
+     * Повреждённый или недописанный хвост отрезается.
+     *
+     * @return число применённых записей
+     */
+    private long replayJournal() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long applied = 0;
+        var header = ByteBuffer.allocate(JournalRecord.HEADER_BYTES);
+        while (position + JournalRecord.HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length <= 0 || position + JournalRecord.HEADER_BYTES + length > size) {
+                break;
+            }
+            var payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + JournalRecord.HEADER_BYTES);
+            payload.flip();
+            var crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            long seq = payload.getLong(0);
+            var record = JournalRecord.readPayload(payload);
+            if (seq > snapshotSeq && record != null) {
+                state.apply(record);
+                applied++;
+            }
+            lastSeq = Math.max(lastSeq, seq);
+            position += JournalRecord.HEADER_BYTES + length;
+        }
+        if (position < size) {
+            log.warn("Журнал голосов обрезан с {} до {} байт: повреждённый хвост", size, position);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        committedPosition = position;
+        return applied;
+    }
+
+    private JournalState newState() {
+        return new JournalState(voteStatisticsService::dayOf,
+                voteStatisticsService.getDaysRetained(), voteStatisticsService.getRoundsRetained());
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.greemlab.interviewresultsbot.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.greemlab.interviewresultsbot.bot.OutboundMessageQueue;
+import ru.greemlab.interviewresultsbot.bot.UpdateDispatcher;
+import ru.greemlab.interviewresultsbot.service.UserStateService;
+
+/**
+ * Gauge'и по состоянию очередей и сессий. Значения снимаются в момент опроса /actuator/prometheus.
+ */
+@Component
+@RequiredArgsConstructor
+public class BotGauges implements MeterBinder {
+
+    private final UserStateService userStateService;
+    private final UpdateDispatcher updateDispatcher;
+    private final OutboundMessageQueue outboundMessageQueue;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.sessions.active", userStateService, UserStateService::getSessionCount)
+                .description("Сессии диалога в памяти")
+                .register(registry);
+        Gauge.builder("bot.updates.pending", updateDispatcher, UpdateDispatcher::getPendingCount)
+                .description("Обновления, ожидающие обработки")
+                .register(registry);
+        FunctionCounter.builder("bot.updates.rejected", updateDispatcher, UpdateDispatcher::getRejectedCount)
+                .description("Обновления, отклонённые из-за переполнения очередей")
+                .register(registry);
+        Gauge.builder("bot.outbound.backlog", outboundMessageQueue, OutboundMessageQueue::getBacklog)
+                .description("Исходящие запросы, ожидающие отправки")
+                .register(registry);
+    }
+}
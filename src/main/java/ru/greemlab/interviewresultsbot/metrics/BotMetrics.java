@@ -0,0 +1,135 @@
+package ru.greemlab.interviewresultsbot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.greemlab.interviewresultsbot.service.UserStateService.UserState;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Метрики бота: время обработки обновлений и вызовов Telegram API, счётчики голосов и ошибок.
+ * <p>
+ * Набор тегов у каждой метрики небольшой и заранее известен, поэтому метры кэшируются
+ * и на горячем пути не ищутся в реестре заново.
+ * <p>
+ * Время старта: готовность контекста Spring Boot публикует сам (application.ready.time),
+ * здесь добавляется время от запуска JVM до первого обработанного обновления.
+ */
+@Slf4j
+@Component
+public class BotMetrics {
+
+    public static final String UPDATE_TIMER = "bot.update";
+    public static final String TELEGRAM_TIMER = "telegram.api";
+    public static final String FIRST_UPDATE_GAUGE = "bot.startup.first.update";
+
+    public static final String OUTCOME_OK = "ok";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_RATE_LIMITED = "rate_limited";
+
+    /**
+     * Тип обновления.
+     */
+    public enum UpdateType {
+        CALLBACK, TEXT
+    }
+
+    private static final UserState[] STATES = UserState.values();
+
+    private final MeterRegistry registry;
+
+    // [тип][состояние до][состояние после]
+    private final Timer[][][] updateTimers = new Timer[UpdateType.values().length][STATES.length][STATES.length];
+    private final Map<String, Timer> telegramTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicBoolean firstUpdateHandled = new AtomicBoolean();
+
+    public BotMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Время обработки одного обновления с переходом между состояниями диалога.
+     */
+    public void recordUpdate(UpdateType type, UserState from, UserState to, long nanos) {
+        var timer = updateTimers[type.ordinal()][from.ordinal()][to.ordinal()];
+        if (timer == null) {
+            // Гонка безобидна: реестр вернёт один и тот же метр
+            timer = Timer.builder(UPDATE_TIMER)
+                    .description("Обработка входящего обновления")
+                    .tag("type", type.name().toLowerCase())
+                    .tag("from", from.name())
+                    .tag("to", to.name())
+                    .register(registry);
+            updateTimers[type.ordinal()][from.ordinal()][to.ordinal()] = timer;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        if (!firstUpdateHandled.get() && firstUpdateHandled.compareAndSet(false, true)) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            TimeGauge.builder(FIRST_UPDATE_GAUGE, () -> uptime, TimeUnit.MILLISECONDS)
+                    .description("От запуска JVM до первого обработанного обновления")
+                    .register(registry);
+            log.info("Первое обновление обработано через {} мс после запуска JVM", uptime);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logStartup(ApplicationReadyEvent event) {
+        log.info("Бот готов: контекст поднят за {} мс, с запуска JVM — {} мс",
+                event.getTimeTaken().toMillis(), ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    /**
+     * Время одного вызова Telegram API (каждая попытка отдельно).
+     */
+    public void recordTelegramCall(String method, String outcome, long nanos) {
+        telegramTimers.computeIfAbsent(method + '|' + outcome, k -> Timer.builder(TELEGRAM_TIMER)
+                        .description("Вызов Telegram Bot API")
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ошибка Telegram API; code — HTTP-код ответа или "io" для сетевых ошибок.
+     */
+    public void countApiError(String method, String code) {
+        counter("telegram.api.errors", "method", method, "code", code).increment();
+    }
+
+    /**
+     * Завершённое голосование за кандидата.
+     */
+    public void countVote(String candidateKey) {
+        counter("bot.votes", "candidate", candidateKey, null, null).increment();
+    }
+
+    /**
+     * Нажатие кнопки, которое не подошло к текущему шагу диалога или не разобралось.
+     */
+    public void countRejectedCallback(String reason) {
+        counter("bot.callbacks.rejected", "reason", reason, null, null).increment();
+    }
+
+    private Counter counter(String name, String tag, String value, String tag2, String value2) {
+        var key = name + '|' + value + '|' + value2;
+        return counters.computeIfAbsent(key, k -> {
+            var builder = Counter.builder(name).tag(tag, value);
+            if (tag2 != null) {
+                builder.tag(tag2, value2);
+            }
+            return builder.register(registry);
+        });
+    }
+}
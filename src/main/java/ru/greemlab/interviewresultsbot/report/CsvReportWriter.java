@@ -0,0 +1,68 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CSV по RFC 4180 в UTF-8 с BOM (иначе Excel не узнаёт кириллицу).
+ * В CSV нет листов: все листы идут подряд под одним заголовком, а имя листа — в первой колонке «Раздел».
+ */
+class CsvReportWriter implements ReportWriter {
+
+    private final Writer writer;
+    private String sheet;
+    private boolean headerWritten;
+
+    CsvReportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write('\uFEFF');
+    }
+
+    @Override
+    public void startSheet(String name, List<String> header) throws IOException {
+        sheet = name;
+        if (!headerWritten) {
+            writer.write("Раздел");
+            for (var title : header) {
+                writer.write(',');
+                writeCell(title);
+            }
+            writer.write("\r\n");
+            headerWritten = true;
+        }
+    }
+
+    @Override
+    public void row(List<?> cells) throws IOException {
+        writeCell(sheet);
+        for (var cell : cells) {
+            writer.write(',');
+            writeCell(cell);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeCell(Object cell) throws IOException {
+        if (cell == null || cell instanceof Double d && d.isNaN()) {
+            return;
+        }
+        var text = cell.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
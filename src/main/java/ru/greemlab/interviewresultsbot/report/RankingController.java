@@ -0,0 +1,81 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.RankingIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Рейтинг по HTTP: GET {app.report.ranking-path}?top=N[&from=M], ?min=P или ?candidate=ключ
+ * с тем же заголовком X-Report-Token, что и выгрузка отчёта. Без app.report.http-token — 404.
+ */
+@RestController
+public class RankingController {
+
+    static final int MAX_LIMIT = 500;
+
+    /**
+     * Строка рейтинга: score и inviteRatio — доли 0..1.
+     */
+    public record Item(int rank, String candidate, String name, double score, double inviteRatio, long votes) {
+    }
+
+    private final VoteStatisticsService voteStatisticsService;
+    private final CandidateRegistry candidateRegistry;
+    private final ReportAccess reportAccess;
+
+    public RankingController(
+            VoteStatisticsService voteStatisticsService,
+            CandidateRegistry candidateRegistry,
+            ReportAccess reportAccess
+    ) {
+        this.voteStatisticsService = voteStatisticsService;
+        this.candidateRegistry = candidateRegistry;
+        this.reportAccess = reportAccess;
+    }
+
+    @GetMapping("${app.report.ranking-path:/ranking}")
+    public ResponseEntity<List<Item>> ranking(
+            @RequestHeader(value = ReportAccess.TOKEN_HEADER, required = false) String presented,
+            @RequestParam(value = "top", defaultValue = "10") int top,
+            @RequestParam(value = "from", defaultValue = "1") int from,
+            @RequestParam(value = "min", required = false) Integer minPercent,
+            @RequestParam(value = "candidate", required = false) String candidateKey
+    ) {
+        ResponseEntity<List<Item>> denied = reportAccess.deny(presented, "рейтинга");
+        if (denied != null) {
+            return denied;
+        }
+        if (top < 1 || top > MAX_LIMIT || from < 1 || minPercent != null && (minPercent < 0 || minPercent > 100)) {
+            return ResponseEntity.badRequest().build();
+        }
+        var ranking = voteStatisticsService.getRanking();
+        if (candidateKey != null) {
+            int rank = ranking.rank(candidateKey);
+            var entry = ranking.get(candidateKey);
+            if (rank == 0 || entry == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(List.of(item(rank, entry)));
+        }
+        var entries = minPercent != null ? ranking.atLeast(minPercent / 100.0, top) : ranking.top(from, top);
+        int first = minPercent != null ? 1 : from;
+        var items = new ArrayList<Item>(entries.size());
+        for (var entry : entries) {
+            items.add(item(first + items.size(), entry));
+        }
+        return ResponseEntity.ok(items);
+    }
+
+    private Item item(int rank, RankingIndex.Entry entry) {
+        return new Item(rank, entry.candidateKey(), candidateRegistry.getDisplayName(entry.candidateKey()),
+                entry.score(), entry.inviteRatio(), entry.votes());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Проверка доступа к HTTP-выгрузкам (отчёт, рейтинг, API статистики): заголовок X-Report-Token
+ * сравнивается с app.report.http-token за постоянное время. Пустой токен выключает выгрузки (404).
+ */
+@Slf4j
+@Component
+class ReportAccess {
+
+    static final String TOKEN_HEADER = "X-Report-Token";
+
+    private final byte[] token;
+
+    ReportAccess(@Value("${app.report.http-token:}") String token) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param what что запрошено, для журнала («отчёта», «рейтинга»)
+     * @return ответ-отказ или null, если доступ разрешён
+     */
+    <T> ResponseEntity<T> deny(String presented, String what) {
+        if (token.length == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Отклонён запрос {} с неверным токеном", what);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return null;
+    }
+}
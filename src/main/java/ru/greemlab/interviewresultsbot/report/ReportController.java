@@ -0,0 +1,49 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Выгрузка отчёта по HTTP: GET {app.report.http-path}?format=csv|xlsx с заголовком X-Report-Token.
+ * Без настроенного app.report.http-token выгрузка по HTTP выключена (404).
+ * Тело пишется прямо в ответ потоком асинхронной обработки Spring MVC, без буфера на весь отчёт.
+ */
+@RestController
+public class ReportController {
+
+    private final ReportExporter reportExporter;
+    private final ReportAccess reportAccess;
+
+    public ReportController(@Lazy ReportExporter reportExporter, ReportAccess reportAccess) {
+        this.reportExporter = reportExporter;
+        this.reportAccess = reportAccess;
+    }
+
+    @GetMapping("${app.report.http-path:/report}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestHeader(value = ReportAccess.TOKEN_HEADER, required = false) String presented,
+            @RequestParam(value = "format", defaultValue = "csv") String extension
+    ) {
+        ResponseEntity<StreamingResponseBody> denied = reportAccess.deny(presented, "отчёта");
+        if (denied != null) {
+            return denied;
+        }
+        var format = ReportFormat.fromExtension(extension);
+        if (format == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> reportExporter.write(format, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, format.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(ReportExporter.fileName(format)).build().toString())
+                .body(body);
+    }
+}
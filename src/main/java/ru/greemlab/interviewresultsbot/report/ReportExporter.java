@@ -0,0 +1,199 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выгрузка статистики и архива в CSV/XLSX.
+ * <p>
+ * Отчёт пишется потоком: строка на критерий кандидата (среднее, медиана, гистограмма, приглашения),
+ * сначала текущие кандидаты, затем весь архив — страницами по индексу, без копии архива в памяти.
+ * В чат отчёт уходит документом: файл готовится во временном каталоге отдельным потоком,
+ * поэтому потоки обработки обновлений не ждут ни записи, ни загрузки в Telegram.
+ * Бин и его поток создаются при первой выгрузке, а не при старте бота.
+ */
+@Slf4j
+@Lazy
+@Service
+public class ReportExporter {
+
+    private static final int ARCHIVE_PAGE = 256;
+
+    private final VoteStatisticsService voteStatisticsService;
+    private final ArchiveStore archiveStore;
+    private final CandidateRegistry candidateRegistry;
+    private final EvaluationTemplates evaluationTemplates;
+    private final int maxPending;
+
+    // Отчёты готовятся по одному: выгрузка — редкая операция, диск и сеть ей делить не с кем
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("report-export").daemon().factory());
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public ReportExporter(
+            VoteStatisticsService voteStatisticsService,
+            ArchiveStore archiveStore,
+            CandidateRegistry candidateRegistry,
+            EvaluationTemplates evaluationTemplates,
+            @Value("${app.report.max-pending:4}") int maxPending
+    ) {
+        this.voteStatisticsService = voteStatisticsService;
+        this.archiveStore = archiveStore;
+        this.candidateRegistry = candidateRegistry;
+        this.evaluationTemplates = evaluationTemplates;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Имя файла отчёта на сегодня.
+     */
+    public static String fileName(ReportFormat format) {
+        return "report-" + LocalDate.now() + "." + format.getExtension();
+    }
+
+    /**
+     * Пишет отчёт в поток и закрывает его.
+     */
+    public void write(ReportFormat format, OutputStream out) throws IOException {
+        try (var writer = format.open(out)) {
+            writer.startSheet("Текущая статистика", header());
+            try {
+                voteStatisticsService.forEachCandidate((key, stats) -> {
+                    try {
+                        writeCandidate(writer, candidateRegistry.getDisplayName(key), null,
+                                stats.snapshot(), stats.getTemplate());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            writer.startSheet("Архив", header());
+            Integer cursor = null;
+            while (true) {
+                var page = archiveStore.page(ArchiveOrder.BY_DATE, cursor, false, ARCHIVE_PAGE);
+                for (var candidate : page.items()) {
+                    // Записи старого формата без шаблона подписываются шаблоном по умолчанию
+                    writeCandidate(writer, candidate.name(), candidate.archivedOn().toString(),
+                            candidate.stats(), evaluationTemplates.get(candidate.template()));
+                }
+                if (!page.hasNext()) {
+                    break;
+                }
+                cursor = page.lastId();
+            }
+        }
+    }
+
+    /**
+     * Готовит отчёт в фоне и присылает его документом в чат.
+     * Если в очереди уже maxPending отчётов, сразу отвечает отказом.
+     */
+    public void exportToChat(CandidateEvaluationBot bot, Long chatId, ReportFormat format) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            bot.sendTextMessage(chatId, "⏳ Сейчас готовится слишком много отчётов, попробуйте позже.", null);
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                var file = Files.createTempFile("report-", "." + format.getExtension());
+                long started = System.nanoTime();
+                try {
+                    write(format, Files.newOutputStream(file));
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(file);
+                    throw e;
+                }
+                log.info("Отчёт {} для chatId={} готов за {} мс ({} байт)", format, chatId,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), Files.size(file));
+                bot.sendDocument(chatId, file, fileName(format)).whenComplete((messageId, error) -> {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.warn("Не удалось удалить временный файл отчёта {}: {}", file, e.getMessage());
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                log.error("Ошибка выгрузки отчёта для chatId={}: {}", chatId, e.getMessage(), e);
+                bot.sendTextMessage(chatId, "⚠ Не удалось подготовить отчёт.", null);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static List<String> header() {
+        var header = new ArrayList<String>(8 + EvaluationTemplate.MAX_SCALE);
+        header.add("Кандидат");
+        header.add("Дата архивации");
+        header.add("Критерий");
+        header.add("Оценок");
+        header.add("Среднее");
+        header.add("Медиана");
+        for (int score = 1; score <= EvaluationTemplate.MAX_SCALE; score++) {
+            header.add("Оценка " + score);
+        }
+        header.add("Пригласить");
+        header.add("Не приглашать");
+        return header;
+    }
+
+    /**
+     * Строки кандидата: по одной на критерий; счётчики приглашений повторяются в каждой строке,
+     * чтобы строку можно было фильтровать и сводить без соседних.
+     */
+    private static void writeCandidate(ReportWriter writer, String name, String archivedOn,
+                                       StatsSnapshot snapshot, EvaluationTemplate template) throws IOException {
+        var cells = new ArrayList<Object>(8 + EvaluationTemplate.MAX_SCALE);
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            cells.clear();
+            cells.add(name);
+            cells.add(archivedOn);
+            cells.add(template.title(c));
+            cells.add(snapshot.getCount(c));
+            cells.add(round2(snapshot.getAverage(c)));
+            cells.add(snapshot.getMedian(c));
+            for (int score = 1; score <= EvaluationTemplate.MAX_SCALE; score++) {
+                cells.add(score <= snapshot.getMaxScore() ? snapshot.getScoreCount(c, score) : null);
+            }
+            cells.add(snapshot.getInviteYes());
+            cells.add(snapshot.getInviteNo());
+            writer.row(cells);
+        }
+    }
+
+    private static double round2(double value) {
+        return Double.isNaN(value) ? value : Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Форматы выгрузки отчёта.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ReportFormat {
+    CSV("csv", "text/csv; charset=UTF-8"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    /**
+     * Формат по расширению без учёта регистра; null — неизвестный формат.
+     */
+    public static ReportFormat fromExtension(String extension) {
+        for (var format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    ReportWriter open(OutputStream out) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvReportWriter(out);
+            case XLSX -> new XlsxReportWriter(out);
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Потоковая запись табличного отчёта: листы и строки уходят в поток сразу,
+ * в памяти держится только текущая строка.
+ * <p>
+ * Ячейки — String, Number или null (пустая ячейка); Double NaN тоже пишется пустой ячейкой.
+ */
+interface ReportWriter extends AutoCloseable {
+
+    /**
+     * Начинает новый лист с заголовком колонок. Предыдущий лист при этом дописывается.
+     */
+    void startSheet(String name, List<String> header) throws IOException;
+
+    void row(List<?> cells) throws IOException;
+
+    /**
+     * Дописывает отчёт и закрывает поток.
+     */
+    @Override
+    void close() throws IOException;
+}
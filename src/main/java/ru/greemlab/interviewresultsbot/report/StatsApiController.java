@@ -0,0 +1,284 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.archive.ArchivedCandidate;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * JSON-API статистики только для чтения, с тем же заголовком X-Report-Token, что и выгрузка отчёта:
+ * <ul>
+ *     <li>GET {app.report.api-path}/candidates — кандидаты текущей статистики со средними по критериям;</li>
+ *     <li>GET {app.report.api-path}/candidates/{ключ} — критерии кандидата с медианами и гистограммами;</li>
+ *     <li>GET {app.report.api-path}/archive?order=&amp;cursor=&amp;backward=&amp;limit= — страница архива.</li>
+ * </ul>
+ * Каждый ответ несёт сильный ETag из версий счётчиков (и поколения статистики, и версии реестра),
+ * поэтому опрос без изменений получает 304 без сериализации. ETag снимается до тела: тело может
+ * оказаться новее метки, но не старше, и клиент в худшем случае лишний раз получит 200.
+ * Тела пишутся потоком прямо в ответ, без промежуточного дерева JSON и без буфера на весь список.
+ */
+@RestController
+@RequestMapping("${app.report.api-path:/api/stats}")
+public class StatsApiController {
+
+    static final int MAX_ARCHIVE_PAGE = 100;
+
+    private final VoteStatisticsService voteStatisticsService;
+    private final CandidateRegistry candidateRegistry;
+    private final EvaluationTemplates evaluationTemplates;
+    private final ArchiveStore archiveStore;
+    private final ReportAccess reportAccess;
+    private final ObjectMapper objectMapper;
+    // Версии счётчиков после перезапуска начинаются заново, поэтому метки прошлого запуска не должны совпасть
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    public StatsApiController(
+            VoteStatisticsService voteStatisticsService,
+            CandidateRegistry candidateRegistry,
+            EvaluationTemplates evaluationTemplates,
+            @Lazy ArchiveStore archiveStore,
+            ReportAccess reportAccess,
+            ObjectMapper objectMapper
+    ) {
+        this.voteStatisticsService = voteStatisticsService;
+        this.candidateRegistry = candidateRegistry;
+        this.evaluationTemplates = evaluationTemplates;
+        this.archiveStore = archiveStore;
+        this.reportAccess = reportAccess;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/candidates")
+    public ResponseEntity<StreamingResponseBody> candidates(
+            @RequestHeader(value = ReportAccess.TOKEN_HEADER, required = false) String presented,
+            WebRequest request
+    ) {
+        ResponseEntity<StreamingResponseBody> denied = reportAccess.deny(presented, "статистики");
+        if (denied != null) {
+            return denied;
+        }
+        // Версии кандидатов между сменами поколения не повторяются, поэтому их суммы и числа кандидатов
+        // достаточно, чтобы заметить любой новый голос, нового кандидата или слияние счётчиков кластера
+        var versions = new long[2];
+        voteStatisticsService.forEachCandidate((key, stats) -> {
+            versions[0]++;
+            versions[1] += stats.version();
+        });
+        var etag = etag("c" + versions[0] + "-" + versions[1]);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return json(etag, out -> {
+            try (var json = generator(out)) {
+                json.writeStartArray();
+                voteStatisticsService.forEachCandidate((key, stats) -> {
+                    try {
+                        writeCandidateSummary(json, key, stats.snapshot(), stats.getTemplate());
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        });
+    }
+
+    @GetMapping("/candidates/{key}")
+    public ResponseEntity<StreamingResponseBody> candidate(
+            @RequestHeader(value = ReportAccess.TOKEN_HEADER, required = false) String presented,
+            @PathVariable("key") String candidateKey,
+            WebRequest request
+    ) {
+        ResponseEntity<StreamingResponseBody> denied = reportAccess.deny(presented, "статистики");
+        if (denied != null) {
+            return denied;
+        }
+        var stats = voteStatisticsService.getStats(candidateKey);
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        var etag = etag("k" + stats.version());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        var snapshot = stats.snapshot();
+        var template = stats.getTemplate();
+        return json(etag, out -> {
+            try (var json = generator(out)) {
+                json.writeStartObject();
+                json.writeStringField("key", candidateKey);
+                json.writeStringField("name", candidateRegistry.getDisplayName(candidateKey));
+                json.writeStringField("template", template.key());
+                json.writeNumberField("version", snapshot.getVersion());
+                writeInvite(json, snapshot);
+                writeCriteria(json, snapshot, template);
+                json.writeEndObject();
+            }
+        });
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> archive(
+            @RequestHeader(value = ReportAccess.TOKEN_HEADER, required = false) String presented,
+            @RequestParam(value = "order", defaultValue = "by_date") String orderName,
+            @RequestParam(value = "cursor", required = false) Integer cursor,
+            @RequestParam(value = "backward", defaultValue = "false") boolean backward,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            WebRequest request
+    ) {
+        ResponseEntity<StreamingResponseBody> denied = reportAccess.deny(presented, "статистики");
+        if (denied != null) {
+            return denied;
+        }
+        var order = orderOf(orderName);
+        if (order == null || limit < 1 || limit > MAX_ARCHIVE_PAGE) {
+            return ResponseEntity.badRequest().build();
+        }
+        // В архив только дописывают, поэтому его размер задаёт содержимое любой страницы
+        var etag = etag("a" + archiveStore.size());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        var page = archiveStore.page(order, cursor, backward, limit);
+        return json(etag, out -> {
+            try (var json = generator(out)) {
+                json.writeStartObject();
+                json.writeStringField("order", order.name().toLowerCase(Locale.ROOT));
+                json.writeNumberField("total", page.total());
+                json.writeBooleanField("hasPrevious", page.hasPrevious());
+                json.writeBooleanField("hasNext", page.hasNext());
+                json.writeArrayFieldStart("items");
+                for (ArchivedCandidate item : page.items()) {
+                    // Записи старого формата без шаблона подписываются шаблоном по умолчанию
+                    var template = evaluationTemplates.get(item.template());
+                    json.writeStartObject();
+                    json.writeNumberField("id", item.id());
+                    json.writeStringField("name", item.name());
+                    json.writeStringField("archivedOn", item.archivedOn().toString());
+                    json.writeStringField("template", template.key());
+                    writeInvite(json, item.stats());
+                    writeCriteria(json, item.stats(), template);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        });
+    }
+
+    private void writeCandidateSummary(JsonGenerator json, String key, StatsSnapshot snapshot,
+                                       EvaluationTemplate template) throws IOException {
+        var candidate = candidateRegistry.findByKey(key);
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeStringField("name", candidateRegistry.getDisplayName(key));
+        if (candidate != null) {
+            json.writeStringField("status", candidate.status().name().toLowerCase(Locale.ROOT));
+        }
+        json.writeStringField("template", template.key());
+        json.writeNumberField("version", snapshot.getVersion());
+        writeInvite(json, snapshot);
+        json.writeArrayFieldStart("average");
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            writeNumber(json, snapshot.getAverage(c));
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void writeInvite(JsonGenerator json, StatsSnapshot snapshot) throws IOException {
+        json.writeNumberField("yes", snapshot.getInviteYes());
+        json.writeNumberField("no", snapshot.getInviteNo());
+    }
+
+    /**
+     * Критерии со средним, медианой и гистограммой; гистограмма — число оценок 1..шкала критерия.
+     */
+    private static void writeCriteria(JsonGenerator json, StatsSnapshot snapshot, EvaluationTemplate template)
+            throws IOException {
+        json.writeArrayFieldStart("criteria");
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            int scale = c < template.size()
+                    ? Math.min(template.criteria().get(c).maxScore(), snapshot.getMaxScore())
+                    : snapshot.getMaxScore();
+            json.writeStartObject();
+            json.writeStringField("title", template.title(c));
+            json.writeNumberField("count", snapshot.getCount(c));
+            json.writeFieldName("average");
+            writeNumber(json, snapshot.getAverage(c));
+            json.writeFieldName("median");
+            writeNumber(json, snapshot.getMedian(c));
+            json.writeArrayFieldStart("histogram");
+            for (int score = 1; score <= scale; score++) {
+                json.writeNumber(snapshot.getScoreCount(c, score));
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Средние и медианы без оценок (NaN) в JSON не представимы — пишется null.
+     */
+    private static void writeNumber(JsonGenerator json, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            json.writeNull();
+        } else {
+            json.writeNumber(value);
+        }
+    }
+
+    private JsonGenerator generator(OutputStream out) throws IOException {
+        var json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // Поток ответа закрывает Spring MVC
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
+    }
+
+    private String etag(String state) {
+        return "\"" + instance + "-" + voteStatisticsService.getGeneration() + "-"
+               + candidateRegistry.getVersion() + "-" + state + "\"";
+    }
+
+    private static ResponseEntity<StreamingResponseBody> json(String etag, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static ArchiveOrder orderOf(String name) {
+        for (var order : ArchiveOrder.values()) {
+            if (order.name().equalsIgnoreCase(name)) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX (Office Open XML) без сторонних библиотек: ZIP с XML-частями, который пишется потоком.
+ * <p>
+ * Каждый лист — отдельная запись архива; строки пишутся в неё сразу, строки текста хранятся
+ * прямо в ячейках (inlineStr), поэтому таблица общих строк и весь лист в памяти не нужны.
+ * Описание книги (список листов) пишется последним, когда листы уже известны.
+ */
+class XlsxReportWriter implements ReportWriter {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PKG_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    // В Excel имя листа не длиннее 31 символа и без []:*?/\
+    private static final int MAX_SHEET_NAME = 31;
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final List<String> sheets = new ArrayList<>();
+    private boolean sheetOpen;
+
+    XlsxReportWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    @Override
+    public void startSheet(String name, List<String> header) throws IOException {
+        finishSheet();
+        sheets.add(name.replaceAll("[\\[\\]:*?/\\\\]", " ").substring(0, Math.min(name.length(), MAX_SHEET_NAME)));
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets.size() + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\""
+                     + MAIN_NS + "\"><sheetData>");
+        sheetOpen = true;
+        row(header);
+    }
+
+    @Override
+    public void row(List<?> cells) throws IOException {
+        writer.write("<row>");
+        for (var cell : cells) {
+            if (cell == null || cell instanceof Double d && (d.isNaN() || d.isInfinite())) {
+                writer.write("<c/>");
+            } else if (cell instanceof Number number) {
+                writer.write("<c><v>");
+                writer.write(number.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(cell.toString());
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    @Override
+    public void close() throws IOException {
+        finishSheet();
+        writePart("[Content_Types].xml", contentTypes());
+        writePart("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"" + PKG_REL_NS + "\"><Relationship Id=\"rId1\" Type=\"" + REL_NS
+                + "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+        writePart("xl/workbook.xml", workbook());
+        writePart("xl/_rels/workbook.xml.rels", workbookRels());
+        writePart("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<styleSheet xmlns=\"" + MAIN_NS + "\"><fonts count=\"1\"><font/></fonts>"
+                + "<fills count=\"1\"><fill/></fills><borders count=\"1\"><border/></borders>"
+                + "<cellStyleXfs count=\"1\"><xf/></cellStyleXfs><cellXfs count=\"1\"><xf/></cellXfs></styleSheet>");
+        writer.close();
+    }
+
+    private void finishSheet() throws IOException {
+        if (!sheetOpen) {
+            return;
+        }
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private void writePart(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        var sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheets.size(); i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return sb.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        var sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        for (int i = 1; i <= sheets.size(); i++) {
+            sb.append("<sheet name=\"").append(escape(sheets.get(i - 1))).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return sb.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        var sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"").append(PKG_REL_NS).append("\">");
+        for (int i = 1; i <= sheets.size(); i++) {
+            sb.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        int styles = sheets.size() + 1;
+        sb.append("<Relationship Id=\"rId").append(styles).append("\" Type=\"").append(REL_NS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return sb.append("</Relationships>").toString();
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '&' -> writer.write("&amp;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // Управляющие символы, кроме табуляции и переводов строк, в XML 1.0 недопустимы
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        writer.write(ch);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
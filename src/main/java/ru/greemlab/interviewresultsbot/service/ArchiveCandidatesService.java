@@ -1,53 +1,109 @@
 package ru.greemlab.interviewresultsbot.service;
 
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.util.KeyboardFactory;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 /**
- * «Архив» уже обработанных кандидатов (пример).
- * В реальном случае это может быть БД.
+ * «Архив» уже обработанных кандидатов.
+ * Данные лежат в {@link ArchiveStore}; здесь — постраничный вывод в чат.
+ * Создаётся при первом открытии архива, а не при старте бота.
  */
+@Lazy
 @Service
+@RequiredArgsConstructor
 public class ArchiveCandidatesService {
 
-    private final Map<String, VoteStatisticsService.CandidateStats> archive = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
+    /**
+     * Текст страницы архива и клавиатура навигации по ней.
+     */
+    public record ArchiveView(String text, InlineKeyboardMarkup keyboard) {
+    }
+
+    private final ArchiveStore archiveStore;
+    private final EvaluationTemplates evaluationTemplates;
+
+    @Value("${app.archive.page-size:5}")
+    private int pageSize;
+
+    /**
+     * Пустой архив при первом запуске заполняется примерами.
+     */
     @PostConstruct
-    public void init() {
-        addSampleCandidate("Петров П.П.", new int[]{4, 5}, new int[]{4, 3}, new int[]{5, 5}, 2, 0);
-        addSampleCandidate("Сидорова К.К.", new int[]{3}, new int[]{3, 3, 4}, new int[]{2, 3}, 0, 1);
-        addSampleCandidate("Иванов С.С.", new int[]{5, 5}, new int[]{5}, new int[]{4, 4, 4}, 3, 0);
-        addSampleCandidate("Ковалёва Л.Л.", new int[]{3, 4}, new int[]{4, 5}, new int[]{5}, 1, 1);
-        addSampleCandidate("Самойлов Р.Р.", new int[]{5, 5, 5}, new int[]{5, 5}, new int[]{5}, 2, 0);
+    public void init() throws IOException {
+        if (!archiveStore.isEmpty()) {
+            return;
+        }
+        addSampleCandidate("Петров П.П.", new int[][]{{4, 5}, {4, 3}, {5, 5}}, 2, 0);
+        addSampleCandidate("Сидорова К.К.", new int[][]{{3}, {3, 3, 4}, {2, 3}}, 0, 1);
+        addSampleCandidate("Иванов С.С.", new int[][]{{5, 5}, {5}, {4, 4, 4}}, 3, 0);
+        addSampleCandidate("Ковалёва Л.Л.", new int[][]{{3, 4}, {4, 5}, {5}}, 1, 1);
+        addSampleCandidate("Самойлов Р.Р.", new int[][]{{5, 5, 5}, {5, 5}, {5}}, 2, 0);
     }
 
-    public String getArchiveSummary() {
-        if (archive.isEmpty()) {
-            return "📭 Архив пуст";
+    /**
+     * Первая страница архива (новые сверху).
+     */
+    public ArchiveView getFirstPage() {
+        return getArchivePage(ArchiveOrder.BY_DATE, null, false);
+    }
+
+    /**
+     * Страница архива: читаются и форматируются только кандидаты этой страницы.
+     *
+     * @param cursor   id кандидата, от которого листаем (null — с начала)
+     * @param backward листать назад от курсора
+     */
+    public ArchiveView getArchivePage(ArchiveOrder order, Integer cursor, boolean backward) {
+        if (archiveStore.isEmpty()) {
+            return new ArchiveView("📭 Архив пуст", null);
+        }
+        var page = archiveStore.page(order, cursor, backward, pageSize);
+        var sb = new StringBuilder("📁 Архив соискателей — ")
+                .append(order.getTitle())
+                .append(" (всего: ").append(page.total()).append("):\n\n");
+        if (page.items().isEmpty()) {
+            sb.append("Здесь пока никого нет.");
         }
-        StringBuilder sb = new StringBuilder("📁 Архив соискателей:\n\n");
-        archive.forEach((name, stats) -> {
-            sb.append("👤 Кандидат: ").append(name).append("\n")
-                    .append(stats.getStatsText()).append("\n\n");
-        });
-        return sb.toString();
+        for (var candidate : page.items()) {
+            sb.append("👤 Кандидат: ").append(candidate.name())
+                    .append(" (").append(DATE_FORMAT.format(candidate.archivedOn())).append(")\n")
+                    // Записи старого формата без шаблона подписываются шаблоном по умолчанию
+                    .append(VoteStatisticsService.CandidateStats.formatStats(candidate.stats(),
+                            evaluationTemplates.get(candidate.template())))
+                    .append("\n\n");
+        }
+        return new ArchiveView(sb.toString(), KeyboardFactory.buildArchiveKeyboard(page));
     }
 
-    private void addSampleCandidate(String name,
-                                    int[] responsibilityScores,
-                                    int[] interestScores,
-                                    int[] focusScores,
-                                    int yesCount,
-                                    int noCount) {
-        var stats = new VoteStatisticsService.CandidateStats();
-        for (int r : responsibilityScores) stats.addResponsibility(r);
-        for (int i : interestScores) stats.addInterest(i);
-        for (int f : focusScores) stats.addResultFocus(f);
+    /**
+     * @param scores оценки по критериям шаблона по умолчанию (лишние критерии и оценки вне шкалы пропускаются)
+     */
+    private void addSampleCandidate(String name, int[][] scores, int yesCount, int noCount) throws IOException {
+        var template = evaluationTemplates.getDefault();
+        var stats = new VoteStatisticsService.CandidateStats(template);
+        for (int c = 0; c < Math.min(scores.length, template.size()); c++) {
+            for (int score : scores[c]) {
+                if (score <= template.criteria().get(c).maxScore()) {
+                    stats.addScore(c, score);
+                }
+            }
+        }
         for (int i = 0; i < yesCount; i++) stats.addInviteYes();
         for (int i = 0; i < noCount; i++) stats.addInviteNo();
-        archive.put(name, stats);
+        archiveStore.add(name, LocalDate.now(), template.key(), stats.snapshot());
     }
 }
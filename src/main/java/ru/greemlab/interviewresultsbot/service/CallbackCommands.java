@@ -1,21 +1,276 @@
 package ru.greemlab.interviewresultsbot.service;
 
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
- * Храним callbackData, используемые в Inline-кнопках.
+ * Кодек callbackData inline-кнопок.
+ * <p>
+ * Кнопка несёт не строку с префиксом, а 64-битный токен, упакованный в 11 символов base64url:
+ * <pre>
+ *  биты  0..3   действие ({@link Action})
+ *  биты  4..7   индекс критерия / «пригласить» / порядок архива
+ *  биты  8..11  оценка / направление листания архива
+ *  биты 12..27  nonce сессии голосования (0 — кнопка не привязана к сессии)
+ *  биты 28..55  аргумент: id кандидата, номер страницы или курсор архива + 1
+ *  биты 56..63  контрольная сумма младших 56 бит
+ * </pre>
+ * {@link #decode} не бросает исключений и ничего не выделяет: испорченный или чужой токен
+ * превращается в {@link #INVALID}, а поля читаются из {@code long} статическими методами.
+ * Nonce меняется при каждом выборе кандидата, поэтому кнопки старых клавиатур
+ * не попадают в текущий шаг голосования.
  */
 public final class CallbackCommands {
 
     private CallbackCommands() {}
 
-    public static final String CURRENT_STATS = "current_stats";
-    public static final String ARCHIVE = "archive";
+    /**
+     * Что делает кнопка. Порядковый номер + 1 — код действия в токене (0 зарезервирован под {@link #INVALID}).
+     */
+    public enum Action {
+        SELECT_CANDIDATE,
+        SCORE,
+        INVITE,
+        MENU_PAGE,
+        ARCHIVE,
+        ARCHIVE_PAGE,
+        CURRENT_STATS,
+        /** Отправить заполненный оценочный лист */
+        SUBMIT,
+        /** Кнопка-подпись (заголовок строки оценочного листа), ничего не делает */
+        LABEL
+    }
+
+    /**
+     * Результат {@link #decode} для неразобранных данных.
+     */
+    public static final long INVALID = 0L;
+
+    // Направления листания архива
+    public static final char ARCHIVE_FIRST = 'f';
+    public static final char ARCHIVE_NEXT = 'n';
+    public static final char ARCHIVE_PREV = 'p';
+
+    /**
+     * Наибольшее значение аргумента (id кандидата, страница, курсор архива).
+     */
+    public static final int MAX_ARGUMENT = (1 << 28) - 2;
+
+    private static final int TOKEN_LENGTH = 11;
+    private static final long PAYLOAD_MASK = (1L << 56) - 1;
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] DIGITS = new byte[128];
+    private static final Action[] ACTIONS = Action.values();
+    private static final ArchiveOrder[] ORDERS = ArchiveOrder.values();
+    private static final char[] DIRECTIONS = {ARCHIVE_FIRST, ARCHIVE_NEXT, ARCHIVE_PREV};
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    // Объявлены после таблиц кодирования: статические поля инициализируются по порядку
+    public static final String ARCHIVE = encode(Action.ARCHIVE, 0, 0, 0, 0);
+    public static final String CURRENT_STATS = encode(Action.CURRENT_STATS, 0, 0, 0, 0);
+    public static final String LABEL = encode(Action.LABEL, 0, 0, 0, 0);
+
+    /* ====================== Кодирование ====================== */
+
+    public static String selectCandidate(int candidateId) {
+        return encode(Action.SELECT_CANDIDATE, 0, 0, 0, candidateId);
+    }
+
+    public static String score(int criterion, int score, int candidateId, int nonce) {
+        return bind(scoreButton(criterion, score), candidateId, nonce);
+    }
+
+    public static String invite(boolean invite, int candidateId, int nonce) {
+        return bind(inviteButton(invite), candidateId, nonce);
+    }
+
+    public static String submit(int candidateId, int nonce) {
+        return bind(submitButton(), candidateId, nonce);
+    }
+
+    /**
+     * Заготовка кнопки оценки без кандидата и nonce: их подставляет {@link #bind} при выдаче клавиатуры.
+     */
+    public static long scoreButton(int criterion, int score) {
+        return payload(Action.SCORE, criterion, score, 0, 0);
+    }
+
+    public static long inviteButton(boolean invite) {
+        return payload(Action.INVITE, invite ? 1 : 0, 0, 0, 0);
+    }
+
+    public static long submitButton() {
+        return payload(Action.SUBMIT, 0, 0, 0, 0);
+    }
+
+    /**
+     * callbackData заготовки кнопки голосования, привязанной к кандидату и nonce сессии.
+     */
+    public static String bind(long button, int candidateId, int nonce) {
+        return encode(button | payload(null, 0, 0, nonce, candidateId));
+    }
+
+    public static String menuPage(int page) {
+        return encode(Action.MENU_PAGE, 0, 0, 0, page);
+    }
+
+    public static String archivePage(ArchiveOrder order, char direction, Integer cursor) {
+        int directionCode = switch (direction) {
+            case ARCHIVE_NEXT -> 1;
+            case ARCHIVE_PREV -> 2;
+            default -> 0;
+        };
+        return encode(Action.ARCHIVE_PAGE, order.ordinal(), directionCode, 0, cursor == null ? 0 : cursor + 1);
+    }
+
+    /**
+     * Новый nonce сессии голосования (1..65535).
+     */
+    public static int nextNonce() {
+        return ThreadLocalRandom.current().nextInt(1, 1 << 16);
+    }
+
+    private static String encode(Action action, int small, int detail, int nonce, int argument) {
+        return encode(payload(action, small, detail, nonce, argument));
+    }
+
+    /**
+     * Младшие 56 бит токена; без действия (null) — только поля nonce и аргумента для {@link #bind}.
+     */
+    private static long payload(Action action, int small, int detail, int nonce, int argument) {
+        if (argument < 0 || argument > MAX_ARGUMENT + 1) {
+            throw new IllegalArgumentException("Аргумент кнопки вне диапазона: " + argument);
+        }
+        return (action == null ? 0 : action.ordinal() + 1L)
+               | (long) (small & 0xF) << 4
+               | (long) (detail & 0xF) << 8
+               | (long) (nonce & 0xFFFF) << 12
+               | (long) argument << 28;
+    }
+
+    private static String encode(long payload) {
+        long token = payload | checksum(payload) << 56;
+        var chars = new char[TOKEN_LENGTH];
+        for (int i = TOKEN_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (token & 0x3F)];
+            token >>>= 6;
+        }
+        return new String(chars);
+    }
+
+    /* ====================== Декодирование ====================== */
+
+    /**
+     * Разбирает callbackData в токен. Для чужих, испорченных и устаревших по формату данных — {@link #INVALID}.
+     */
+    public static long decode(String data) {
+        if (data == null || data.length() != TOKEN_LENGTH) {
+            return INVALID;
+        }
+        long token = 0;
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            char c = data.charAt(i);
+            int digit = c < 128 ? DIGITS[c] : -1;
+            // 11 символов дают 66 бит: в первом символе старшие два бита должны быть пустыми
+            if (digit < 0 || (i == 0 && digit > 0xF)) {
+                return INVALID;
+            }
+            token = token << 6 | digit;
+        }
+        long payload = token & PAYLOAD_MASK;
+        if (token >>> 56 != checksum(payload)) {
+            return INVALID;
+        }
+        int code = (int) (payload & 0xF);
+        if (code == 0 || code > ACTIONS.length) {
+            return INVALID;
+        }
+        int small = small(token);
+        int detail = detail(token);
+        boolean valid = switch (ACTIONS[code - 1]) {
+            // Шкалу конкретного критерия проверяет сценарий голосования: здесь только границы формата
+            case SCORE -> small < EvaluationTemplate.MAX_CRITERIA && detail >= 1 && detail <= EvaluationTemplate.MAX_SCALE;
+            case INVITE -> small <= 1 && detail == 0;
+            case ARCHIVE_PAGE -> small < ORDERS.length && detail < DIRECTIONS.length;
+            default -> small == 0 && detail == 0;
+        };
+        return valid ? token : INVALID;
+    }
+
+    /**
+     * Действие кнопки; null для {@link #INVALID}.
+     */
+    public static Action action(long token) {
+        int code = (int) (token & 0xF);
+        return code == 0 ? null : ACTIONS[code - 1];
+    }
+
+    public static int nonce(long token) {
+        return (int) (token >>> 12 & 0xFFFF);
+    }
+
+    public static int candidateId(long token) {
+        return argument(token);
+    }
+
+    public static int page(long token) {
+        return argument(token);
+    }
+
+    /**
+     * Индекс критерия в шаблоне оценки.
+     */
+    public static int criterion(long token) {
+        return small(token);
+    }
+
+    public static int score(long token) {
+        return detail(token);
+    }
+
+    public static boolean invite(long token) {
+        return small(token) == 1;
+    }
+
+    public static ArchiveOrder archiveOrder(long token) {
+        return ORDERS[small(token)];
+    }
+
+    public static char archiveDirection(long token) {
+        return DIRECTIONS[detail(token)];
+    }
+
+    /**
+     * Курсор архива (id кандидата) или null для первой страницы.
+     */
+    public static Integer archiveCursor(long token) {
+        int argument = argument(token);
+        return argument == 0 ? null : argument - 1;
+    }
+
+    private static int small(long token) {
+        return (int) (token >>> 4 & 0xF);
+    }
+
+    private static int detail(long token) {
+        return (int) (token >>> 8 & 0xF);
+    }
 
-    // Префиксы для оценки
-    public static final String RESP_PREFIX = "RESP_";
-    public static final String INTR_PREFIX = "INTR_";
-    public static final String RESF_PREFIX = "RESF_";
+    private static int argument(long token) {
+        return (int) (token >>> 28 & 0xFFFFFFF);
+    }
 
-    // Решение о приглашении
-    public static final String INVITE_YES = "INVITE_YES";
-    public static final String INVITE_NO = "INVITE_NO";
+    private static long checksum(long payload) {
+        return (payload * 0x9E3779B97F4A7C15L) >>> 56;
+    }
 }
@@ -0,0 +1,158 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.candidate.Candidate;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Команды администратора для управления списком кандидатов:
+ * <pre>
+ * /candidates                      — список кандидатов
+ * /candidate_add ключ Имя          — добавить кандидата (ключ/шаблон — со своим шаблоном оценки)
+ * /candidate_retire ключ           — снять с голосования (статистика остаётся)
+ * /candidate_archive ключ          — перенести статистику в архив
+ * /candidates_reload               — перечитать файл реестра
+ * </pre>
+ * Доступны только чатам из app.bot.admin-chat-ids; если список пуст, команды выключены.
+ */
+@Slf4j
+@Service
+public class CandidateAdminService {
+
+    private final CandidateRegistry candidateRegistry;
+    private final VoteStatisticsService voteStatisticsService;
+    private final UserStateService userStateService;
+    private final ArchiveStore archiveStore;
+    private final VoteJournal voteJournal;
+    private final EvaluationTemplates evaluationTemplates;
+    private final Set<Long> adminChatIds;
+
+    public CandidateAdminService(
+            CandidateRegistry candidateRegistry,
+            VoteStatisticsService voteStatisticsService,
+            UserStateService userStateService,
+            @Lazy ArchiveStore archiveStore,
+            VoteJournal voteJournal,
+            EvaluationTemplates evaluationTemplates,
+            @Value("${app.bot.admin-chat-ids:}") String adminChatIds
+    ) {
+        this.candidateRegistry = candidateRegistry;
+        this.voteStatisticsService = voteStatisticsService;
+        this.userStateService = userStateService;
+        this.archiveStore = archiveStore;
+        this.voteJournal = voteJournal;
+        this.evaluationTemplates = evaluationTemplates;
+        this.adminChatIds = Arrays.stream(adminChatIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public static boolean isAdminCommand(String text) {
+        return text.startsWith("/candidate");
+    }
+
+    /**
+     * Выполняет команду и возвращает текст ответа.
+     */
+    public String handle(Long chatId, String text) {
+        if (!adminChatIds.contains(chatId)) {
+            log.warn("Команда администратора из чужого чата отклонена: {} (chatId={})", text, chatId);
+            return "⛔ Команда доступна только администраторам.";
+        }
+        var parts = text.split("\\s+", 3);
+        try {
+            return switch (parts[0]) {
+                case "/candidates" -> listCandidates();
+                case "/candidates_reload" -> {
+                    candidateRegistry.load();
+                    yield "🔄 Реестр перечитан. Активных кандидатов: " + candidateRegistry.getActive().size();
+                }
+                case "/candidate_add" -> {
+                    if (parts.length < 3) {
+                        yield "Формат: /candidate_add ключ[/шаблон] Имя";
+                    }
+                    var keyAndTemplate = parts[1].split("/", 2);
+                    var template = keyAndTemplate.length > 1 ? keyAndTemplate[1] : null;
+                    if (template != null && !evaluationTemplates.contains(template)) {
+                        yield "⚠ Шаблон оценки не найден: " + template;
+                    }
+                    var candidate = candidateRegistry.add(keyAndTemplate[0], parts[2], template);
+                    log.info("Добавлен кандидат {} (chatId={})", candidate, chatId);
+                    yield "✅ Добавлен кандидат: " + candidate.displayName();
+                }
+                case "/candidate_retire" -> {
+                    if (parts.length < 2) {
+                        yield "Формат: /candidate_retire ключ";
+                    }
+                    var candidate = candidateRegistry.changeStatus(parts[1], Candidate.Status.RETIRED);
+                    log.info("Кандидат снят с голосования: {} (chatId={})", candidate, chatId);
+                    yield "⏸ Кандидат снят с голосования: " + candidate.displayName();
+                }
+                case "/candidate_archive" -> {
+                    if (parts.length < 2) {
+                        yield "Формат: /candidate_archive ключ";
+                    }
+                    yield archive(parts[1], chatId);
+                }
+                default -> "ℹ Неизвестная команда.";
+            };
+        } catch (IllegalArgumentException e) {
+            return "⚠ " + e.getMessage();
+        } catch (IOException e) {
+            log.error("Не удалось сохранить изменения реестра кандидатов: {}", e.getMessage(), e);
+            return "❌ Не удалось сохранить изменения, попробуйте позже.";
+        }
+    }
+
+    private String listCandidates() {
+        var sb = new StringBuilder("👥 Кандидаты:\n\n");
+        for (var candidate : candidateRegistry.getAll()) {
+            sb.append(candidate.key()).append(" — ").append(candidate.displayName())
+                    .append(" (").append(candidate.status());
+            if (candidate.template() != null) {
+                sb.append(", шаблон ").append(candidate.template());
+            }
+            sb.append(")\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Переносит накопленную статистику кандидата в архив и убирает его из текущего голосования.
+     */
+    private String archive(String key, Long chatId) throws IOException {
+        var candidate = candidateRegistry.findByKey(key);
+        if (candidate == null) {
+            throw new IllegalArgumentException("Кандидат " + key + " не найден");
+        }
+        if (candidate.status() == Candidate.Status.ARCHIVED) {
+            return "Кандидат уже в архиве: " + candidate.displayName();
+        }
+        var template = evaluationTemplates.get(candidate.template());
+        var snapshot = voteStatisticsService.getSnapshot(key);
+        if (snapshot == null) {
+            snapshot = new VoteStatisticsService.CandidateStats(template).snapshot();
+        }
+        archiveStore.add(candidate.displayName(), LocalDate.now(), template.key(), snapshot);
+        candidateRegistry.changeStatus(key, Candidate.Status.ARCHIVED);
+        voteStatisticsService.remove(key);
+        userStateService.forgetCandidate(key);
+        voteJournal.appendArchive(key);
+        log.info("Кандидат перенесён в архив: {} (chatId={})", candidate, chatId);
+        return "📁 Кандидат перенесён в архив: " + candidate.displayName();
+    }
+}
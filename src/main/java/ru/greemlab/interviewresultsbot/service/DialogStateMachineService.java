@@ -2,12 +2,28 @@ package ru.greemlab.interviewresultsbot.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
-import ru.greemlab.interviewresultsbot.util.KeyboardFactory;
-
+import ru.greemlab.interviewresultsbot.candidate.Candidate;
+import ru.greemlab.interviewresultsbot.candidate.CandidateMenu;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.cluster.ClusterNode;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationFlow;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+import ru.greemlab.interviewresultsbot.metrics.BotMetrics;
+import ru.greemlab.interviewresultsbot.report.ReportExporter;
+import ru.greemlab.interviewresultsbot.report.ReportFormat;
+
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import static ru.greemlab.interviewresultsbot.service.UserStateService.UserSession;
 import static ru.greemlab.interviewresultsbot.service.UserStateService.UserState;
 
 @Slf4j
@@ -15,62 +31,179 @@ import static ru.greemlab.interviewresultsbot.service.UserStateService.UserState
 @RequiredArgsConstructor
 public class DialogStateMachineService {
 
+    private static final String MAIN_MENU_TEXT = "🌟 Добро пожаловать! Ниже кнопки для выбора кандидата:";
+    private static final String EXPORT_COMMAND = "/export";
+    private static final String STATS_COMMAND = "/stats";
+    private static final String RANK_COMMAND = "/rank";
+    private static final int TREND_DAYS = 7;
+    private static final int RANK_LIMIT = 10;
+    private static final int RANK_MAX_LIMIT = 50;
+
     private final UserStateService userStateService;
     private final VoteStatisticsService voteStatisticsService;
+    @Lazy
     private final ArchiveCandidatesService archiveCandidatesService;
+    private final VoteJournal voteJournal;
+    private final CandidateRegistry candidateRegistry;
+    private final EvaluationTemplates evaluationTemplates;
+    private final CandidateMenu candidateMenu;
+    private final CandidateAdminService candidateAdminService;
+    private final BotMetrics botMetrics;
+    private final VoteLedger voteLedger;
+    private final Optional<ClusterNode> clusterNode;
+    @Lazy
+    private final ReportExporter reportExporter;
+    private final LiveStatsBoard liveStatsBoard;
 
     /**
      * Обработка обычных текстовых сообщений.
      */
     public void processTextMessage(CandidateEvaluationBot bot, Message message) {
         final Long chatId = message.getChatId();
-        final String text = message.getText().trim();
+        final UserState from = userStateService.peekState(chatId);
+        long start = System.nanoTime();
+        try {
+            handleTextMessage(bot, chatId, message.getText().trim());
+        } finally {
+            botMetrics.recordUpdate(BotMetrics.UpdateType.TEXT, from, userStateService.peekState(chatId),
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Обработка inline-кнопок.
+     *
+     * @return текст всплывающего уведомления для ответа на нажатие (null — без текста)
+     */
+    public String processCallbackQuery(CandidateEvaluationBot bot, CallbackQuery callbackQuery) {
+        final Long chatId = callbackQuery.getMessage().getChatId();
+        final UserState from = userStateService.peekState(chatId);
+        long start = System.nanoTime();
+        try {
+            return handleCallbackQuery(bot, chatId, callbackQuery);
+        } finally {
+            botMetrics.recordUpdate(BotMetrics.UpdateType.CALLBACK, from, userStateService.peekState(chatId),
+                    System.nanoTime() - start);
+        }
+    }
 
+    private void handleTextMessage(CandidateEvaluationBot bot, Long chatId, String text) {
+        if (CandidateAdminService.isAdminCommand(text)) {
+            bot.sendTextMessage(chatId, candidateAdminService.handle(chatId, text), null);
+            return;
+        }
+        if (text.equals(EXPORT_COMMAND) || text.startsWith(EXPORT_COMMAND + " ")) {
+            handleExportCommand(bot, chatId, text.substring(EXPORT_COMMAND.length()).strip());
+            return;
+        }
+        if (text.equals(STATS_COMMAND) || text.startsWith(STATS_COMMAND + " ")) {
+            handleStatsCommand(bot, chatId, text.substring(STATS_COMMAND.length()).strip());
+            return;
+        }
+        if (text.equals(RANK_COMMAND) || text.startsWith(RANK_COMMAND + " ")) {
+            handleRankCommand(bot, chatId, text.substring(RANK_COMMAND.length()).strip());
+            return;
+        }
         switch (text) {
             case "/start" -> handleStartCommand(bot, chatId);
             case "/restart" -> handleRestartCommand(bot, chatId);
+            case "/new_round" -> handleNewRoundCommand(bot, chatId);
+            case "/live" -> liveStatsBoard.subscribe(bot, chatId);
+            case "/live off" -> {
+                if (!liveStatsBoard.unsubscribe(bot, chatId)) {
+                    bot.sendTextMessage(chatId, "ℹ Живая статистика не включена. Включить: /live", null);
+                }
+            }
             default -> sendDefaultResponse(bot, chatId);
         }
     }
 
+    private String handleCallbackQuery(CandidateEvaluationBot bot, Long chatId, CallbackQuery callbackQuery) {
+        final Integer messageId = callbackQuery.getMessage().getMessageId();
+        final long token = CallbackCommands.decode(callbackQuery.getData());
+        final var action = CallbackCommands.action(token);
+        if (action == null) {
+            log.warn("Некорректная кнопка: {} (chatId={})", callbackQuery.getData(), chatId);
+            botMetrics.countRejectedCallback("invalid_button");
+            return null;
+        }
+
+        switch (action) {
+            case ARCHIVE -> {
+                // Шлём новое сообщение с первой страницей архива; дальше оно листается на месте
+                var archive = archiveCandidatesService.getFirstPage();
+                bot.sendTextMessage(chatId, archive.text(), archive.keyboard());
+                handleStartCommand(bot, chatId);
+            }
+            case MENU_PAGE -> handleMenuPage(bot, chatId, messageId, CallbackCommands.page(token));
+            case ARCHIVE_PAGE -> handleArchivePage(bot, chatId, messageId, token);
+            case CURRENT_STATS -> {
+                var stats = voteStatisticsService.getAllCandidatesStatistics();
+                // Чату без живой статистики подсказываем /live, чтобы сводки не копились в переписке
+                bot.sendTextMessage(chatId, liveStatsBoard.isSubscribed(chatId) ? stats
+                        : stats + "\n\n📡 /live — закрепить статистику и обновлять её на месте", null);
+            }
+            case SELECT_CANDIDATE, SCORE, INVITE, SUBMIT -> {
+                return handleVoteButton(bot, chatId, messageId, token);
+            }
+            // Подписи строк оценочного листа: нажатие просто подтверждается
+            case LABEL -> {
+            }
+        }
+        return null;
+    }
+
     /**
-     * Обработка inline-кнопок.
+     * Кнопки голосования: переход ищется в таблице сценария по шаблону кандидата
+     * (номер шага из сессии × действие кнопки).
      */
-    public void processCallbackQuery(CandidateEvaluationBot bot, CallbackQuery callbackQuery) {
-        final Long chatId = callbackQuery.getMessage().getChatId();
-        final Integer messageId = callbackQuery.getMessage().getMessageId();
-        final String data = callbackQuery.getData();
-
-        // Проверяем кнопки "Архив" / "Статистика"
-        if (CallbackCommands.ARCHIVE.equals(data)) {
-            // Просто шлём новое (временное) сообщение с архивом, потом можем удалить его,
-            // либо оставить решение на пользователе
-            var archiveMsgId = bot.sendTextMessage(chatId, archiveCandidatesService.getArchiveSummary(), null);
-            // Если нужно, можете убрать сообщение через несколько секунд, или оставить
+    private String handleVoteButton(CandidateEvaluationBot bot, Long chatId, Integer messageId, long token) {
+        var session = userStateService.getOrCreateSession(chatId);
+        final int step = session.getStep();
+        if (step == EvaluationFlow.START) {
+            handleCandidateSelection(bot, chatId, session, token);
+            return null;
+        }
+
+        // Кандидата могли снять с голосования, пока пользователь отвечал на вопросы
+        var candidate = candidateRegistry.findByKey(session.getCandidateKey());
+        if (candidate == null || !candidate.isActive()) {
+            botMetrics.countRejectedCallback("closed_candidate");
+            bot.sendTextMessage(chatId, "⏸ Голосование по этому кандидату закрыто.", null);
             handleStartCommand(bot, chatId);
-            return;
+            return null;
         }
-        if (CallbackCommands.CURRENT_STATS.equals(data)) {
-            var statsMsgId = bot.sendTextMessage(chatId, voteStatisticsService.getAllCandidatesStatistics(), null);
-            // Аналогично, можно по желанию потом удалить
-            return;
+        // Кнопка из клавиатуры другого голосования (старое сообщение, другой кандидат)
+        if (session.getNonce() != CallbackCommands.nonce(token) || candidate.id() != CallbackCommands.candidateId(token)) {
+            log.debug("Нажатие устаревшей клавиатуры (chatId={})", chatId);
+            botMetrics.countRejectedCallback("stale_button");
+            return null;
         }
 
-        // Узнаём текущее состояние
-        final UserState currentState = userStateService.getState(chatId);
-
-        switch (currentState) {
-            case START -> handleCandidateSelection(bot, chatId, data);
-            case WAITING_RESPONSIBILITY ->
-                    handleRatingSelection(bot, chatId, data, CallbackCommands.RESP_PREFIX, UserState.WAITING_INTEREST);
-            case WAITING_INTEREST ->
-                    handleRatingSelection(bot, chatId, data, CallbackCommands.INTR_PREFIX, UserState.WAITING_RESULT_FOCUS);
-            case WAITING_RESULT_FOCUS ->
-                    handleRatingSelection(bot, chatId, data, CallbackCommands.RESF_PREFIX, UserState.WAITING_INVITE);
-            case WAITING_INVITE -> handleInvitationDecision(bot, chatId, data);
-            default ->
-                    log.warn("Непредусмотренное состояние диалога: {} (chatId={})", currentState, chatId);
+        var flow = evaluationTemplates.flow(candidate.template());
+        var transition = flow.transition(step, token);
+        if (transition == null) {
+            log.warn("Кнопка не для текущего шага {}: {} (chatId={})", step, CallbackCommands.action(token), chatId);
+            botMetrics.countRejectedCallback("wrong_step");
+            return null;
         }
+        return switch (transition.effect()) {
+            case RECORD_SCORE -> {
+                handleRatingSelection(bot, chatId, messageId, session, candidate, flow, step, transition, token);
+                yield null;
+            }
+            case FINISH -> {
+                handleInvitationDecision(bot, chatId, messageId, session, candidate, token);
+                yield null;
+            }
+            case MARK_SCORE -> markScore(session, flow, token);
+            case MARK_INVITE -> markInvite(session, token);
+            case SUBMIT -> handleScorecardSubmit(bot, chatId, messageId, session, candidate, flow);
+            case BEGIN -> {
+                log.warn("Непредусмотренный переход {} на шаге {} (chatId={})", transition.effect(), step, chatId);
+                yield null;
+            }
+        };
     }
 
     /* ====================== /start, /restart и дефолтные ответы ====================== */
@@ -81,17 +214,25 @@ public class DialogStateMachineService {
 
         // Отправляем только ОДНО «главное меню» (кандидаты + кнопки статистики/архива),
         // которое не будем редактировать в дальнейшем
-        bot.sendTextMessage(
-                chatId,
-                "🌟 Добро пожаловать! Ниже кнопки для выбора кандидата:",
-                KeyboardFactory.buildMainMenuKeyboard()
-        );
+        bot.sendTextMessage(chatId, MAIN_MENU_TEXT, candidateMenu.getPage(0));
+    }
+
+    /**
+     * Листание главного меню: меняем клавиатуру того же сообщения.
+     */
+    private void handleMenuPage(CandidateEvaluationBot bot, Long chatId, Integer messageId, int page) {
+        bot.editMessage(chatId, messageId, MAIN_MENU_TEXT, candidateMenu.getPage(page));
     }
 
     private void handleRestartCommand(CandidateEvaluationBot bot, Long chatId) {
-        // Полный сброс всех пользователей, статистики
-        userStateService.resetAllSessions();
-        voteStatisticsService.resetStatistic();
+        // Полный сброс всех пользователей, статистики; в кластере — новый раунд для всех узлов
+        if (clusterNode.isPresent()) {
+            clusterNode.get().advanceRound();
+        } else {
+            userStateService.resetAllSessions();
+            voteStatisticsService.resetStatistic();
+            voteJournal.appendReset();
+        }
         bot.sendTextMessage(
                 chatId,
                 "🔄 Данные сброшены. Наберите /start, чтобы начать заново.",
@@ -99,6 +240,99 @@ public class DialogStateMachineService {
         );
     }
 
+    /**
+     * /new_round: закрывает раунд собеседований без сброса — итоги и прошлые раунды остаются,
+     * отметки «голосовал» снимаются, чтобы за тех же кандидатов можно было голосовать снова.
+     */
+    private void handleNewRoundCommand(CandidateEvaluationBot bot, Long chatId) {
+        if (clusterNode.isPresent()) {
+            // Номер раунда в кластере общий и меняется только полным сбросом (см. ClusterNode#advanceRound)
+            bot.sendTextMessage(chatId, "ℹ В кластере раунды не поддерживаются, используйте /restart.", null);
+            return;
+        }
+        long round = voteStatisticsService.closeRound();
+        userStateService.clearVotes();
+        voteJournal.appendRoundClose();
+        bot.sendTextMessage(chatId, "🆕 Начат раунд " + round + ". Итоги прошлых раундов сохранены.", null);
+    }
+
+    /**
+     * /stats N — за последние N дней, /stats round [N] — за раунд (по умолчанию текущий),
+     * /stats trend — средний балл по дням за неделю.
+     */
+    private void handleStatsCommand(CandidateEvaluationBot bot, Long chatId, String argument) {
+        var parts = argument.isEmpty() ? new String[0] : argument.split("\\s+");
+        String reply = null;
+        try {
+            if (parts.length == 1 && parts[0].equals("trend")) {
+                reply = voteStatisticsService.getTrend(Math.min(TREND_DAYS, voteStatisticsService.getDaysRetained()));
+            } else if (parts.length >= 1 && parts.length <= 2 && parts[0].equals("round")) {
+                long round = parts.length == 2 ? Long.parseLong(parts[1]) : voteStatisticsService.getRound();
+                reply = voteStatisticsService.getRoundStatistics(round);
+            } else if (parts.length == 1) {
+                int days = Integer.parseInt(parts[0]);
+                if (days >= 1 && days <= voteStatisticsService.getDaysRetained()) {
+                    reply = voteStatisticsService.getWindowStatistics(days);
+                }
+            } else if (parts.length == 0) {
+                reply = voteStatisticsService.getAllCandidatesStatistics();
+            }
+        } catch (NumberFormatException e) {
+            // Ниже — подсказка по формату
+        }
+        if (reply == null) {
+            reply = "ℹ Статистика: /stats, /stats N (N от 1 до " + voteStatisticsService.getDaysRetained()
+                    + " дней), /stats round [номер], /stats trend";
+        }
+        bot.sendTextMessage(chatId, reply, null);
+    }
+
+    /**
+     * /rank — первые 10 рейтинга, /rank N — первые N, /rank min P — с баллом от P%,
+     * /rank ключ — место кандидата.
+     */
+    private void handleRankCommand(CandidateEvaluationBot bot, Long chatId, String argument) {
+        var parts = argument.isEmpty() ? new String[0] : argument.split("\\s+");
+        String reply = null;
+        if (parts.length == 0) {
+            reply = voteStatisticsService.getTopStatistics(RANK_LIMIT);
+        } else if (parts.length == 2 && parts[0].equals("min")) {
+            try {
+                int percent = Integer.parseInt(parts[1]);
+                if (percent >= 0 && percent <= 100) {
+                    reply = voteStatisticsService.getRankingAtLeast(percent, RANK_MAX_LIMIT);
+                }
+            } catch (NumberFormatException e) {
+                // Ниже — подсказка по формату
+            }
+        } else if (parts.length == 1 && parts[0].chars().allMatch(Character::isDigit)) {
+            int limit = parts[0].length() > 3 ? 0 : Integer.parseInt(parts[0]);
+            if (limit >= 1 && limit <= RANK_MAX_LIMIT) {
+                reply = voteStatisticsService.getTopStatistics(limit);
+            }
+        } else if (parts.length == 1) {
+            reply = voteStatisticsService.getCandidateRank(parts[0]);
+        }
+        if (reply == null) {
+            reply = "ℹ Рейтинг: /rank, /rank N (N от 1 до " + RANK_MAX_LIMIT + "), /rank min P (P от 0 до 100), "
+                    + "/rank ключ_кандидата";
+        }
+        bot.sendTextMessage(chatId, reply, null);
+    }
+
+    /**
+     * /export [csv|xlsx]: отчёт по текущей статистике и архиву приходит документом чуть позже.
+     */
+    private void handleExportCommand(CandidateEvaluationBot bot, Long chatId, String argument) {
+        var format = argument.isEmpty() ? ReportFormat.CSV : ReportFormat.fromExtension(argument);
+        if (format == null) {
+            bot.sendTextMessage(chatId, "ℹ Формат отчёта: /export csv или /export xlsx", null);
+            return;
+        }
+        bot.sendTextMessage(chatId, "📤 Готовлю отчёт " + format.getExtension().toUpperCase() + "…", null);
+        reportExporter.exportToChat(bot, chatId, format);
+    }
+
     private void sendDefaultResponse(CandidateEvaluationBot bot, Long chatId) {
         bot.sendTextMessage(
                 chatId,
@@ -107,23 +341,49 @@ public class DialogStateMachineService {
         );
     }
 
+    /**
+     * Листание архива: редактируем то же сообщение, подставляя новую страницу.
+     */
+    private void handleArchivePage(CandidateEvaluationBot bot, Long chatId, Integer messageId, long token) {
+        var order = CallbackCommands.archiveOrder(token);
+        var cursor = CallbackCommands.archiveCursor(token);
+        char direction = CallbackCommands.archiveDirection(token);
+        var page = archiveCandidatesService.getArchivePage(order, cursor, direction == CallbackCommands.ARCHIVE_PREV);
+        bot.editMessage(chatId, messageId, page.text(), page.keyboard());
+    }
+
     /* ====================== Шаги голосования ====================== */
 
     /**
-     * Пользователь в состоянии START нажал на имя кандидата.
+     * Пользователь на шаге выбора нажал на имя кандидата.
      */
-    private void handleCandidateSelection(CandidateEvaluationBot bot, Long chatId, String candidateKey) {
-        if (!CandidateConstants.ALL.contains(candidateKey)) {
-            log.warn("Некорректный выбор кандидата: {} (chatId={})", candidateKey, chatId);
+    private void handleCandidateSelection(CandidateEvaluationBot bot, Long chatId, UserSession session, long token) {
+        var candidate = candidateRegistry.get(CallbackCommands.candidateId(token));
+        if (candidate == null) {
+            log.warn("Некорректный выбор кандидата: {} (chatId={})", CallbackCommands.candidateId(token), chatId);
+            botMetrics.countRejectedCallback("unknown_candidate");
             return;
         }
-        var session = userStateService.getOrCreateSession(chatId);
+        var flow = evaluationTemplates.flow(candidate.template());
+        var transition = flow.transition(EvaluationFlow.START, token);
+        if (transition == null) {
+            log.warn("Кнопка не для шага выбора кандидата: {} (chatId={})", CallbackCommands.action(token), chatId);
+            botMetrics.countRejectedCallback("wrong_step");
+            return;
+        }
+        if (!candidate.isActive()) {
+            botMetrics.countRejectedCallback("closed_candidate");
+            bot.sendTextMessage(chatId, "⏸ Голосование по кандидату " + candidate.displayName() + " закрыто.", null);
+            handleStartCommand(bot, chatId);
+            return;
+        }
+        var candidateKey = candidate.key();
 
         // Проверим, не голосовал ли уже пользователь
-        if (session.hasVotedFor(candidateKey)) {
+        if (userStateService.hasVoted(chatId, candidateKey)) {
             // Уже голосовал за этого кандидата – просто покажем статистику
             var stats = voteStatisticsService.getCandidateStatistics(candidateKey);
-            var msgText = "Вы уже голосовали за " + CandidateConstants.getCandidateName(candidateKey)
+            var msgText = "Вы уже голосовали за " + candidate.displayName()
                           + "\n\nТекущая статистика:\n" + stats;
             bot.sendTextMessage(chatId, msgText, null);
             handleStartCommand(bot, chatId);
@@ -131,128 +391,204 @@ public class DialogStateMachineService {
         }
 
         // Иначе начинаем новый цикл голосования.
+        int next = transition.nextStep();
         session.setCandidateKey(candidateKey);
-        session.setState(UserState.WAITING_RESPONSIBILITY);
-
-        // Отправим «временное» сообщение (шаг 1)
-        // Запишем ID этого сообщения в сессию, чтобы потом обновлять или удалить
-        var messageId = bot.sendTextMessage(
+        // Голос копится в сессии и попадает в статистику только целиком, при завершении
+        session.setPendingScores(new int[flow.getTemplate().size()]);
+        session.setPendingInvite(null);
+        session.setPendingRound(voteStatisticsService.getRound());
+        session.setStep(next);
+        session.setState(transition.nextState());
+        session.setNonce(CallbackCommands.nextNonce());
+
+        // Отправим «временное» сообщение (первый шаг)
+        // Запишем ID этого сообщения в сессию, как только Telegram его вернёт, чтобы потом обновлять или удалить
+        int nonce = session.getNonce();
+        bot.sendTextMessage(
                 chatId,
-                "📝 Вы выбрали: " + CandidateConstants.getCandidateName(candidateKey)
-                + "\n➡ Шаг 1/4: Оцените ответственность (1-5)",
-                KeyboardFactory.buildRatingButtons(CallbackCommands.RESP_PREFIX)
-        );
+                "📝 Вы выбрали: " + candidate.displayName() + "\n" + flow.prompt(next),
+                flow.keyboard(next, candidate.id(), nonce)
+        ).thenAccept(messageId -> keepTempMessage(bot, chatId, session, candidateKey, nonce, messageId));
+    }
 
-        session.setTempMessageId(messageId); // сохраним, чтобы дальше редактировать
+    /**
+     * Ответ на отправку «временного» сообщения пришёл асинхронно. Пока он шёл, голосование могли
+     * завершить, сбросить или начать заново (сессия вытеснена, другой кандидат или новый nonce) —
+     * тогда сообщение уже ничьё, и оно удаляется, а ID в сессию не попадает.
+     * Шаг внутри того же голосования сравнивать не нужно: сдвинуть его можно только кнопкой этого же сообщения
+     * (у него единственная клавиатура с этим nonce), и оно остаётся «временным» сообщением сессии.
+     */
+    private void keepTempMessage(CandidateEvaluationBot bot, Long chatId, UserSession session,
+                                 String candidateKey, int nonce, Integer messageId) {
+        if (userStateService.isCurrentSession(chatId, session)
+            && session.getNonce() == nonce
+            && candidateKey.equals(session.getCandidateKey())) {
+            session.setTempMessageId(messageId);
+        } else {
+            bot.deleteMessage(chatId, messageId);
+        }
+    }
+
+    /**
+     * ID «временного» сообщения. Ответ Telegram на его отправку обрабатывается асинхронно,
+     * и кнопку могут нажать раньше, чем ID попадёт в сессию, — тогда берём ID сообщения с нажатой кнопкой.
+     */
+    private static Integer tempMessageId(UserSession session, Integer pressedMessageId) {
+        var messageId = session.getTempMessageId();
+        return messageId != null ? messageId : pressedMessageId;
     }
 
     /**
-     * Обработка оценки (1..5) для одного из трёх критериев (ответственность, интерес, результативность).
+     * Оценка по критерию шага. Токен уже проверен таблицей переходов:
+     * критерий совпадает с текущим шагом, оценка в пределах его шкалы.
      */
     private void handleRatingSelection(
             CandidateEvaluationBot bot,
             Long chatId,
-            String data,
-            String expectedPrefix,
-            UserState nextState
+            Integer pressedMessageId,
+            UserSession session,
+            Candidate candidate,
+            EvaluationFlow flow,
+            int step,
+            EvaluationFlow.Transition transition,
+            long token
     ) {
-        if (!data.startsWith(expectedPrefix)) {
-            log.warn("Неправильный префикс для оценки: {} (chatId={})", data, chatId);
-            return;
-        }
-        var session = userStateService.getOrCreateSession(chatId);
-        var messageId = session.getTempMessageId(); // то самое «временное» сообщение
-
-        // Извлекаем число
-        int score;
-        try {
-            var scoreStr = data.substring(expectedPrefix.length());
-            score = Integer.parseInt(scoreStr);
-            if (score < 1 || score > 5) {
-                throw new NumberFormatException("Score out of range");
-            }
-        } catch (NumberFormatException e) {
-            log.error("Некорректная оценка: {} (chatId={})", data, chatId);
-            return;
-        }
-
-        var candidateKey = session.getCandidateKey();
-        switch (expectedPrefix) {
-            case CallbackCommands.RESP_PREFIX -> voteStatisticsService.addResponsibility(candidateKey, score);
-            case CallbackCommands.INTR_PREFIX -> voteStatisticsService.addInterest(candidateKey, score);
-            case CallbackCommands.RESF_PREFIX -> voteStatisticsService.addResultFocus(candidateKey, score);
-            default -> log.warn("Неизвестный тип оценки: {}", expectedPrefix);
-        }
+        var messageId = tempMessageId(session, pressedMessageId); // то самое «временное» сообщение
+        // Оценка запоминается в сессии: брошенное на середине голосование не попадёт в статистику
+        session.getPendingScores()[flow.criterion(step)] = CallbackCommands.score(token);
 
         // Переходим к следующему шагу
-        session.setState(nextState);
-
-        // Формируем текст и клавиатуру для следующего шага
-        String nextText;
-        var nextKeyboard = switch (nextState) {
-            case WAITING_INTEREST -> {
-                nextText = "➡ Шаг 2/4: Оцените интерес к делу  (1-5)";
-                yield KeyboardFactory.buildRatingButtons(CallbackCommands.INTR_PREFIX);
-            }
-            case WAITING_RESULT_FOCUS -> {
-                nextText = "➡ Шаг 3/4: Оцените направленность на результат (1-5)";
-                yield KeyboardFactory.buildRatingButtons(CallbackCommands.RESF_PREFIX);
-            }
-            case WAITING_INVITE -> {
-                nextText = "➡ Шаг 4/4: Пригласили ли Вы данного кандидата на работу?";
-                yield KeyboardFactory.buildInviteKeyboard();
-            }
-            default -> {
-                nextText = "Неизвестный шаг";
-                yield null;
-            }
-        };
+        int next = transition.nextStep();
+        session.setStep(next);
+        session.setState(transition.nextState());
 
-        // Редактируем то же самое «временное» сообщение
+        // Редактируем то же самое «временное» сообщение: подсказка и клавиатура следующего шага
         bot.editMessage(
                 chatId,
                 messageId,
-                "📝 Вы выбрали: " + CandidateConstants.getCandidateName(candidateKey)
-                + "\n" + nextText,
-                nextKeyboard
+                "📝 Вы выбрали: " + candidate.displayName() + "\n" + flow.prompt(next),
+                flow.keyboard(next, candidate.id(), session.getNonce())
         );
     }
 
     /**
-     * Шаг "Пригласить / Не приглашать".
+     * Шаг "Пригласить / Не приглашать": последний шаг, голос записывается целиком.
      */
-    private void handleInvitationDecision(CandidateEvaluationBot bot, Long chatId, String data) {
-        if (!data.equals(CallbackCommands.INVITE_YES) && !data.equals(CallbackCommands.INVITE_NO)) {
-            log.warn("Непонятная кнопка в шаге INVITE: {} (chatId={})", data, chatId);
-            return;
+    private void handleInvitationDecision(
+            CandidateEvaluationBot bot,
+            Long chatId,
+            Integer pressedMessageId,
+            UserSession session,
+            Candidate candidate,
+            long token
+    ) {
+        session.setPendingInvite(CallbackCommands.invite(token));
+        completeVote(bot, chatId, pressedMessageId, session, candidate);
+    }
+
+    /* ====================== Оценочный лист ====================== */
+
+    /**
+     * Отметка оценки в оценочном листе: запоминается в сессии, сообщение не редактируется —
+     * выбор подтверждается всплывающим уведомлением в ответе на нажатие.
+     */
+    private String markScore(UserSession session, EvaluationFlow flow, long token) {
+        var template = flow.getTemplate();
+        int criterion = CallbackCommands.criterion(token);
+        int score = CallbackCommands.score(token);
+        session.getPendingScores()[criterion] = score;
+        return "✔ " + template.title(criterion) + ": " + score + " (" + progress(session, template) + ")";
+    }
+
+    private String markInvite(UserSession session, long token) {
+        boolean invite = CallbackCommands.invite(token);
+        session.setPendingInvite(invite);
+        return invite ? "✔ Пригласили" : "✔ Не пригласили";
+    }
+
+    /**
+     * «Отправить»: заполненный лист записывается одним голосом, незаполненный возвращается с подсказкой.
+     */
+    private String handleScorecardSubmit(
+            CandidateEvaluationBot bot,
+            Long chatId,
+            Integer pressedMessageId,
+            UserSession session,
+            Candidate candidate,
+            EvaluationFlow flow
+    ) {
+        var template = flow.getTemplate();
+        var scores = session.getPendingScores();
+        var missing = new StringJoiner(", ");
+        for (int c = 0; c < template.size(); c++) {
+            if (scores[c] == 0) {
+                missing.add(template.title(c));
+            }
         }
+        if (session.getPendingInvite() == null) {
+            missing.add("приглашение");
+        }
+        if (missing.length() > 0) {
+            botMetrics.countRejectedCallback("incomplete_scorecard");
+            return "Не заполнено: " + missing;
+        }
+        return completeVote(bot, chatId, pressedMessageId, session, candidate) ? "✅ Голос учтён" : null;
+    }
 
-        var session = userStateService.getOrCreateSession(chatId);
-        var candidateKey = session.getCandidateKey();
-        var tempMsgId = session.getTempMessageId();
+    private static String progress(UserSession session, EvaluationTemplate template) {
+        int filled = session.getPendingInvite() == null ? 0 : 1;
+        for (int score : session.getPendingScores()) {
+            if (score != 0) {
+                filled++;
+            }
+        }
+        return "заполнено " + filled + "/" + (template.size() + 1);
+    }
 
-        // Сохраняем голос
-        if (data.equals(CallbackCommands.INVITE_YES)) {
-            voteStatisticsService.addInviteYes(candidateKey);
-        } else {
-            voteStatisticsService.addInviteNo(candidateKey);
+    /* ====================== Завершение голосования ====================== */
+
+    /**
+     * Голосование завершено: накопленный в сессии голос учитывается одним событием,
+     * сессия сбрасывается, «временное» сообщение удаляется.
+     *
+     * @return true, если голос учтён (false — повтор или голос из прошлого раунда)
+     */
+    private boolean completeVote(
+            CandidateEvaluationBot bot,
+            Long chatId,
+            Integer pressedMessageId,
+            UserSession session,
+            Candidate candidate
+    ) {
+        var candidateKey = candidate.key();
+        var tempMsgId = tempMessageId(session, pressedMessageId);
+        var event = VoteEvent.of(chatId, candidateKey, session.getPendingRound(),
+                session.getPendingScores(), session.getPendingInvite());
+        var result = voteLedger.commit(event);
+        switch (result) {
+            case APPLIED -> botMetrics.countVote(candidateKey);
+            case DUPLICATE -> botMetrics.countRejectedCallback("duplicate_vote");
+            case STALE_ROUND -> botMetrics.countRejectedCallback("stale_round");
         }
-        // Помечаем, что пользователь проголосовал за этого кандидата
-        session.markVoted(candidateKey);
 
         // Завершение цикла голосования
         session.setState(UserState.START);
+        session.setStep(EvaluationFlow.START);
         session.setCandidateKey(null);
+        session.setNonce(0);
+        session.setPendingScores(null);
+        session.setPendingInvite(null);
 
         // (По желанию) показываем в «временном» сообщении итоги, а потом удаляем
         // Или можно сразу удалить без показа
         var stats = voteStatisticsService.getCandidateStatistics(candidateKey);
         var finalText = "✅ Голосование завершено!\n\n"
-                        + "Результаты по кандидату " + CandidateConstants.getCandidateName(candidateKey) + ":\n"
+                        + "Результаты по кандидату " + candidate.displayName() + ":\n"
                         + stats
                         + "\n\n(Сообщение сейчас исчезнет)";
 
-        // Редактируем текст итогового шага (без клавиатуры)
+        // Редактируем текст итогового шага (без клавиатуры).
+        // Если правка ещё не успела уйти, очередь отбросит её — сообщение всё равно удаляется следом
         bot.editMessage(chatId, tempMsgId, finalText, null);
 
         // Удаляем «временное» сообщение, чтобы «всё остальное» исчезло
@@ -263,5 +599,6 @@ public class DialogStateMachineService {
 
         // Если нужно – можем ничего больше не отправлять,
         // так как в чате остаётся только «главное меню» с именами и статистикой/архивом.
+        return result == VoteLedger.Result.APPLIED;
     }
 }
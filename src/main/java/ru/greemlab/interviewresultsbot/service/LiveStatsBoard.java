@@ -0,0 +1,267 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * «Живая» статистика: по /live в чат приходит одно закреплённое сообщение, которое дальше
+ * правится на месте, а не присылается заново.
+ * <p>
+ * Правки идут с одного потока-таймера: раз в app.live.tick-ms сводка перерисовывается один раз на все чаты
+ * (из кэша {@link VoteStatisticsService}, если голосов не было), и сообщение чата правится, только если
+ * текст отличается от показанного и с прошлой правки прошло не меньше app.live.min-interval-ms.
+ * Голоса между правками схлопываются в одну, поэтому на чат уходит не больше одной правки за интервал.
+ * Подписки хранятся в файле, чтобы закреплённые сообщения продолжали обновляться после перезапуска.
+ * Доска снимается, только когда Telegram отвечает, что её сообщения или чата больше нет;
+ * после сетевых и серверных ошибок правка повторяется на следующем интервале.
+ */
+@Slf4j
+@Service
+public class LiveStatsBoard {
+
+    private static final int FORBIDDEN = 403;
+
+    private static final class Board {
+        private final Integer messageId;
+        // Пишутся потоком-таймером (и до публикации доски в карте); завершение правки сбрасывает shownText
+        // до снятия флага editing, а таймер не трогает доску, пока флаг стоит
+        private String shownText;
+        private long shownAt;
+        private volatile boolean editing;
+
+        private Board(Integer messageId) {
+            this.messageId = messageId;
+        }
+    }
+
+    private record Rendered(String summary, String text) {
+    }
+
+    private final VoteStatisticsService voteStatisticsService;
+    // Бот сам зависит от диалога, а диалог — от доски, поэтому бот берётся при первой правке
+    private final ObjectProvider<CandidateEvaluationBot> botProvider;
+    private final Path file;
+    private final long minIntervalMs;
+    private final long tickMs;
+    private final String header;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private volatile Rendered rendered;
+    private ScheduledExecutorService ticker;
+
+    public LiveStatsBoard(
+            VoteStatisticsService voteStatisticsService,
+            ObjectProvider<CandidateEvaluationBot> botProvider,
+            @Value("${app.live.file:data/live-boards.txt}") Path file,
+            @Value("${app.live.min-interval-ms:10000}") long minIntervalMs,
+            @Value("${app.live.tick-ms:1000}") long tickMs
+    ) {
+        this.voteStatisticsService = voteStatisticsService;
+        this.botProvider = botProvider;
+        this.file = file;
+        this.minIntervalMs = minIntervalMs;
+        this.tickMs = tickMs;
+        this.header = "📡 Живая статистика (обновляется не чаще раза в "
+                      + Math.max(1, minIntervalMs / 1000) + " с, /live off — отключить)\n\n";
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            var parts = line.split(";", 2);
+            try {
+                // Текст после перезапуска неизвестен — первая же проверка поправит сообщение
+                boards.put(Long.parseLong(parts[0].trim()), new Board(Integer.parseInt(parts[1].trim())));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                log.warn("Пропущена некорректная строка подписок на живую статистику: {}", line);
+            }
+        }
+        log.info("Подписок на живую статистику: {}", boards.size());
+    }
+
+    /**
+     * Таймер стартует, когда журнал голосов уже восстановлен, иначе доски на миг показали бы пустую статистику.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("live-stats").daemon().factory());
+        ticker.scheduleWithFixedDelay(() -> tick(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public boolean isSubscribed(Long chatId) {
+        return boards.containsKey(chatId);
+    }
+
+    public int size() {
+        return boards.size();
+    }
+
+    /**
+     * Присылает и закрепляет сообщение живой статистики. Прежнее сообщение чата удаляется,
+     * так что повторный /live просто поднимает доску вниз чата; если два /live пришли подряд,
+     * удаляется и доска, которую вытеснила более поздняя.
+     */
+    public void subscribe(CandidateEvaluationBot bot, Long chatId) {
+        var previous = boards.remove(chatId);
+        if (previous != null) {
+            bot.deleteMessage(chatId, previous.messageId);
+        }
+        var text = render();
+        bot.sendTextMessage(chatId, text, null).thenAccept(messageId -> {
+            var board = new Board(messageId);
+            board.shownText = text;
+            board.shownAt = System.currentTimeMillis();
+            var replaced = boards.put(chatId, board);
+            if (replaced != null) {
+                bot.deleteMessage(chatId, replaced.messageId);
+            }
+            save();
+            bot.pinMessage(chatId, messageId).exceptionally(e -> {
+                // В группе без прав администратора закрепить нельзя — доска всё равно обновляется
+                log.warn("Не удалось закрепить живую статистику (chatId={}): {}", chatId, e.getMessage());
+                return false;
+            });
+        });
+    }
+
+    /**
+     * Отключает живую статистику чата и удаляет её сообщение (вместе с ним снимается и закрепление).
+     *
+     * @return false, если чат не был подписан
+     */
+    public boolean unsubscribe(CandidateEvaluationBot bot, Long chatId) {
+        var board = boards.remove(chatId);
+        if (board == null) {
+            return false;
+        }
+        save();
+        bot.deleteMessage(chatId, board.messageId);
+        return true;
+    }
+
+    /**
+     * Одна проверка всех досок: правит те, чей текст устарел и чей интервал между правками истёк.
+     */
+    void tick(long now) {
+        if (boards.isEmpty()) {
+            return;
+        }
+        var bot = botProvider.getIfAvailable();
+        if (bot == null) {
+            return;
+        }
+        var text = render();
+        boards.forEach((chatId, board) -> {
+            if (board.editing || now - board.shownAt < minIntervalMs || text.equals(board.shownText)) {
+                return;
+            }
+            board.editing = true;
+            board.shownText = text;
+            board.shownAt = now;
+            bot.editMessage(chatId, board.messageId, text, null).whenComplete((ok, e) -> {
+                var failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (failure == null || isNotModified(failure)) {
+                    // «Не изменено» — сообщение уже показывает этот текст (например, после перезапуска)
+                } else if (isGone(failure)) {
+                    log.warn("Живая статистика отключена (chatId={}): {}", chatId, failure.getMessage());
+                    if (boards.remove(chatId, board)) {
+                        save();
+                    }
+                } else {
+                    // Сеть или сервер Telegram: текст будет отправлен снова на следующем интервале
+                    log.warn("Не удалось обновить живую статистику (chatId={}): {}", chatId, failure.getMessage());
+                    board.shownText = null;
+                }
+                board.editing = false;
+            });
+        });
+    }
+
+    private static boolean isNotModified(Throwable failure) {
+        return failure instanceof TelegramApiRequestException e
+               && e.getApiResponse() != null && e.getApiResponse().contains("message is not modified");
+    }
+
+    /**
+     * Сообщения доски или самого чата больше нет: сообщение удалили, бота заблокировали или исключили из чата.
+     */
+    private static boolean isGone(Throwable failure) {
+        if (!(failure instanceof TelegramApiRequestException e)) {
+            return false;
+        }
+        if (e.getErrorCode() != null && e.getErrorCode() == FORBIDDEN) {
+            return true;
+        }
+        var description = e.getApiResponse();
+        return description != null
+               && (description.contains("message to edit not found") || description.contains("chat not found"));
+    }
+
+    /**
+     * Текст доски; пока сводка не изменилась (тот же объект из кэша статистики), берётся готовый.
+     */
+    private String render() {
+        var summary = voteStatisticsService.getAllCandidatesStatistics();
+        var cached = rendered;
+        if (cached == null || cached.summary() != summary) {
+            cached = new Rendered(summary, header + summary);
+            rendered = cached;
+        }
+        return cached.text();
+    }
+
+    private void save() {
+        fileLock.lock();
+        try {
+            var lines = new ArrayList<String>();
+            lines.add("# chatId;messageId");
+            boards.forEach((chatId, board) -> lines.add(chatId + ";" + board.messageId));
+            var parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            var tmp = parent.resolve(file.getFileName() + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Не удалось сохранить подписки на живую статистику: {}", e.getMessage());
+        } finally {
+            fileLock.unlock();
+        }
+    }
+}
@@ -1,21 +1,48 @@
 package ru.greemlab.interviewresultsbot.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+import ru.greemlab.interviewresultsbot.util.LongBitIndex;
+import ru.greemlab.interviewresultsbot.util.LongBitSetMap;
+import ru.greemlab.interviewresultsbot.util.LongIntPairSet;
+import ru.greemlab.interviewresultsbot.util.TimerWheel;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сессии пользователей (шаг диалога) и отметки «уже голосовал».
+ * <p>
+ * Сессия — временное состояние диалога: если чат молчит дольше app.sessions.idle-ttl-ms,
+ * она вытесняется по колесу таймеров и при следующем обращении создаётся заново.
+ * Отметки «голосовал» живут отдельно от сессий, в компактном индексе chatId → биты по id кандидатов
+ * (его восстанавливает журнал голосов), поэтому вытеснение их не теряет. При app.storage.mode=slab
+ * индекс — множество пар (chatId, id): память на отметку не растёт с числом кандидатов.
+ */
+@Slf4j
 @Service
 public class UserStateService {
 
+    /**
+     * Фаза диалога. Конкретный шаг голосования — номер шага в сессии
+     * (см. {@link ru.greemlab.interviewresultsbot.evaluation.EvaluationFlow}).
+     */
     public enum UserState {
         START,
-        WAITING_RESPONSIBILITY,
-        WAITING_INTEREST,
-        WAITING_RESULT_FOCUS,
-        WAITING_INVITE
+        SCORING,
+        WAITING_INVITE,
+        SCORECARD
     }
 
     @Getter
@@ -24,32 +51,97 @@ public class UserStateService {
         private UserState state = UserState.START;
         private String candidateKey;
 
-        // Для хранения, голосовал ли уже пользователь за конкретного кандидата
-        private final Map<String, Boolean> votedCandidates = new ConcurrentHashMap<>();
+        // Номер шага в сценарии голосования по шаблону кандидата (0 — выбор кандидата)
+        private int step;
 
-        // ID «временного» сообщения (с шагами голосования),
-        // чтобы редактировать/удалять его при необходимости
-        private Integer tempMessageId;
+        // Nonce текущего голосования: зашит в кнопки шагов, чтобы нажатия старых клавиатур отбрасывались
+        private int nonce;
 
-        public boolean hasVotedFor(String candidate) {
-            return votedCandidates.getOrDefault(candidate, false);
-        }
+        // Голос до завершения: оценки по индексам критериев (0 — не выбрана), решение о приглашении
+        // и раунд статистики, в котором голосование начато. В статистику попадает только целиком
+        private int[] pendingScores;
+        private Boolean pendingInvite;
+        private long pendingRound;
 
-        public void markVoted(String candidate) {
-            votedCandidates.put(candidate, true);
-        }
+        // ID «временного» сообщения (с шагами голосования),
+        // чтобы редактировать/удалять его при необходимости.
+        // Заполняется асинхронно, когда Telegram подтвердит отправку
+        private volatile Integer tempMessageId;
+
+        // Время последнего обращения — по нему решается, пора ли вытеснять сессию
+        @Setter(AccessLevel.NONE)
+        private volatile long lastAccessMillis;
     }
 
+    private final CandidateRegistry candidateRegistry;
+    private final long idleTtlMs;
+    private final long tickMs;
+
     private final Map<Long, UserSession> userSessions = new ConcurrentHashMap<>();
+    private final LongBitIndex votes;
+    private final TimerWheel<Long> expirations;
+
+    private ScheduledExecutorService evictor;
+
+    public UserStateService(
+            CandidateRegistry candidateRegistry,
+            @Value("${app.sessions.idle-ttl-ms:1800000}") long idleTtlMs,
+            @Value("${app.sessions.tick-ms:1000}") long tickMs,
+            @Value("${app.storage.mode:heap}") VoteStore.Mode storageMode
+    ) {
+        this.candidateRegistry = candidateRegistry;
+        this.idleTtlMs = idleTtlMs;
+        this.tickMs = tickMs;
+        this.votes = storageMode == VoteStore.Mode.SLAB ? new LongIntPairSet() : new LongBitSetMap();
+        this.expirations = new TimerWheel<>(512, tickMs, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("session-evictor").daemon().factory());
+        evictor.scheduleWithFixedDelay(() -> evictIdle(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
 
     public UserSession getOrCreateSession(Long chatId) {
-        return userSessions.computeIfAbsent(chatId, id -> new UserSession());
+        long now = System.currentTimeMillis();
+        // compute держит блокировку ключа, поэтому обращение не пересекается с вытеснением той же сессии
+        return userSessions.compute(chatId, (id, session) -> {
+            if (session == null) {
+                session = new UserSession();
+                expirations.schedule(id, now + idleTtlMs);
+            }
+            session.lastAccessMillis = now;
+            return session;
+        });
+    }
+
+    /**
+     * Та ли это сессия, что сейчас у чата (не вытеснена и не сброшена вместе со всеми).
+     */
+    public boolean isCurrentSession(Long chatId, UserSession session) {
+        return userSessions.get(chatId) == session;
     }
 
     public UserState getState(Long chatId) {
         return getOrCreateSession(chatId).getState();
     }
 
+    /**
+     * Текущий шаг диалога без создания сессии (START, если сессии нет).
+     */
+    public UserState peekState(Long chatId) {
+        var session = userSessions.get(chatId);
+        return session == null ? UserState.START : session.getState();
+    }
+
     public void setState(Long chatId, UserState state) {
         getOrCreateSession(chatId).setState(state);
     }
@@ -62,6 +154,38 @@ public class UserStateService {
         getOrCreateSession(chatId).setCandidateKey(candidateKey);
     }
 
+    /**
+     * Голосовал ли пользователь за кандидата.
+     */
+    public boolean hasVoted(long chatId, String candidateKey) {
+        var candidate = candidateRegistry.findByKey(candidateKey);
+        return candidate != null && votes.get(chatId, candidate.id());
+    }
+
+    /**
+     * Отметить, что пользователь проголосовал за кандидата.
+     *
+     * @return true, если отметки ещё не было — голос за этого кандидата первый
+     */
+    public boolean markVoted(long chatId, String candidateKey) {
+        var candidate = candidateRegistry.findByKey(candidateKey);
+        if (candidate == null) {
+            log.debug("Отметка о голосовании за неизвестного кандидата пропущена: {} (chatId={})", candidateKey, chatId);
+            return false;
+        }
+        return votes.set(chatId, candidate.id());
+    }
+
+    /**
+     * Снять отметку о голосовании за кандидата, поставленную голосом, который не удалось учесть.
+     */
+    public void unmarkVoted(long chatId, String candidateKey) {
+        var candidate = candidateRegistry.findByKey(candidateKey);
+        if (candidate != null) {
+            votes.unset(chatId, candidate.id());
+        }
+    }
+
     /**
      * Сбросить состояние конкретного пользователя (в START).
      */
@@ -70,14 +194,54 @@ public class UserStateService {
         if (session != null) {
             session.setState(UserState.START);
             session.setCandidateKey(null);
+            session.setStep(0);
+            session.setNonce(0);
+            session.setPendingScores(null);
+            session.setPendingInvite(null);
             session.setTempMessageId(null);
         }
     }
 
+    /**
+     * Забыть отметки «голосовал» за кандидата у всех пользователей (кандидат ушёл в архив).
+     */
+    public void forgetCandidate(String candidateKey) {
+        var candidate = candidateRegistry.findByKey(candidateKey);
+        if (candidate != null) {
+            votes.clearBit(candidate.id());
+        }
+    }
+
+    /**
+     * Снять все отметки «голосовал» (новый раунд собеседований); сессии остаются.
+     */
+    public void clearVotes() {
+        votes.clear();
+    }
+
     /**
      * Полный сброс всех сессий.
      */
     public void resetAllSessions() {
         userSessions.clear();
+        votes.clear();
+    }
+
+    public int getSessionCount() {
+        return userSessions.size();
+    }
+
+    /**
+     * Вытесняет сессии, к которым не обращались дольше idle-ttl.
+     * Сессии, которые успели «ожить», ставятся на новый срок.
+     */
+    void evictIdle(long now) {
+        expirations.advance(now, chatId -> {
+            var session = userSessions.computeIfPresent(chatId,
+                    (id, current) -> current.lastAccessMillis + idleTtlMs <= now ? null : current);
+            if (session != null) {
+                expirations.schedule(chatId, session.lastAccessMillis + idleTtlMs);
+            }
+        });
     }
 }
@@ -0,0 +1,63 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.greemlab.interviewresultsbot.cluster.ClusterNode;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+
+import java.util.Optional;
+
+/**
+ * Учёт завершённых голосов ровно один раз на (интервьюер, кандидат, раунд).
+ * <p>
+ * Оценки копятся в сессии и приходят сюда одним {@link VoteEvent}. Сначала ставится отметка «голосовал»
+ * (она же проверка на повтор), затем событие применяется к счётчикам и пишется в журнал;
+ * если раунд успел смениться и событие не применилось, отметка снимается.
+ * Брошенное на середине голосование ничего не оставляет в статистике, а повторное нажатие
+ * или повторная доставка того же голоса отбрасывается.
+ * В кластере голос сначала отмечается в общем хранилище: его не учтёт второй узел,
+ * даже если обновление дошло до обоих при смене владельца чата.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteLedger {
+
+    public enum Result {
+        /** Голос учтён */
+        APPLIED,
+        /** Интервьюер уже голосовал за кандидата в этом раунде */
+        DUPLICATE,
+        /** Голосование начато до сброса статистики */
+        STALE_ROUND
+    }
+
+    private final UserStateService userStateService;
+    private final VoteStatisticsService voteStatisticsService;
+    private final VoteJournal voteJournal;
+    private final Optional<ClusterNode> clusterNode;
+
+    public Result commit(VoteEvent event) {
+        if (event.round() != voteStatisticsService.getRound()) {
+            return Result.STALE_ROUND;
+        }
+        if (clusterNode.isPresent() && !clusterNode.get().claimVote(event)) {
+            log.debug("Голос уже учтён другим узлом: {} (chatId={})", event.candidateKey(), event.chatId());
+            return Result.DUPLICATE;
+        }
+        if (!userStateService.markVoted(event.chatId(), event.candidateKey())) {
+            log.debug("Повторный голос отброшен: {} (chatId={})", event.candidateKey(), event.chatId());
+            return Result.DUPLICATE;
+        }
+        if (!voteStatisticsService.apply(event)) {
+            // Раунд сменился между проверкой и отметкой: /new_round или /restart уже стёр отметки,
+            // и поставленная сейчас относится к новому раунду — без неё интервьюер сможет проголосовать в нём
+            userStateService.unmarkVoted(event.chatId(), event.candidateKey());
+            return Result.STALE_ROUND;
+        }
+        voteJournal.appendVote(event);
+        return Result.APPLIED;
+    }
+}
@@ -1,109 +1,297 @@
 package ru.greemlab.interviewresultsbot.service;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.stats.RankingIndex;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+import ru.greemlab.interviewresultsbot.stats.VoteBuckets;
+import ru.greemlab.interviewresultsbot.stats.VoteCounters;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * Сервис сбора и анализа статистики по кандидатам.
+ * <p>
+ * Кроме итогов за всё время у кандидата есть кольца корзин по дням и по раундам собеседований
+ * ({@link VoteBuckets}): «последние N дней», «этот раунд» и тренд собираются слиянием готовых корзин.
+ * Новый раунд (/new_round) лишь открывает следующую корзину — итоги и прошлые раунды сохраняются.
+ * В кластере чужие голоса подмешиваются только в итоги: окна считаются по голосам своего узла.
+ * Счётчики и корзины лежат в хранилище app.storage.mode: объекты в куче или общие массивы long
+ * ({@link VoteStore.Mode}).
+ * Рейтинг кандидатов ({@link RankingIndex}) обновляется вместе со счётчиками, а не сортируется на каждый запрос.
  */
 @Service
+@RequiredArgsConstructor
 public class VoteStatisticsService {
 
     /**
-     * Вложенный класс: хранит суммарные оценки и счётчики.
+     * Вложенный класс: хранит оценки и счётчики приглашений кандидата.
+     * Данные лежат в {@link VoteCounters} из {@link VoteStore}: гистограммы оценок по каждому критерию шаблона,
+     * из которых выводятся и суммы, и число голосов, и медианы.
+     * <p>
+     * В кластере к своим счётчикам прибавляется сумма счётчиков остальных узлов
+     * (см. {@link ru.greemlab.interviewresultsbot.cluster.ClusterNode}); свои голоса узел хранит отдельно,
+     * потому что только их он публикует и пишет в журнал.
      */
     public static class CandidateStats {
-        private final AtomicInteger totalResponsibility = new AtomicInteger(0);
-        private final AtomicInteger countResponsibility = new AtomicInteger(0);
+        private final EvaluationTemplate template;
+        private final VoteCounters accumulator;
+        private volatile StatsSnapshot remote;
+        // Корзины по дням и раундам; null — кандидат без истории (примеры архива)
+        private final VoteBuckets days;
+        private final VoteBuckets rounds;
 
-        private final AtomicInteger totalInterest = new AtomicInteger(0);
-        private final AtomicInteger countInterest = new AtomicInteger(0);
-
-        private final AtomicInteger totalResultFocus = new AtomicInteger(0);
-        private final AtomicInteger countResultFocus = new AtomicInteger(0);
-
-        private final AtomicInteger yesCount = new AtomicInteger(0);
-        private final AtomicInteger noCount = new AtomicInteger(0);
+        public CandidateStats(EvaluationTemplate template) {
+            this(template, 0, 0, VoteStore.HEAP_STORE);
+        }
 
-        public void addResponsibility(int score) {
-            totalResponsibility.addAndGet(score);
-            countResponsibility.incrementAndGet();
+        public CandidateStats(EvaluationTemplate template, int daysRetained, int roundsRetained, VoteStore store) {
+            this.template = template;
+            this.accumulator = store.counters(template.size(), template.maxScore());
+            this.days = daysRetained > 0 ? store.buckets(daysRetained, template.size(), template.maxScore()) : null;
+            this.rounds = roundsRetained > 0 ? store.buckets(roundsRetained, template.size(), template.maxScore()) : null;
         }
 
-        public void addInterest(int score) {
-            totalInterest.addAndGet(score);
-            countInterest.incrementAndGet();
+        /**
+         * Оценка score по критерию с индексом criterion из шаблона кандидата.
+         */
+        public void addScore(int criterion, int score) {
+            accumulator.record(criterion, score);
         }
 
-        public void addResultFocus(int score) {
-            totalResultFocus.addAndGet(score);
-            countResultFocus.incrementAndGet();
+        /**
+         * Голос целиком в итоги и в корзины его дня и раунда.
+         */
+        public void addVote(int[] scores, boolean invite, long day, long round) {
+            accumulator.recordVote(scores, invite);
+            if (days != null) {
+                days.recordVote(day, scores, invite);
+            }
+            if (rounds != null) {
+                rounds.recordVote(round, scores, invite);
+            }
         }
 
         public void addInviteYes() {
-            yesCount.incrementAndGet();
+            accumulator.recordInvite(true);
         }
 
         public void addInviteNo() {
-            noCount.incrementAndGet();
+            accumulator.recordInvite(false);
+        }
+
+        /**
+         * Прибавляет сохранённые ранее счётчики (восстановление после перезапуска).
+         * Снимок другой формы (шаблон изменился) приводится к форме шаблона.
+         */
+        public void restore(StatsSnapshot saved) {
+            accumulator.add(saved.reshape(accumulator.getCriteria(), accumulator.getMaxScore()));
+        }
+
+        /**
+         * Согласованный снимок всех счётчиков кандидата.
+         */
+        public StatsSnapshot snapshot() {
+            var others = remote;
+            return others == null ? accumulator.snapshot() : accumulator.snapshot().plus(others);
+        }
+
+        public EvaluationTemplate getTemplate() {
+            return template;
+        }
+
+        /**
+         * Снимок только голосов, учтённых этим узлом.
+         */
+        public StatsSnapshot localSnapshot() {
+            return accumulator.snapshot();
+        }
+
+        public long version() {
+            var others = remote;
+            return others == null ? accumulator.version() : accumulator.version() + others.getVersion();
+        }
+
+        /**
+         * Отдаёт память счётчиков и корзин хранилищу (кандидат убран из статистики).
+         */
+        void release() {
+            accumulator.release();
+            if (days != null) {
+                days.release();
+            }
+            if (rounds != null) {
+                rounds.release();
+            }
+        }
+
+        /**
+         * Заменяет сумму счётчиков остальных узлов. Версия суммы должна расти от замены к замене.
+         */
+        void setRemote(StatsSnapshot others) {
+            remote = others == null ? null : others.reshape(accumulator.getCriteria(), accumulator.getMaxScore());
         }
 
         public String getStatsText() {
-            return String.format(
-                    """
-                    
-                    📈 Статистика:
-                    
-                    Ответственность: %s
-                    Интерес: %s
-                    Результативность: %s
-                    
-                    Приглашения: ✅ %d | ❌ %d
-                    """,
-                    formatScore(countResponsibility.get(), totalResponsibility.get()),
-                    formatScore(countInterest.get(), totalInterest.get()),
-                    formatScore(countResultFocus.get(), totalResultFocus.get()),
-                    yesCount.get(), noCount.get()
-            );
-        }
-
-        private String formatScore(int count, int total) {
+            return formatStats(snapshot(), template);
+        }
+
+        static String formatStats(StatsSnapshot snapshot, EvaluationTemplate template) {
+            var sb = new StringBuilder(64 + 48 * snapshot.getCriteria()).append("\n📈 Статистика:\n\n");
+            for (int c = 0; c < snapshot.getCriteria(); c++) {
+                sb.append(template.title(c)).append(": ").append(formatScore(snapshot, c)).append('\n');
+            }
+            return sb.append("\nПриглашения: ✅ ").append(snapshot.getInviteYes())
+                    .append(" | ❌ ").append(snapshot.getInviteNo()).append('\n')
+                    .toString();
+        }
+
+        private static String formatScore(StatsSnapshot snapshot, int criterion) {
+            long count = snapshot.getCount(criterion);
             if (count == 0) {
                 return "нет оценок";
             }
-            double avg = (double) total / count;
-            return String.format("%.2f (голосов: %d)", avg, count);
+            return String.format("%.2f (голосов: %d)", snapshot.getAverage(criterion), count);
         }
     }
 
+    private static final String SUMMARY_HEADER = "📊 Текущая статистика:\n\n";
+    private static final DateTimeFormatter TREND_DATE = DateTimeFormatter.ofPattern("dd.MM");
+
+    /**
+     * Отрисованный текст кандидата и версия счётчиков, с которой он снят.
+     */
+    private record RenderedStats(CandidateStats source, long version, String text, String fragment) {
+    }
+
+    /**
+     * Собранная сводка и фрагменты, из которых она собрана.
+     */
+    private record RenderedSummary(List<RenderedStats> parts, String text) {
+    }
+
+    private final CandidateRegistry candidateRegistry;
+    private final EvaluationTemplates evaluationTemplates;
+
     private final Map<String, CandidateStats> statsMap = new ConcurrentHashMap<>();
+    private final Map<String, RenderedStats> renderedStats = new ConcurrentHashMap<>();
+    private volatile RenderedSummary renderedSummary;
+    private final AtomicLong round = new AtomicLong();
+    private final RankingIndex ranking = new RankingIndex();
+    // Растёт при удалении кандидатов: версии счётчиков заново созданного кандидата снова начинаются с нуля
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${app.stats.days-retained:35}")
+    private int daysRetained = 35;
+    @Value("${app.stats.rounds-retained:8}")
+    private int roundsRetained = 8;
+    @Value("${app.stats.zone:Europe/Moscow}")
+    private ZoneId zone = ZoneId.of("Europe/Moscow");
+    private VoteStore voteStore = VoteStore.HEAP_STORE;
+    // Версии сумм чужих счётчиков: растут с каждой заменой и начинаются далеко выше версий своих счётчиков,
+    // поэтому версия кандидата меняется и при замене суммы, и при её удалении
+    private final AtomicLong remoteVersion = new AtomicLong(1L << 40);
+
+    /**
+     * Хранилище счётчиков (app.storage.mode); меняется только до первого голоса.
+     */
+    @Value("${app.storage.mode:heap}")
+    public void setStorageMode(VoteStore.Mode mode) {
+        if (!statsMap.isEmpty()) {
+            throw new IllegalStateException("Хранилище счётчиков меняется только до первого голоса");
+        }
+        voteStore = mode.newStore();
+    }
 
     /**
      * Сброс всей статистики (например, при /restart).
      */
     public void resetStatistic() {
-        statsMap.clear();
+        round.incrementAndGet();
+        generation.incrementAndGet();
+        for (var key : statsMap.keySet()) {
+            var removed = statsMap.remove(key);
+            if (removed != null) {
+                removed.release();
+            }
+        }
+        ranking.clear();
+        renderedStats.clear();
+        renderedSummary = null;
+    }
+
+    /**
+     * Закрывает раунд собеседований: следующие голоса попадают в корзину нового раунда,
+     * и интервьюеры могут снова голосовать за тех же кандидатов. Итоги и прошлые раунды не трогаются.
+     *
+     * @return номер нового раунда
+     */
+    public long closeRound() {
+        return round.incrementAndGet();
+    }
+
+    /**
+     * Убирает кандидата из текущей статистики (перенос в архив).
+     */
+    public void remove(String candidateKey) {
+        var removed = statsMap.remove(candidateKey);
+        if (removed != null) {
+            generation.incrementAndGet();
+            removed.release();
+        }
+        ranking.remove(candidateKey);
+        renderedStats.remove(candidateKey);
+        renderedSummary = null;
     }
 
     /**
      * Статистика по всем кандидатам.
+     * Собирается из закэшированных фрагментов; если ни один кандидат не изменился,
+     * возвращается ранее собранная строка целиком.
      */
     public String getAllCandidatesStatistics() {
         if (statsMap.isEmpty()) {
             return "📭 Нет данных о голосованиях";
         }
-        StringBuilder sb = new StringBuilder("📊 Текущая статистика:\n\n");
-        statsMap.forEach((candidateKey, stats) -> {
-            sb.append("👤 Кандидат: ")
-                    .append(CandidateConstants.getCandidateName(candidateKey))
-                    .append("\n")
-                    .append(stats.getStatsText())
-                    .append("\n\n");
-        });
-        return sb.toString();
+        var previous = renderedSummary;
+        var fragments = new ArrayList<RenderedStats>(statsMap.size());
+        boolean unchanged = previous != null;
+        for (var entry : statsMap.entrySet()) {
+            var fragment = rendered(entry.getKey(), entry.getValue());
+            int index = fragments.size();
+            unchanged = unchanged && index < previous.parts().size() && previous.parts().get(index) == fragment;
+            fragments.add(fragment);
+        }
+        if (unchanged && fragments.size() == previous.parts().size()) {
+            return previous.text();
+        }
+        int length = SUMMARY_HEADER.length();
+        for (var fragment : fragments) {
+            length += fragment.fragment().length();
+        }
+        var sb = new StringBuilder(length).append(SUMMARY_HEADER);
+        for (var fragment : fragments) {
+            sb.append(fragment.fragment());
+        }
+        var summary = new RenderedSummary(fragments, sb.toString());
+        renderedSummary = summary;
+        return summary.text();
     }
 
     /**
@@ -114,33 +302,359 @@ public class VoteStatisticsService {
         if (stats == null) {
             return "Статистика отсутствует.";
         }
-        return stats.getStatsText();
+        return rendered(candidateKey, stats).text();
+    }
+
+    /**
+     * Согласованный снимок счётчиков кандидата или null, если голосов ещё не было.
+     */
+    public StatsSnapshot getSnapshot(String candidateKey) {
+        CandidateStats stats = statsMap.get(candidateKey);
+        return stats == null ? null : stats.snapshot();
+    }
+
+    /**
+     * Текст статистики кандидата из кэша; перерисовывается, только если изменилась версия его счётчиков.
+     */
+    private RenderedStats rendered(String candidateKey, CandidateStats stats) {
+        var cached = renderedStats.get(candidateKey);
+        if (cached != null && cached.source() == stats && cached.version() == stats.version()) {
+            return cached;
+        }
+        var snapshot = stats.snapshot();
+        var text = CandidateStats.formatStats(snapshot, stats.template);
+        var fresh = new RenderedStats(stats, snapshot.getVersion(), text,
+                "👤 Кандидат: " + candidateRegistry.getDisplayName(candidateKey) + "\n" + text + "\n\n");
+        renderedStats.put(candidateKey, fresh);
+        return fresh;
     }
 
     /**
      * Возвращает (или создаёт) объект статистики по кандидату.
      */
     private CandidateStats getOrCreate(String candidateKey) {
-        return statsMap.computeIfAbsent(candidateKey, k -> new CandidateStats());
+        return statsMap.computeIfAbsent(candidateKey, k -> new CandidateStats(templateOf(k), daysRetained, roundsRetained, voteStore));
+    }
+
+    private EvaluationTemplate templateOf(String candidateKey) {
+        var candidate = candidateRegistry.findByKey(candidateKey);
+        return evaluationTemplates.get(candidate == null ? null : candidate.template());
+    }
+
+    /**
+     * Восстанавливает счётчики кандидата из журнала голосов.
+     */
+    public void restore(String candidateKey, StatsSnapshot saved) {
+        var stats = getOrCreate(candidateKey);
+        stats.restore(saved);
+        reindex(candidateKey, stats);
+    }
+
+    /**
+     * Все кандидаты текущей статистики (обход без копирования карты).
+     */
+    public void forEachCandidate(BiConsumer<String, CandidateStats> consumer) {
+        statsMap.forEach(consumer);
+    }
+
+    /**
+     * Свои (без счётчиков других узлов) снимки всех кандидатов текущей статистики.
+     */
+    public void forEachLocal(BiConsumer<String, StatsSnapshot> consumer) {
+        statsMap.forEach((key, stats) -> consumer.accept(key, stats.localSnapshot()));
+    }
+
+    /**
+     * Подставляет сумму счётчиков кандидата на остальных узлах кластера.
+     * Снимки другой формы (шаблон на узле настроен иначе) приводятся к шаблону кандидата.
+     *
+     * @param others снимки остальных узлов; пустой список убирает чужие голоса
+     */
+    public void mergeRemote(String candidateKey, List<StatsSnapshot> others) {
+        if (others.isEmpty() && !statsMap.containsKey(candidateKey)) {
+            return;
+        }
+        var stats = getOrCreate(candidateKey);
+        int criteria = stats.accumulator.getCriteria();
+        int maxScore = stats.accumulator.getMaxScore();
+        StatsSnapshot sum = new StatsSnapshot(new long[criteria][maxScore], 0, 0, remoteVersion.incrementAndGet());
+        for (var snapshot : others) {
+            sum = sum.plus(snapshot.reshape(criteria, maxScore));
+        }
+        stats.setRemote(others.isEmpty() ? null : sum);
+        reindex(candidateKey, stats);
+    }
+
+    /**
+     * Восстанавливает корзину дня day (номер дня от эпохи в часовом поясе статистики).
+     */
+    public void restoreDay(String candidateKey, long day, StatsSnapshot saved) {
+        var stats = getOrCreate(candidateKey);
+        if (stats.days != null) {
+            stats.days.add(day, saved);
+        }
+    }
+
+    /**
+     * Восстанавливает корзину раунда собеседований.
+     */
+    public void restoreRoundBucket(String candidateKey, long roundId, StatsSnapshot saved) {
+        var stats = getOrCreate(candidateKey);
+        if (stats.rounds != null) {
+            stats.rounds.add(roundId, saved);
+        }
+    }
+
+    /**
+     * Восстанавливает номер текущего раунда из журнала: номера корзин раундов не должны повторяться.
+     */
+    public void restoreRound(long value) {
+        round.set(value);
+    }
+
+    /**
+     * Поколение статистики: вместе с версиями счётчиков однозначно задаёт её содержимое
+     * (в пределах поколения версии одного кандидата не повторяются).
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Счётчики кандидата или null, если голосов ещё не было.
+     */
+    public CandidateStats getStats(String candidateKey) {
+        return statsMap.get(candidateKey);
+    }
+
+    public int getDaysRetained() {
+        return daysRetained;
+    }
+
+    public int getRoundsRetained() {
+        return roundsRetained;
+    }
+
+    /**
+     * Номер дня (от эпохи) для момента времени в часовом поясе статистики.
+     */
+    public long dayOf(long timestampMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestampMillis), zone).toEpochDay();
     }
 
-    public void addResponsibility(String candidateKey, int score) {
-        getOrCreate(candidateKey).addResponsibility(score);
+    /**
+     * Текущий раунд статистики: голос, начатый в прошлом раунде (до /restart), не учитывается.
+     */
+    public long getRound() {
+        return round.get();
+    }
+
+    /**
+     * Применяет событие голоса к счётчикам кандидата одной записью:
+     * читатели статистики видят голос либо целиком, либо никак.
+     * Повторы отсекает {@link VoteLedger} — здесь проверяется только раунд.
+     *
+     * @return false, если голос начат в прошлом раунде и не учтён
+     */
+    public boolean apply(VoteEvent event) {
+        if (event.round() != round.get()) {
+            return false;
+        }
+        var stats = getOrCreate(event.candidateKey());
+        stats.addVote(Arrays.copyOf(event.scores(), stats.accumulator.getCriteria()), event.invite(),
+                dayOf(event.timestamp()), event.round());
+        reindex(event.candidateKey(), stats);
+        return true;
+    }
+
+    /* ====================== Рейтинг ====================== */
+
+    public RankingIndex getRanking() {
+        return ranking;
     }
 
-    public void addInterest(String candidateKey, int score) {
-        getOrCreate(candidateKey).addInterest(score);
+    /**
+     * Первые limit кандидатов рейтинга.
+     */
+    public String getTopStatistics(int limit) {
+        var top = ranking.top(1, limit);
+        if (top.isEmpty()) {
+            return "📭 Нет данных о голосованиях";
+        }
+        var sb = new StringBuilder("🏆 Рейтинг (всего кандидатов: ").append(ranking.size()).append("):\n\n");
+        appendRanking(sb, top, 1);
+        return sb.toString();
     }
 
-    public void addResultFocus(String candidateKey, int score) {
-        getOrCreate(candidateKey).addResultFocus(score);
+    /**
+     * Кандидаты со сводным баллом не ниже minPercent процентов.
+     */
+    public String getRankingAtLeast(int minPercent, int limit) {
+        var passed = ranking.atLeast(minPercent / 100.0, limit);
+        if (passed.isEmpty()) {
+            return "📭 Нет кандидатов с баллом от " + minPercent + "%";
+        }
+        var sb = new StringBuilder("🎯 Балл от ").append(minPercent).append("%:\n\n");
+        appendRanking(sb, passed, 1);
+        return sb.toString();
     }
 
-    public void addInviteYes(String candidateKey) {
-        getOrCreate(candidateKey).addInviteYes();
+    /**
+     * Место кандидата в рейтинге и его соседи сверху и снизу.
+     */
+    public String getCandidateRank(String candidateKey) {
+        int rank = ranking.rank(candidateKey);
+        if (rank == 0) {
+            return "📭 Кандидата " + candidateRegistry.getDisplayName(candidateKey) + " нет в рейтинге";
+        }
+        var sb = new StringBuilder("📍 ").append(candidateRegistry.getDisplayName(candidateKey))
+                .append(" — место ").append(rank).append(" из ").append(ranking.size()).append(":\n\n");
+        int from = Math.max(1, rank - 1);
+        appendRanking(sb, ranking.top(from, 3), from);
+        return sb.toString();
     }
 
-    public void addInviteNo(String candidateKey) {
-        getOrCreate(candidateKey).addInviteNo();
+    /**
+     * Сводный балл 0..1: среднее по оценённым критериям, где средняя оценка приведена к шкале критерия
+     * (1 — 0, максимум шкалы — 1), поэтому критерии с разными шкалами весят одинаково.
+     */
+    static RankingIndex.Entry rankingEntry(String candidateKey, StatsSnapshot snapshot, EvaluationTemplate template) {
+        double sum = 0;
+        int rated = 0;
+        for (int c = 0; c < snapshot.getCriteria() && c < template.size(); c++) {
+            if (snapshot.getCount(c) > 0) {
+                int scale = template.criteria().get(c).maxScore();
+                sum += (snapshot.getAverage(c) - 1) / (scale - 1);
+                rated++;
+            }
+        }
+        long votes = snapshot.getInviteYes() + snapshot.getInviteNo();
+        return new RankingIndex.Entry(candidateKey, rated == 0 ? 0 : sum / rated,
+                votes == 0 ? 0 : (double) snapshot.getInviteYes() / votes, votes, snapshot.getVersion());
+    }
+
+    private void reindex(String candidateKey, CandidateStats stats) {
+        var snapshot = stats.snapshot();
+        // Кандидат, убранный из статистики параллельно с голосом, в рейтинг не возвращается
+        if (statsMap.get(candidateKey) == stats) {
+            ranking.update(rankingEntry(candidateKey, snapshot, stats.template));
+        }
+    }
+
+    private void appendRanking(StringBuilder sb, List<RankingIndex.Entry> entries, int firstRank) {
+        int rank = firstRank;
+        for (var entry : entries) {
+            sb.append(rank++).append(". ").append(candidateRegistry.getDisplayName(entry.candidateKey()))
+                    .append(String.format(" — %.0f%% (✅ %.0f%%, голосов: %d)",
+                            entry.score() * 100, entry.inviteRatio() * 100, entry.votes()))
+                    .append('\n');
+        }
+    }
+
+    /* ====================== Окна: дни, раунды, тренд ====================== */
+
+    /**
+     * Счётчики кандидата за последние days дней (включая сегодня) или null, если кандидата нет.
+     */
+    public StatsSnapshot getDaysSnapshot(String candidateKey, int days) {
+        var stats = statsMap.get(candidateKey);
+        if (stats == null || stats.days == null) {
+            return null;
+        }
+        long today = dayOf(System.currentTimeMillis());
+        return stats.days.merge(today - days + 1, today);
+    }
+
+    /**
+     * Счётчики кандидата за раунд roundId или null, если раунд уже вытеснен из кольца.
+     */
+    public StatsSnapshot getRoundSnapshot(String candidateKey, long roundId) {
+        var stats = statsMap.get(candidateKey);
+        return stats == null || stats.rounds == null ? null : stats.rounds.bucket(roundId);
+    }
+
+    /**
+     * Статистика всех кандидатов за последние days дней.
+     */
+    public String getWindowStatistics(int days) {
+        var sb = new StringBuilder("📊 Статистика за последние ").append(days).append(" дн.:\n\n");
+        int before = sb.length();
+        statsMap.forEach((key, stats) -> appendWindow(sb, key, stats, getDaysSnapshot(key, days)));
+        return sb.length() == before ? "📭 Нет голосов за последние " + days + " дн." : sb.toString();
+    }
+
+    /**
+     * Статистика всех кандидатов за раунд собеседований roundId.
+     */
+    public String getRoundStatistics(long roundId) {
+        var sb = new StringBuilder("📊 Статистика раунда ").append(roundId).append(":\n\n");
+        int before = sb.length();
+        statsMap.forEach((key, stats) -> appendWindow(sb, key, stats, getRoundSnapshot(key, roundId)));
+        return sb.length() == before ? "📭 Нет голосов в раунде " + roundId : sb.toString();
+    }
+
+    /**
+     * Тренд за последние days дней: средний балл кандидата по всем критериям по дням с голосами.
+     */
+    public String getTrend(int days) {
+        long today = dayOf(System.currentTimeMillis());
+        var sb = new StringBuilder("📈 Тренд за последние ").append(days).append(" дн. (средний балл, голосов):\n\n");
+        int before = sb.length();
+        statsMap.forEach((key, stats) -> {
+            if (stats.days == null) {
+                return;
+            }
+            var line = new StringBuilder();
+            double first = Double.NaN;
+            double last = Double.NaN;
+            for (long day = today - days + 1; day <= today; day++) {
+                var bucket = stats.days.bucket(day);
+                long count = bucket == null ? 0 : totalCount(bucket);
+                if (count == 0) {
+                    continue;
+                }
+                double average = (double) totalSum(bucket) / count;
+                first = Double.isNaN(first) ? average : first;
+                last = average;
+                line.append(TREND_DATE.format(LocalDate.ofEpochDay(day)))
+                        .append(String.format(" %.2f (%d)", average, bucket.getInviteYes() + bucket.getInviteNo())).append("; ");
+            }
+            if (!line.isEmpty()) {
+                sb.append("👤 ").append(candidateRegistry.getDisplayName(key)).append(' ').append(arrow(first, last))
+                        .append('\n').append(line, 0, line.length() - 2).append("\n\n");
+            }
+        });
+        return sb.length() == before ? "📭 Нет голосов за последние " + days + " дн." : sb.toString();
+    }
+
+    private void appendWindow(StringBuilder sb, String candidateKey, CandidateStats stats, StatsSnapshot window) {
+        if (window == null || totalCount(window) == 0 && window.getInviteYes() + window.getInviteNo() == 0) {
+            return;
+        }
+        sb.append("👤 Кандидат: ").append(candidateRegistry.getDisplayName(candidateKey)).append('\n')
+                .append(CandidateStats.formatStats(window, stats.template)).append("\n\n");
+    }
+
+    private static long totalCount(StatsSnapshot snapshot) {
+        long count = 0;
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            count += snapshot.getCount(c);
+        }
+        return count;
+    }
+
+    private static long totalSum(StatsSnapshot snapshot) {
+        long sum = 0;
+        for (int c = 0; c < snapshot.getCriteria(); c++) {
+            sum += snapshot.getSum(c);
+        }
+        return sum;
+    }
+
+    private static String arrow(double first, double last) {
+        if (last - first > 0.05) {
+            return "↗";
+        }
+        return first - last > 0.05 ? "↘" : "→";
     }
 }
@@ -0,0 +1,91 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцо последних capacity корзин счётчиков одного кандидата: корзина — день или раунд собеседований.
+ * <p>
+ * Корзина с номером id лежит в ячейке id % capacity. Голос с номером новее, чем в ячейке,
+ * вытесняет старую корзину (CAS), голос старше окна отбрасывается. Внутри корзины —
+ * тот же {@link ScoreAccumulator}, поэтому голос попадает в корзину целиком.
+ * Запрос «за последние N» сливает не больше capacity готовых корзин — O(корзин), а не O(голосов).
+ */
+public final class BucketRing implements VoteBuckets {
+
+    private record Bucket(long id, ScoreAccumulator counters) {
+    }
+
+    private final int capacity;
+    private final int criteria;
+    private final int maxScore;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public BucketRing(int capacity, int criteria, int maxScore) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость кольца должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.criteria = criteria;
+        this.maxScore = maxScore;
+        this.buckets = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getCriteria() {
+        return criteria;
+    }
+
+    @Override
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    @Override
+    public void recordVote(long id, int[] scores, Boolean invite) {
+        var counters = counters(id);
+        if (counters != null) {
+            counters.recordVote(scores, invite);
+        }
+    }
+
+    @Override
+    public void add(long id, StatsSnapshot delta) {
+        var counters = counters(id);
+        if (counters != null) {
+            counters.add(delta.reshape(criteria, maxScore));
+        }
+    }
+
+    @Override
+    public StatsSnapshot bucket(long id) {
+        var bucket = buckets.get(index(id));
+        return bucket == null || bucket.id() != id ? null : bucket.counters().snapshot();
+    }
+
+    private ScoreAccumulator counters(long id) {
+        int index = index(id);
+        while (true) {
+            var current = buckets.get(index);
+            if (current != null && current.id() == id) {
+                return current.counters();
+            }
+            if (current != null && current.id() > id) {
+                // Голос старше окна: его корзина уже вытеснена
+                return null;
+            }
+            var fresh = new Bucket(id, new ScoreAccumulator(criteria, maxScore));
+            if (buckets.compareAndSet(index, current, fresh)) {
+                return fresh.counters();
+            }
+        }
+    }
+
+    private int index(long id) {
+        return (int) Math.floorMod(id, (long) capacity);
+    }
+}
@@ -0,0 +1,272 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинг кандидатов: дерево порядковых статистик (декартово дерево с размерами поддеревьев),
+ * упорядоченное по сводному баллу, затем по доле «пригласить», затем по ключу кандидата.
+ * <p>
+ * Запись кандидата обновляется при каждом его голосе за O(log n), поэтому «первые N» отдаются
+ * за O(log n + N), место кандидата — за O(log n), а весь список не сортируется на каждый запрос.
+ * Обновления с версией счётчиков старше уже учтённой отбрасываются: голоса одного кандидата
+ * могут применяться параллельно, и более поздний снимок не должен затираться ранним.
+ */
+public final class RankingIndex {
+
+    /**
+     * Место в рейтинге.
+     *
+     * @param score       сводный балл 0..1: среднее по критериям, каждый приведён к своей шкале
+     * @param inviteRatio доля голосов «пригласить» среди решений (0, если решений нет)
+     * @param votes       число голосов с решением о приглашении
+     * @param version     версия счётчиков, с которой снята запись
+     */
+    public record Entry(String candidateKey, double score, double inviteRatio, long votes, long version) {
+    }
+
+    static final Comparator<Entry> BEST_FIRST = Comparator
+            .comparingDouble(Entry::score).reversed()
+            .thenComparing(Comparator.comparingDouble(Entry::inviteRatio).reversed())
+            .thenComparing(Entry::candidateKey);
+
+    private static final class Node {
+        private final Entry entry;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Entry entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Node root;
+
+    /**
+     * Ставит кандидата на место по новой записи (или обновляет запись на месте).
+     */
+    public void update(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            var current = entries.get(entry.candidateKey());
+            if (current != null) {
+                if (current.version() > entry.version()) {
+                    return;
+                }
+                root = delete(root, current);
+            }
+            entries.put(entry.candidateKey(), entry);
+            root = insert(root, new Node(entry, ThreadLocalRandom.current().nextInt()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String candidateKey) {
+        lock.writeLock().lock();
+        try {
+            var current = entries.remove(candidateKey);
+            if (current != null) {
+                root = delete(root, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            root = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Entry get(String candidateKey) {
+        lock.readLock().lock();
+        try {
+            return entries.get(candidateKey);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Место кандидата с 1 или 0, если кандидата в рейтинге нет.
+     */
+    public int rank(String candidateKey) {
+        lock.readLock().lock();
+        try {
+            var entry = entries.get(candidateKey);
+            if (entry == null) {
+                return 0;
+            }
+            int before = 0;
+            var node = root;
+            while (node != null) {
+                int cmp = BEST_FIRST.compare(entry, node.entry);
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    before += size(node.left);
+                    if (cmp == 0) {
+                        return before + 1;
+                    }
+                    before++;
+                    node = node.right;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Лучшие limit кандидатов, начиная с места from (с 1).
+     */
+    public List<Entry> top(int from, int limit) {
+        return range(from, limit, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Кандидаты со сводным баллом не ниже minScore, лучшие первыми, не больше limit.
+     */
+    public List<Entry> atLeast(double minScore, int limit) {
+        return range(1, limit, minScore);
+    }
+
+    private List<Entry> range(int from, int limit, double minScore) {
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Entry>(Math.max(0, Math.min(limit, entries.size())));
+            if (limit > 0 && from >= 1) {
+                collect(root, from - 1, limit, minScore, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Обход по порядку с пропуском skip первых записей: поддеревья, целиком лежащие до skip,
+     * не посещаются, поэтому обход стоит O(log n + limit).
+     *
+     * @return false, если обход пора прекратить
+     */
+    private static boolean collect(Node node, int skip, int limit, double minScore, List<Entry> result) {
+        if (node == null) {
+            return true;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize && !collect(node.left, skip, limit, minScore, result)) {
+            return false;
+        }
+        if (skip <= leftSize) {
+            if (node.entry.score() < minScore || result.size() >= limit) {
+                return false;
+            }
+            result.add(node.entry);
+            if (result.size() >= limit) {
+                return false;
+            }
+        }
+        return collect(node.right, Math.max(0, skip - leftSize - 1), limit, minScore, result);
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (BEST_FIRST.compare(fresh.entry, node.entry) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return resize(node);
+    }
+
+    private static Node delete(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = BEST_FIRST.compare(entry, node.entry);
+        if (cmp < 0) {
+            node.left = delete(node.left, entry);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, entry);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return resize(node);
+    }
+
+    /**
+     * Сливает два дерева, где все записи left лучше всех записей right.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return resize(left);
+        }
+        right.left = merge(left, right.left);
+        return resize(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        var pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = resize(node);
+        return resize(pivot);
+    }
+
+    private static Node rotateLeft(Node node) {
+        var pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = resize(node);
+        return resize(pivot);
+    }
+
+    private static Node resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
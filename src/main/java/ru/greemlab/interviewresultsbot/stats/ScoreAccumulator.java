@@ -0,0 +1,268 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Счётчики голосов по одному кандидату: гистограммы оценок по каждому критерию
+ * и счётчики «пригласить / не приглашать».
+ * <p>
+ * Как в {@link java.util.concurrent.atomic.LongAdder}, данные разбиты на ячейки:
+ * писатель берёт первую свободную ячейку (tryWriteLock) и при конкуренции
+ * переходит на другую, а число ячеек растёт до числа ядер. Поэтому сотни голосующих
+ * за одного кандидата не выстраиваются в очередь на одном CAS.
+ * <p>
+ * Один голос (даже из нескольких оценок) всегда попадает в одну ячейку целиком,
+ * а читатель снимает каждую ячейку согласованно (оптимистичное чтение StampedLock).
+ * Поэтому снимок никогда не содержит «половину» голоса.
+ */
+public final class ScoreAccumulator implements VoteCounters {
+
+    private static final int MAX_CELLS = Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final int criteria;
+    private final int maxScore;
+    // criteria * maxScore ячеек гистограмм + «да» + «нет»
+    private final int slots;
+    private final int yesSlot;
+    private final int noSlot;
+
+    private volatile Cell[] cells;
+
+    public ScoreAccumulator(int criteria, int maxScore) {
+        this.criteria = criteria;
+        this.maxScore = maxScore;
+        this.yesSlot = criteria * maxScore;
+        this.noSlot = yesSlot + 1;
+        this.slots = noSlot + 1;
+        this.cells = new Cell[]{new Cell(slots)};
+    }
+
+    /**
+     * Одна оценка (1..maxScore) по критерию.
+     */
+    @Override
+    public void record(int criterion, int score) {
+        int slot = scoreSlot(criterion, score);
+        var cell = lockCell();
+        try {
+            cell.counts[slot]++;
+            cell.writes++;
+        } finally {
+            cell.lock.unlockWrite(cell.stamp);
+        }
+    }
+
+    /**
+     * Решение о приглашении.
+     */
+    @Override
+    public void recordInvite(boolean invite) {
+        var cell = lockCell();
+        try {
+            cell.counts[invite ? yesSlot : noSlot]++;
+            cell.writes++;
+        } finally {
+            cell.lock.unlockWrite(cell.stamp);
+        }
+    }
+
+    /**
+     * Целый голос одной операцией: оценки по критериям (0 — критерий не оценён)
+     * и решение о приглашении (null — без решения). Читатели видят голос либо целиком, либо никак.
+     */
+    @Override
+    public void recordVote(int[] scores, Boolean invite) {
+        if (scores.length != criteria) {
+            throw new IllegalArgumentException("Ожидалось оценок: " + criteria + ", получено: " + scores.length);
+        }
+        for (int c = 0; c < criteria; c++) {
+            if (scores[c] != 0) {
+                scoreSlot(c, scores[c]);
+            }
+        }
+        var cell = lockCell();
+        try {
+            for (int c = 0; c < criteria; c++) {
+                if (scores[c] != 0) {
+                    cell.counts[c * maxScore + scores[c] - 1]++;
+                }
+            }
+            if (invite != null) {
+                cell.counts[invite ? yesSlot : noSlot]++;
+            }
+            cell.writes++;
+        } finally {
+            cell.lock.unlockWrite(cell.stamp);
+        }
+    }
+
+    /**
+     * Прибавляет к счётчикам готовые значения (восстановление из журнала, слияние с другими узлами).
+     */
+    @Override
+    public void add(StatsSnapshot delta) {
+        if (delta.getCriteria() != criteria || delta.getMaxScore() != maxScore) {
+            throw new IllegalArgumentException("Снимок другой размерности: "
+                                               + delta.getCriteria() + "x" + delta.getMaxScore());
+        }
+        var cell = lockCell();
+        try {
+            for (int c = 0; c < criteria; c++) {
+                for (int score = 1; score <= maxScore; score++) {
+                    cell.counts[c * maxScore + score - 1] += delta.getScoreCount(c, score);
+                }
+            }
+            cell.counts[yesSlot] += delta.getInviteYes();
+            cell.counts[noSlot] += delta.getInviteNo();
+            cell.writes++;
+        } finally {
+            cell.lock.unlockWrite(cell.stamp);
+        }
+    }
+
+    /**
+     * Согласованный снимок всех счётчиков.
+     */
+    @Override
+    public StatsSnapshot snapshot() {
+        long[] totals = new long[slots];
+        long[] scratch = new long[slots];
+        long writes = 0;
+        for (var cell : cells) {
+            writes += readCell(cell, scratch);
+            for (int i = 0; i < slots; i++) {
+                totals[i] += scratch[i];
+            }
+        }
+        long[][] histograms = new long[criteria][maxScore];
+        for (int c = 0; c < criteria; c++) {
+            System.arraycopy(totals, c * maxScore, histograms[c], 0, maxScore);
+        }
+        return new StatsSnapshot(histograms, totals[yesSlot], totals[noSlot], writes);
+    }
+
+    /**
+     * Номер версии — число записанных голосов. Растёт при каждом изменении, дешевле снимка.
+     */
+    @Override
+    public long version() {
+        long writes = 0;
+        for (var cell : cells) {
+            var lock = cell.lock;
+            long stamp = lock.tryOptimisticRead();
+            long value = cell.writes;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = cell.writes;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            writes += value;
+        }
+        return writes;
+    }
+
+    @Override
+    public int getCriteria() {
+        return criteria;
+    }
+
+    @Override
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    private int scoreSlot(int criterion, int score) {
+        if (criterion < 0 || criterion >= criteria) {
+            throw new IllegalArgumentException("Неизвестный критерий: " + criterion);
+        }
+        if (score < 1 || score > maxScore) {
+            throw new IllegalArgumentException("Оценка вне диапазона 1.." + maxScore + ": " + score);
+        }
+        return criterion * maxScore + score - 1;
+    }
+
+    /**
+     * Копирует счётчики ячейки в target и возвращает число записей в ней.
+     */
+    private long readCell(Cell cell, long[] target) {
+        var lock = cell.lock;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            System.arraycopy(cell.counts, 0, target, 0, slots);
+            long writes = cell.writes;
+            if (lock.validate(stamp)) {
+                return writes;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            System.arraycopy(cell.counts, 0, target, 0, slots);
+            return cell.writes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Захватывает на запись свободную ячейку. Штамп блокировки кладётся в саму ячейку:
+     * до unlockWrite её больше никто не может захватить.
+     */
+    private Cell lockCell() {
+        int h = mix(Thread.currentThread().threadId());
+        var cs = cells;
+        for (int attempt = 0; ; attempt++) {
+            var cell = cs[h & (cs.length - 1)];
+            long stamp = cell.lock.tryWriteLock();
+            if (stamp != 0) {
+                cell.stamp = stamp;
+                return cell;
+            }
+            if (cs.length < MAX_CELLS) {
+                cs = grow(cs);
+            } else if (attempt >= cs.length) {
+                // Все ячейки заняты — ждём свою
+                stamp = cell.lock.writeLock();
+                cell.stamp = stamp;
+                return cell;
+            }
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+        }
+    }
+
+    private synchronized Cell[] grow(Cell[] seen) {
+        var current = cells;
+        if (current != seen || current.length >= MAX_CELLS) {
+            return current;
+        }
+        var grown = new Cell[current.length * 2];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new Cell(slots);
+        }
+        cells = grown;
+        return grown;
+    }
+
+    private static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Cell {
+        private final StampedLock lock = new StampedLock();
+        private final long[] counts;
+        private long writes;
+        // Штамп текущего владельца записи
+        private long stamp;
+
+        private Cell(int slots) {
+            this.counts = new long[slots];
+        }
+    }
+}
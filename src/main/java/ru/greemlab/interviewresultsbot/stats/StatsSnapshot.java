@@ -0,0 +1,142 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+/**
+ * Неизменяемый согласованный снимок счётчиков кандидата.
+ * Суммы и число голосов выводятся из гистограмм, поэтому всегда согласованы между собой.
+ */
+public final class StatsSnapshot {
+
+    private final long[][] histograms;
+    private final long inviteYes;
+    private final long inviteNo;
+    private final long version;
+
+    public StatsSnapshot(long[][] histograms, long inviteYes, long inviteNo, long version) {
+        this.histograms = histograms;
+        this.inviteYes = inviteYes;
+        this.inviteNo = inviteNo;
+        this.version = version;
+    }
+
+    public int getCriteria() {
+        return histograms.length;
+    }
+
+    public int getMaxScore() {
+        return histograms.length == 0 ? 0 : histograms[0].length;
+    }
+
+    /**
+     * Сколько раз по критерию поставлена оценка score (1..maxScore).
+     */
+    public long getScoreCount(int criterion, int score) {
+        return histograms[criterion][score - 1];
+    }
+
+    public long[] getHistogram(int criterion) {
+        return histograms[criterion].clone();
+    }
+
+    public long getCount(int criterion) {
+        long count = 0;
+        for (long c : histograms[criterion]) {
+            count += c;
+        }
+        return count;
+    }
+
+    public long getSum(int criterion) {
+        long sum = 0;
+        var histogram = histograms[criterion];
+        for (int i = 0; i < histogram.length; i++) {
+            sum += histogram[i] * (i + 1);
+        }
+        return sum;
+    }
+
+    /**
+     * Средняя оценка или NaN, если оценок нет.
+     */
+    public double getAverage(int criterion) {
+        long count = getCount(criterion);
+        return count == 0 ? Double.NaN : (double) getSum(criterion) / count;
+    }
+
+    /**
+     * Медиана оценок или NaN, если оценок нет.
+     */
+    public double getMedian(int criterion) {
+        long count = getCount(criterion);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int lower = scoreAtRank(criterion, (count - 1) / 2);
+        int upper = scoreAtRank(criterion, count / 2);
+        return (lower + upper) / 2.0;
+    }
+
+    public long getInviteYes() {
+        return inviteYes;
+    }
+
+    public long getInviteNo() {
+        return inviteNo;
+    }
+
+    /**
+     * Версия счётчиков, с которой снят снимок (см. {@link ScoreAccumulator#version()}).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Снимок той же статистики в другой форме: критерии и оценки за пределами новой формы отбрасываются,
+     * недостающие заполняются нулями. Нужен, когда у кандидата изменился шаблон оценки.
+     */
+    public StatsSnapshot reshape(int criteria, int maxScore) {
+        if (criteria == getCriteria() && maxScore == getMaxScore()) {
+            return this;
+        }
+        long[][] reshaped = new long[criteria][maxScore];
+        for (int c = 0; c < Math.min(criteria, histograms.length); c++) {
+            System.arraycopy(histograms[c], 0, reshaped[c], 0, Math.min(maxScore, histograms[c].length));
+        }
+        return new StatsSnapshot(reshaped, inviteYes, inviteNo, version);
+    }
+
+    /**
+     * Поэлементная сумма двух снимков одной формы; версия — сумма версий,
+     * поэтому растёт при изменении любого из слагаемых.
+     */
+    public StatsSnapshot plus(StatsSnapshot other) {
+        if (other.getCriteria() != getCriteria() || other.getMaxScore() != getMaxScore()) {
+            throw new IllegalArgumentException("Снимок другой размерности: "
+                                               + other.getCriteria() + "x" + other.getMaxScore());
+        }
+        long[][] sum = new long[histograms.length][];
+        for (int c = 0; c < histograms.length; c++) {
+            sum[c] = histograms[c].clone();
+            for (int i = 0; i < sum[c].length; i++) {
+                sum[c][i] += other.histograms[c][i];
+            }
+        }
+        return new StatsSnapshot(sum, inviteYes + other.inviteYes, inviteNo + other.inviteNo,
+                version + other.version);
+    }
+
+    /**
+     * Оценка, стоящая на позиции rank (с нуля) в отсортированном списке оценок.
+     */
+    private int scoreAtRank(int criterion, long rank) {
+        var histogram = histograms[criterion];
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (rank < seen) {
+                return i + 1;
+            }
+        }
+        return histogram.length;
+    }
+}
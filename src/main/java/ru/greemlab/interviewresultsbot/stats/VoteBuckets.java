@@ -0,0 +1,50 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+/**
+ * Последние capacity корзин счётчиков одного кандидата: корзина — день или раунд собеседований.
+ * Корзина с номером новее вытесняет самую старую, голос старше окна отбрасывается.
+ * Реализации — {@link BucketRing} (объекты в куче) и кольцо строк {@link VoteSlab}.
+ */
+public interface VoteBuckets {
+
+    /**
+     * Голос целиком в корзину id (см. {@link VoteCounters#recordVote}).
+     */
+    void recordVote(long id, int[] scores, Boolean invite);
+
+    /**
+     * Прибавляет готовые счётчики к корзине id (восстановление из журнала).
+     */
+    void add(long id, StatsSnapshot delta);
+
+    /**
+     * Снимок одной корзины или null, если её нет в кольце.
+     */
+    StatsSnapshot bucket(long id);
+
+    int getCapacity();
+
+    int getCriteria();
+
+    int getMaxScore();
+
+    /**
+     * Сумма корзин с номерами from..to включительно, которые ещё хранятся в кольце.
+     */
+    default StatsSnapshot merge(long from, long to) {
+        var sum = new StatsSnapshot(new long[getCriteria()][getMaxScore()], 0, 0, 0);
+        for (long id = Math.max(from, to - getCapacity() + 1); id <= to; id++) {
+            var bucket = bucket(id);
+            if (bucket != null) {
+                sum = sum.plus(bucket);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Кольцо больше не нужно (см. {@link VoteCounters#release()}).
+     */
+    default void release() {
+    }
+}
@@ -0,0 +1,51 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+/**
+ * Счётчики голосов одного кандидата (или одной корзины): гистограммы оценок по критериям
+ * и счётчики «пригласить / не приглашать». Голос целиком виден читателям либо весь, либо никак.
+ * Реализации — {@link ScoreAccumulator} (объекты в куче) и строка {@link VoteSlab}.
+ */
+public interface VoteCounters {
+
+    /**
+     * Одна оценка (1..maxScore) по критерию.
+     */
+    void record(int criterion, int score);
+
+    /**
+     * Решение о приглашении.
+     */
+    void recordInvite(boolean invite);
+
+    /**
+     * Целый голос одной операцией: оценки по критериям (0 — критерий не оценён)
+     * и решение о приглашении (null — без решения).
+     */
+    void recordVote(int[] scores, Boolean invite);
+
+    /**
+     * Прибавляет к счётчикам готовые значения (восстановление из журнала, слияние с другими узлами).
+     */
+    void add(StatsSnapshot delta);
+
+    /**
+     * Согласованный снимок всех счётчиков.
+     */
+    StatsSnapshot snapshot();
+
+    /**
+     * Номер версии — растёт при каждом изменении, дешевле снимка.
+     */
+    long version();
+
+    int getCriteria();
+
+    int getMaxScore();
+
+    /**
+     * Счётчики больше не нужны (кандидат ушёл в архив, статистика сброшена): память можно переиспользовать.
+     * Запись в отпущенные счётчики теряется, чтение даёт пустой снимок.
+     */
+    default void release() {
+    }
+}
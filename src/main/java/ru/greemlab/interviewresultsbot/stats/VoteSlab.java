@@ -0,0 +1,488 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Счётчики голосов в общих массивах long: строка на кандидата или корзину вместо объектов на каждого.
+ * <p>
+ * Память выделяется кусками по {@code 1 << CHUNK_BITS} long. Строка — заголовок и criteria * maxScore + 2
+ * счётчиков (гистограммы, «да», «нет») — не пересекает границу куска. Строки отпущенных кандидатов
+ * переиспользуются строками той же длины, так что память растёт байтами на счётчик, а не на объект.
+ * <p>
+ * Каждую строку защищает последовательная блокировка (seqlock) на слове SEQ через VarHandle:
+ * писатель захватывает её CAS-ом (нечётное значение), пишет голос целиком и отпускает;
+ * читатель копирует строку без блокировки и повторяет, если SEQ за это время изменилось.
+ * Поэтому снимок, как и у {@link ScoreAccumulator}, никогда не содержит «половину» голоса.
+ * Поколение GEN в заголовке растёт при освобождении строки: запись и чтение по старой ссылке
+ * отбрасываются, а не попадают к новому владельцу.
+ */
+public final class VoteSlab implements VoteStore {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static final int CHUNK_BITS = 14;
+    private static final int CHUNK_LONGS = 1 << CHUNK_BITS;
+
+    // Заголовок строки: seqlock, число записей, поколение, номер корзины + 1 (0 — корзина пуста)
+    private static final int SEQ = 0;
+    private static final int WRITES = 1;
+    private static final int GEN = 2;
+    private static final int BUCKET = 3;
+    private static final int HEADER = 4;
+
+    // Ячейка кольца корзин: поколение строки в старших битах, адрес строки + 1 в младших
+    private static final int ADDRESS_BITS = 40;
+    private static final long ADDRESS_MASK = (1L << ADDRESS_BITS) - 1;
+    private static final long GEN_MASK = (1L << (Long.SIZE - ADDRESS_BITS)) - 1;
+    private static final long RELEASED = -1;
+
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    private final ReentrantLock allocation = new ReentrantLock();
+    private final Map<Integer, ArrayDeque<Long>> free = new HashMap<>();
+    private volatile long[][] chunks = new long[0][];
+    private long top;
+
+    @Override
+    public VoteCounters counters(int criteria, int maxScore) {
+        int length = rowLength(criteria, maxScore);
+        long address = allocate(length);
+        return new Row(address, criteria, maxScore, generation(address));
+    }
+
+    @Override
+    public VoteBuckets buckets(int capacity, int criteria, int maxScore) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость кольца должна быть положительной: " + capacity);
+        }
+        return new Ring(capacity, criteria, maxScore);
+    }
+
+    /**
+     * Сколько памяти занято кусками (вместе со свободными строками).
+     */
+    public long getReservedBytes() {
+        return (long) chunks.length * CHUNK_LONGS * Long.BYTES;
+    }
+
+    private long allocate(int length) {
+        allocation.lock();
+        try {
+            var reused = free.get(length);
+            if (reused != null && !reused.isEmpty()) {
+                return reused.pop();
+            }
+            int inChunk = (int) (top & (CHUNK_LONGS - 1));
+            if (inChunk + length > CHUNK_LONGS) {
+                top += CHUNK_LONGS - inChunk;
+            }
+            int index = (int) (top >>> CHUNK_BITS);
+            if (index == chunks.length) {
+                var grown = Arrays.copyOf(chunks, index + 1);
+                grown[index] = new long[CHUNK_LONGS];
+                chunks = grown;
+            }
+            long address = top;
+            top += length;
+            return address;
+        } finally {
+            allocation.unlock();
+        }
+    }
+
+    /**
+     * Отпускает строку, если она ещё принадлежит поколению gen: счётчики обнуляются, поколение растёт.
+     */
+    private void release(long address, int length, long gen) {
+        var chunk = chunk(address);
+        int base = offset(address);
+        long locked = lock(chunk, base);
+        boolean own;
+        try {
+            own = ownedBy(chunk, base, gen);
+            if (own) {
+                chunk[base + GEN]++;
+                chunk[base + BUCKET] = 0;
+                Arrays.fill(chunk, base + HEADER, base + length, 0);
+            }
+        } finally {
+            unlock(chunk, base, locked);
+        }
+        if (own) {
+            allocation.lock();
+            try {
+                free.computeIfAbsent(length, k -> new ArrayDeque<>()).push(address);
+            } finally {
+                allocation.unlock();
+            }
+        }
+    }
+
+    private long generation(long address) {
+        return (long) LONGS.getVolatile(chunk(address), offset(address) + GEN) & GEN_MASK;
+    }
+
+    private long[] chunk(long address) {
+        return chunks[(int) (address >>> CHUNK_BITS)];
+    }
+
+    private static int offset(long address) {
+        return (int) (address & (CHUNK_LONGS - 1));
+    }
+
+    private static int rowLength(int criteria, int maxScore) {
+        return HEADER + criteria * maxScore + 2;
+    }
+
+    private static boolean ownedBy(long[] chunk, int base, long gen) {
+        return (chunk[base + GEN] & GEN_MASK) == gen;
+    }
+
+    private static long lock(long[] chunk, int base) {
+        for (int spins = 0; ; spins++) {
+            long seq = (long) LONGS.getVolatile(chunk, base + SEQ);
+            if ((seq & 1) == 0 && LONGS.compareAndSet(chunk, base + SEQ, seq, seq + 1)) {
+                return seq + 1;
+            }
+            pause(spins);
+        }
+    }
+
+    private static void unlock(long[] chunk, int base, long locked) {
+        LONGS.setRelease(chunk, base + SEQ, locked + 1);
+    }
+
+    /**
+     * Копирует счётчики строки в counts без блокировки.
+     *
+     * @param bucket ожидаемый номер корзины + 1 или 0, если строка — не корзина
+     * @return число записей в строке или -1, если строка отпущена или занята другой корзиной
+     */
+    private static long read(long[] chunk, int base, long gen, long bucket, long[] counts) {
+        for (int spins = 0; ; spins++) {
+            long seq = (long) LONGS.getAcquire(chunk, base + SEQ);
+            if ((seq & 1) == 0) {
+                long writes = chunk[base + WRITES];
+                boolean own = ownedBy(chunk, base, gen) && (bucket == 0 || chunk[base + BUCKET] == bucket);
+                System.arraycopy(chunk, base + HEADER, counts, 0, counts.length);
+                VarHandle.acquireFence();
+                if ((long) LONGS.getVolatile(chunk, base + SEQ) == seq) {
+                    return own ? writes : -1;
+                }
+            }
+            pause(spins);
+        }
+    }
+
+    private static void pause(int spins) {
+        if (spins < SPINS_BEFORE_YIELD) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    private static void validate(int criteria, int maxScore, int[] scores) {
+        if (scores.length != criteria) {
+            throw new IllegalArgumentException("Ожидалось оценок: " + criteria + ", получено: " + scores.length);
+        }
+        for (int c = 0; c < criteria; c++) {
+            if (scores[c] < 0 || scores[c] > maxScore) {
+                throw new IllegalArgumentException("Оценка вне диапазона 1.." + maxScore + ": " + scores[c]);
+            }
+        }
+    }
+
+    /**
+     * Голос в счётчики строки; вызывается под блокировкой строки.
+     */
+    private static void writeVote(long[] chunk, int base, int criteria, int maxScore, int[] scores, Boolean invite) {
+        int counts = base + HEADER;
+        for (int c = 0; c < criteria; c++) {
+            if (scores[c] != 0) {
+                chunk[counts + c * maxScore + scores[c] - 1]++;
+            }
+        }
+        if (invite != null) {
+            chunk[counts + criteria * maxScore + (invite ? 0 : 1)]++;
+        }
+        chunk[base + WRITES]++;
+    }
+
+    /**
+     * Готовые значения в счётчики строки; вызывается под блокировкой строки.
+     */
+    private static void writeDelta(long[] chunk, int base, int criteria, int maxScore, StatsSnapshot delta) {
+        int counts = base + HEADER;
+        for (int c = 0; c < criteria; c++) {
+            for (int score = 1; score <= maxScore; score++) {
+                chunk[counts + c * maxScore + score - 1] += delta.getScoreCount(c, score);
+            }
+        }
+        chunk[counts + criteria * maxScore] += delta.getInviteYes();
+        chunk[counts + criteria * maxScore + 1] += delta.getInviteNo();
+        chunk[base + WRITES]++;
+    }
+
+    private static StatsSnapshot toSnapshot(long[] counts, int criteria, int maxScore, long writes) {
+        long[][] histograms = new long[criteria][maxScore];
+        for (int c = 0; c < criteria; c++) {
+            System.arraycopy(counts, c * maxScore, histograms[c], 0, maxScore);
+        }
+        return new StatsSnapshot(histograms, counts[criteria * maxScore], counts[criteria * maxScore + 1], writes);
+    }
+
+    /**
+     * Счётчики одного кандидата — строка слэба.
+     */
+    private final class Row implements VoteCounters {
+
+        private final long address;
+        private final long[] chunk;
+        private final int base;
+        private final int criteria;
+        private final int maxScore;
+        private final long gen;
+
+        private Row(long address, int criteria, int maxScore, long gen) {
+            this.address = address;
+            this.chunk = chunk(address);
+            this.base = offset(address);
+            this.criteria = criteria;
+            this.maxScore = maxScore;
+            this.gen = gen;
+        }
+
+        @Override
+        public void record(int criterion, int score) {
+            if (criterion < 0 || criterion >= criteria) {
+                throw new IllegalArgumentException("Неизвестный критерий: " + criterion);
+            }
+            if (score < 1 || score > maxScore) {
+                throw new IllegalArgumentException("Оценка вне диапазона 1.." + maxScore + ": " + score);
+            }
+            long locked = lock(chunk, base);
+            try {
+                if (ownedBy(chunk, base, gen)) {
+                    chunk[base + HEADER + criterion * maxScore + score - 1]++;
+                    chunk[base + WRITES]++;
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public void recordInvite(boolean invite) {
+            long locked = lock(chunk, base);
+            try {
+                if (ownedBy(chunk, base, gen)) {
+                    chunk[base + HEADER + criteria * maxScore + (invite ? 0 : 1)]++;
+                    chunk[base + WRITES]++;
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public void recordVote(int[] scores, Boolean invite) {
+            validate(criteria, maxScore, scores);
+            long locked = lock(chunk, base);
+            try {
+                if (ownedBy(chunk, base, gen)) {
+                    writeVote(chunk, base, criteria, maxScore, scores, invite);
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public void add(StatsSnapshot delta) {
+            if (delta.getCriteria() != criteria || delta.getMaxScore() != maxScore) {
+                throw new IllegalArgumentException("Снимок другой размерности: "
+                                                   + delta.getCriteria() + "x" + delta.getMaxScore());
+            }
+            long locked = lock(chunk, base);
+            try {
+                if (ownedBy(chunk, base, gen)) {
+                    writeDelta(chunk, base, criteria, maxScore, delta);
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public StatsSnapshot snapshot() {
+            var counts = new long[criteria * maxScore + 2];
+            long writes = read(chunk, base, gen, 0, counts);
+            if (writes < 0) {
+                return new StatsSnapshot(new long[criteria][maxScore], 0, 0, 0);
+            }
+            return toSnapshot(counts, criteria, maxScore, writes);
+        }
+
+        @Override
+        public long version() {
+            return (long) LONGS.getAcquire(chunk, base + WRITES);
+        }
+
+        @Override
+        public int getCriteria() {
+            return criteria;
+        }
+
+        @Override
+        public int getMaxScore() {
+            return maxScore;
+        }
+
+        @Override
+        public void release() {
+            VoteSlab.this.release(address, rowLength(criteria, maxScore), gen);
+        }
+    }
+
+    /**
+     * Кольцо корзин: строки выделяются при первом голосе в ячейку и затем переиспользуются
+     * более новыми корзинами той же ячейки (номер корзины лежит в заголовке строки).
+     */
+    private final class Ring implements VoteBuckets {
+
+        // Ячейки кольца: 0 — строки ещё нет, RELEASED — кольцо отпущено
+        private final long[] slots;
+        private final int criteria;
+        private final int maxScore;
+        private final int length;
+
+        private Ring(int capacity, int criteria, int maxScore) {
+            this.slots = new long[capacity];
+            this.criteria = criteria;
+            this.maxScore = maxScore;
+            this.length = rowLength(criteria, maxScore);
+        }
+
+        @Override
+        public void recordVote(long id, int[] scores, Boolean invite) {
+            validate(criteria, maxScore, scores);
+            long slot = slot(id, true);
+            if (slot == 0 || slot == RELEASED) {
+                return;
+            }
+            long address = (slot & ADDRESS_MASK) - 1;
+            var chunk = chunk(address);
+            int base = offset(address);
+            long locked = lock(chunk, base);
+            try {
+                if (claim(chunk, base, slot >>> ADDRESS_BITS, id)) {
+                    writeVote(chunk, base, criteria, maxScore, scores, invite);
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public void add(long id, StatsSnapshot delta) {
+            var shaped = delta.reshape(criteria, maxScore);
+            long slot = slot(id, true);
+            if (slot == 0 || slot == RELEASED) {
+                return;
+            }
+            long address = (slot & ADDRESS_MASK) - 1;
+            var chunk = chunk(address);
+            int base = offset(address);
+            long locked = lock(chunk, base);
+            try {
+                if (claim(chunk, base, slot >>> ADDRESS_BITS, id)) {
+                    writeDelta(chunk, base, criteria, maxScore, shaped);
+                }
+            } finally {
+                unlock(chunk, base, locked);
+            }
+        }
+
+        @Override
+        public StatsSnapshot bucket(long id) {
+            long slot = slot(id, false);
+            if (slot == 0 || slot == RELEASED) {
+                return null;
+            }
+            long address = (slot & ADDRESS_MASK) - 1;
+            var counts = new long[criteria * maxScore + 2];
+            long writes = read(chunk(address), offset(address), slot >>> ADDRESS_BITS, id + 1, counts);
+            return writes < 0 ? null : toSnapshot(counts, criteria, maxScore, writes);
+        }
+
+        @Override
+        public int getCapacity() {
+            return slots.length;
+        }
+
+        @Override
+        public int getCriteria() {
+            return criteria;
+        }
+
+        @Override
+        public int getMaxScore() {
+            return maxScore;
+        }
+
+        @Override
+        public void release() {
+            for (int i = 0; i < slots.length; i++) {
+                long slot = (long) LONGS.getAndSet(slots, i, RELEASED);
+                if (slot != 0 && slot != RELEASED) {
+                    VoteSlab.this.release((slot & ADDRESS_MASK) - 1, length, slot >>> ADDRESS_BITS);
+                }
+            }
+        }
+
+        /**
+         * Ячейка корзины id; при create строка для пустой ячейки выделяется и публикуется CAS-ом.
+         */
+        private long slot(long id, boolean create) {
+            int index = (int) Math.floorMod(id, (long) slots.length);
+            long slot = (long) LONGS.getVolatile(slots, index);
+            if (slot != 0 || !create) {
+                return slot;
+            }
+            long address = allocate(length);
+            long fresh = generation(address) << ADDRESS_BITS | (address + 1);
+            if (LONGS.compareAndSet(slots, index, 0L, fresh)) {
+                return fresh;
+            }
+            // Ячейку заняли раньше (или кольцо отпущено) — строка возвращается в свободные
+            VoteSlab.this.release(address, length, fresh >>> ADDRESS_BITS);
+            return (long) LONGS.getVolatile(slots, index);
+        }
+
+        /**
+         * Под блокировкой строки: готова ли строка принять голос корзины id.
+         * Более новая корзина занимает строку, обнуляя счётчики старой; голос старше корзины в строке отбрасывается.
+         */
+        private boolean claim(long[] chunk, int base, long gen, long id) {
+            if (!ownedBy(chunk, base, gen)) {
+                return false;
+            }
+            long current = chunk[base + BUCKET];
+            if (current > id + 1) {
+                return false;
+            }
+            if (current < id + 1) {
+                Arrays.fill(chunk, base + HEADER, base + length, 0);
+                chunk[base + BUCKET] = id + 1;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+/**
+ * Где лежат счётчики голосов: app.storage.mode выбирает {@link Mode}.
+ */
+public interface VoteStore {
+
+    /**
+     * Способ хранения счётчиков.
+     */
+    enum Mode {
+        /**
+         * Объекты в куче ({@link ScoreAccumulator}, {@link BucketRing}): ячейки против конкуренции
+         * писателей за одного кандидата, но сотни байт заголовков и ссылок на кандидата.
+         */
+        HEAP,
+        /**
+         * Строки в общих массивах long ({@link VoteSlab}): байты на счётчик, а не на объект,
+         * для кампаний с десятками тысяч кандидатов и интервьюеров.
+         */
+        SLAB;
+
+        public VoteStore newStore() {
+            return this == SLAB ? new VoteSlab() : HEAP_STORE;
+        }
+    }
+
+    VoteStore HEAP_STORE = new VoteStore() {
+        @Override
+        public VoteCounters counters(int criteria, int maxScore) {
+            return new ScoreAccumulator(criteria, maxScore);
+        }
+
+        @Override
+        public VoteBuckets buckets(int capacity, int criteria, int maxScore) {
+            return new BucketRing(capacity, criteria, maxScore);
+        }
+    };
+
+    VoteCounters counters(int criteria, int maxScore);
+
+    VoteBuckets buckets(int capacity, int criteria, int maxScore);
+}
@@ -2,8 +2,11 @@ package ru.greemlab.interviewresultsbot.util;
 
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+import ru.greemlab.interviewresultsbot.archive.ArchivePage;
+import ru.greemlab.interviewresultsbot.candidate.Candidate;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplate;
 import ru.greemlab.interviewresultsbot.service.CallbackCommands;
-import ru.greemlab.interviewresultsbot.service.CandidateConstants;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,16 +16,35 @@ import java.util.List;
  */
 public class KeyboardFactory {
 
+    private static final int RATING_ROW = 5;
+
     /**
-     * Главное меню (выбор кандидата + просмотр статистики/архива)
+     * Одна страница главного меню (выбор кандидата + просмотр статистики/архива).
+     * Вызывается только при пересборке кэша меню, см. {@link ru.greemlab.interviewresultsbot.candidate.CandidateMenu}.
+     *
+     * @param candidates кандидаты этой страницы
+     * @param page       номер страницы (с нуля)
+     * @param pageCount  всего страниц
      */
-    public static InlineKeyboardMarkup buildMainMenuKeyboard() {
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+    public static InlineKeyboardMarkup buildMainMenuKeyboard(List<Candidate> candidates, int page, int pageCount) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(candidates.size() + 2);
 
         // Кнопки выбора кандидатов
-        rows.add(List.of(createButton("Виктория", CandidateConstants.VICTORIA)));
-        rows.add(List.of(createButton("Светлана", CandidateConstants.SVETLANA)));
-        rows.add(List.of(createButton("Александр", CandidateConstants.ALEXANDER)));
+        for (var candidate : candidates) {
+            rows.add(List.of(createButton(candidate.displayName(), CallbackCommands.selectCandidate(candidate.id()))));
+        }
+
+        // Листание, если кандидаты не помещаются на одну страницу
+        if (pageCount > 1) {
+            List<InlineKeyboardButton> navigation = new ArrayList<>(2);
+            if (page > 0) {
+                navigation.add(createButton("◀ Назад", CallbackCommands.menuPage(page - 1)));
+            }
+            if (page < pageCount - 1) {
+                navigation.add(createButton("Вперёд ▶", CallbackCommands.menuPage(page + 1)));
+            }
+            rows.add(List.copyOf(navigation));
+        }
 
         // «Сервисные» кнопки
         rows.add(List.of(
@@ -30,31 +52,84 @@ public class KeyboardFactory {
                 createButton("📁 Архив", CallbackCommands.ARCHIVE)
         ));
 
-        return InlineKeyboardMarkup.builder().keyboard(rows).build();
+        return InlineKeyboardMarkup.builder().keyboard(List.copyOf(rows)).build();
+    }
+
+    /**
+     * Раскладка выбора оценки (1..maxScore) по критерию, не больше пяти кнопок в ряду.
+     * Кандидат и nonce сессии подставляются при выдаче, см. {@link VoteKeyboard#render}.
+     */
+    public static VoteKeyboard buildRatingButtons(int criterion, int maxScore) {
+        return new VoteKeyboard(ratingRows(criterion, maxScore));
+    }
+
+    /**
+     * Раскладка «Пригласить / Не пригласить».
+     */
+    public static VoteKeyboard buildInviteKeyboard() {
+        return new VoteKeyboard(List.of(inviteRow()));
     }
 
     /**
-     * Клавиатура для выбора оценки (1..5)
+     * Оценочный лист: на каждый критерий строка-подпись и кнопки оценок, затем приглашение и «Отправить».
      */
-    public static InlineKeyboardMarkup buildRatingButtons(String prefix) {
-        List<InlineKeyboardButton> row = new ArrayList<>();
-        for (int i = 1; i <= 5; i++) {
-            row.add(createButton("⭐ " + i, prefix + i));
+    public static VoteKeyboard buildScorecardKeyboard(EvaluationTemplate template) {
+        List<List<VoteKeyboard.Button>> rows = new ArrayList<>(template.size() * 2 + 2);
+        for (int c = 0; c < template.size(); c++) {
+            rows.add(List.of(VoteKeyboard.Button.fixed("— " + template.title(c) + " —", CallbackCommands.LABEL)));
+            rows.addAll(ratingRows(c, template.criteria().get(c).maxScore()));
         }
-        return InlineKeyboardMarkup.builder()
-                .keyboardRow(row)
-                .build();
+        rows.add(inviteRow());
+        rows.add(List.of(VoteKeyboard.Button.vote("📨 Отправить", CallbackCommands.submitButton())));
+        return new VoteKeyboard(rows);
+    }
+
+    private static List<List<VoteKeyboard.Button>> ratingRows(int criterion, int maxScore) {
+        List<List<VoteKeyboard.Button>> rows = new ArrayList<>((maxScore + RATING_ROW - 1) / RATING_ROW);
+        List<VoteKeyboard.Button> row = new ArrayList<>(RATING_ROW);
+        for (int i = 1; i <= maxScore; i++) {
+            row.add(VoteKeyboard.Button.vote("⭐ " + i, CallbackCommands.scoreButton(criterion, i)));
+            if (row.size() == RATING_ROW || i == maxScore) {
+                rows.add(List.copyOf(row));
+                row.clear();
+            }
+        }
+        return rows;
+    }
+
+    private static List<VoteKeyboard.Button> inviteRow() {
+        return List.of(
+                VoteKeyboard.Button.vote("✅ Да", CallbackCommands.inviteButton(true)),
+                VoteKeyboard.Button.vote("❌ Нет", CallbackCommands.inviteButton(false))
+        );
     }
 
     /**
-     * Клавиатура «Пригласить / Не пригласить»
+     * Клавиатура страницы архива: выбор порядка и листание «назад / вперёд».
      */
-    public static InlineKeyboardMarkup buildInviteKeyboard() {
+    public static InlineKeyboardMarkup buildArchiveKeyboard(ArchivePage page) {
         List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-        rows.add(List.of(
-                createButton("✅ Да", CallbackCommands.INVITE_YES),
-                createButton("❌ Нет", CallbackCommands.INVITE_NO)
-        ));
+
+        List<InlineKeyboardButton> orders = new ArrayList<>();
+        for (var order : ArchiveOrder.values()) {
+            var title = order == page.order() ? "• " + order.getTitle() : order.getTitle();
+            orders.add(createButton(title, CallbackCommands.archivePage(order, CallbackCommands.ARCHIVE_FIRST, null)));
+        }
+        rows.add(orders.subList(0, 2));
+        rows.add(orders.subList(2, orders.size()));
+
+        List<InlineKeyboardButton> navigation = new ArrayList<>();
+        if (page.hasPrevious()) {
+            navigation.add(createButton("◀ Назад",
+                    CallbackCommands.archivePage(page.order(), CallbackCommands.ARCHIVE_PREV, page.firstId())));
+        }
+        if (page.hasNext()) {
+            navigation.add(createButton("Вперёд ▶",
+                    CallbackCommands.archivePage(page.order(), CallbackCommands.ARCHIVE_NEXT, page.lastId())));
+        }
+        if (!navigation.isEmpty()) {
+            rows.add(navigation);
+        }
         return InlineKeyboardMarkup.builder().keyboard(rows).build();
     }
 
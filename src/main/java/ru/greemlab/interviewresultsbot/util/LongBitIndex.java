@@ -0,0 +1,28 @@
+package ru.greemlab.interviewresultsbot.util;
+
+/**
+ * Отметки «ключ long — номер бита»: кто из интервьюеров (chatId) голосовал за какого кандидата (id).
+ */
+public interface LongBitIndex {
+
+    boolean get(long key, int bit);
+
+    /**
+     * @return true, если бит не был установлен (ключ отмечен впервые)
+     */
+    boolean set(long key, int bit);
+
+    /**
+     * Снимает бит у одного ключа.
+     *
+     * @return true, если бит был установлен
+     */
+    boolean unset(long key, int bit);
+
+    /**
+     * Снимает бит у всех ключей.
+     */
+    void clearBit(int bit);
+
+    void clear();
+}
@@ -0,0 +1,159 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import java.util.Arrays;
+
+/**
+ * Компактное отображение {@code long -> набор битов} на открытой адресации без упаковки ключей.
+ * Первые 64 бита каждого ключа лежат прямо в массиве (8 байт на ключ),
+ * старшие — в отдельном массиве, который создаётся только при необходимости.
+ */
+public class LongBitSetMap implements LongBitIndex {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] lowBits;
+    private long[][] highBits;
+    private int size;
+
+    public LongBitSetMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public synchronized boolean get(long key, int bit) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        if (bit < Long.SIZE) {
+            return (lowBits[slot] & (1L << bit)) != 0;
+        }
+        var high = highBits == null ? null : highBits[slot];
+        int word = bit / Long.SIZE - 1;
+        return high != null && word < high.length && (high[word] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public synchronized boolean set(long key, int bit) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Недопустимый ключ: " + key);
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            if ((size + 1) * 3L > keys.length * 2L) {
+                resize();
+            }
+            slot = ~find(key);
+            keys[slot] = key;
+            size++;
+        }
+        if (bit < Long.SIZE) {
+            long before = lowBits[slot];
+            lowBits[slot] = before | 1L << bit;
+            return (before & 1L << bit) == 0;
+        }
+        if (highBits == null) {
+            highBits = new long[keys.length][];
+        }
+        int word = bit / Long.SIZE - 1;
+        var high = highBits[slot];
+        if (high == null || word >= high.length) {
+            high = high == null ? new long[word + 1] : Arrays.copyOf(high, word + 1);
+            highBits[slot] = high;
+        }
+        long before = high[word];
+        high[word] = before | 1L << bit;
+        return (before & 1L << bit) == 0;
+    }
+
+    @Override
+    public synchronized boolean unset(long key, int bit) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        if (bit < Long.SIZE) {
+            long before = lowBits[slot];
+            lowBits[slot] = before & ~(1L << bit);
+            return (before & 1L << bit) != 0;
+        }
+        var high = highBits == null ? null : highBits[slot];
+        int word = bit / Long.SIZE - 1;
+        if (high == null || word >= high.length) {
+            return false;
+        }
+        long before = high[word];
+        high[word] = before & ~(1L << bit);
+        return (before & 1L << bit) != 0;
+    }
+
+    @Override
+    public synchronized void clearBit(int bit) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            if (bit < Long.SIZE) {
+                lowBits[slot] &= ~(1L << bit);
+            } else if (highBits != null && highBits[slot] != null && bit / Long.SIZE - 1 < highBits[slot].length) {
+                highBits[slot][bit / Long.SIZE - 1] &= ~(1L << bit);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Индекс ключа или {@code ~индекс} свободной ячейки, куда его можно вставить.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldLow = lowBits;
+        var oldHigh = highBits;
+        allocate(oldKeys.length * 2);
+        if (oldHigh != null) {
+            highBits = new long[keys.length][];
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = ~find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            lowBits[slot] = oldLow[i];
+            if (oldHigh != null) {
+                highBits[slot] = oldHigh[i];
+            }
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        lowBits = new long[capacity];
+        highBits = null;
+        size = 0;
+    }
+}
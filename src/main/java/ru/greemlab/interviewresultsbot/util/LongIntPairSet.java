@@ -0,0 +1,154 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import java.util.Arrays;
+
+/**
+ * Множество пар (long, int) на открытой адресации: два массива примитивов, около 18 байт на пару
+ * при заполнении до 2/3. В отличие от {@link LongBitSetMap}, память не зависит от величины бита:
+ * подходит, когда у каждого ключа немного отметок среди десятков тысяч возможных id кандидатов.
+ */
+public class LongIntPairSet implements LongBitIndex {
+
+    /**
+     * Получатель пар при обходе.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(long key, int bit);
+    }
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] bits;
+    private int size;
+
+    public LongIntPairSet() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public synchronized boolean get(long key, int bit) {
+        return bit >= 0 && find(key, bit) >= 0;
+    }
+
+    @Override
+    public synchronized boolean set(long key, int bit) {
+        if (bit < 0) {
+            throw new IllegalArgumentException("Недопустимый бит: " + bit);
+        }
+        if (find(key, bit) >= 0) {
+            return false;
+        }
+        if ((size + 1) * 3L > bits.length * 2L) {
+            resize(bits.length * 2);
+        }
+        int slot = ~find(key, bit);
+        keys[slot] = key;
+        bits[slot] = bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Удаляет пару; следующие за ней пары той же цепочки вставляются заново, чтобы поиск не обрывался на дыре.
+     */
+    @Override
+    public synchronized boolean unset(long key, int bit) {
+        int slot = bit < 0 ? -1 : find(key, bit);
+        if (slot < 0) {
+            return false;
+        }
+        int mask = bits.length - 1;
+        bits[slot] = EMPTY;
+        size--;
+        for (int next = (slot + 1) & mask; bits[next] != EMPTY; next = (next + 1) & mask) {
+            long movedKey = keys[next];
+            int movedBit = bits[next];
+            bits[next] = EMPTY;
+            size--;
+            insert(movedKey, movedBit);
+        }
+        return true;
+    }
+
+    /**
+     * Снимает бит у всех ключей: таблица перестраивается без этих пар (кандидат уходит в архив редко).
+     */
+    @Override
+    public synchronized void clearBit(int bit) {
+        var oldKeys = keys;
+        var oldBits = bits;
+        allocate(oldBits.length);
+        for (int i = 0; i < oldBits.length; i++) {
+            if (oldBits[i] != EMPTY && oldBits[i] != bit) {
+                insert(oldKeys[i], oldBits[i]);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Число пар.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Обходит все пары в порядке таблицы.
+     */
+    public synchronized void forEach(PairConsumer consumer) {
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i] != EMPTY) {
+                consumer.accept(keys[i], bits[i]);
+            }
+        }
+    }
+
+    /**
+     * Индекс пары или {@code ~индекс} свободной ячейки, куда её можно вставить.
+     */
+    private int find(long key, int bit) {
+        int mask = bits.length - 1;
+        long h = (key * 0x9E3779B97F4A7C15L) ^ (bit * 0xC2B2AE3D27D4EB4FL);
+        int slot = (int) (h >>> 32) & mask;
+        while (bits[slot] != EMPTY) {
+            if (keys[slot] == key && bits[slot] == bit) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private void insert(long key, int bit) {
+        int slot = ~find(key, bit);
+        keys[slot] = key;
+        bits[slot] = bit;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldBits = bits;
+        allocate(capacity);
+        for (int i = 0; i < oldBits.length; i++) {
+            if (oldBits[i] != EMPTY) {
+                insert(oldKeys[i], oldBits[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        bits = new int[capacity];
+        Arrays.fill(bits, EMPTY);
+        size = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Окно последних N ключей — для отсева повторных доставок (update_id и т.п.).
+ * Самый старый ключ вытесняется, когда окно заполнено.
+ */
+public class RecentKeyWindow<K> {
+
+    private final Object[] ring;
+    private final Set<K> keys;
+    private int head;
+
+    public RecentKeyWindow(int capacity) {
+        this.ring = new Object[capacity];
+        this.keys = HashSet.newHashSet(capacity);
+    }
+
+    /**
+     * @return true, если ключ встретился впервые (в пределах окна)
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean add(K key) {
+        if (!keys.add(key)) {
+            return false;
+        }
+        var evicted = (K) ring[head];
+        if (evicted != null) {
+            keys.remove(evicted);
+        }
+        ring[head] = key;
+        head = (head + 1) % ring.length;
+        return true;
+    }
+
+    /**
+     * Забыть ключ, например если его обработка не удалась и доставка повторится.
+     */
+    public synchronized void remove(K key) {
+        if (!keys.remove(key)) {
+            return;
+        }
+        for (int i = 0; i < ring.length; i++) {
+            if (key.equals(ring[i])) {
+                ring[i] = null;
+                return;
+            }
+        }
+    }
+}
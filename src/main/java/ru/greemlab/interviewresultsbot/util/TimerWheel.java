@@ -0,0 +1,71 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Хэшированное колесо таймеров: O(1) на постановку ключа, за один шаг просматривается только один слот.
+ * Сроки дальше одного оборота колеса хранятся в том же слоте и ждут нужного оборота.
+ * Колесо не отменяет таймеры — владелец сам проверяет, актуален ли сработавший ключ.
+ */
+public class TimerWheel<K> {
+
+    private record Timer<K>(K key, long deadline) {
+    }
+
+    private final long tickMillis;
+    private final List<Timer<K>>[] slots;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int slotCount, long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new List[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Ставит таймер: ключ будет отдан в {@link #advance} не раньше deadlineMillis.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        slots[(int) (tick % slots.length)].add(new Timer<>(key, deadlineMillis));
+    }
+
+    /**
+     * Прокручивает колесо до nowMillis и передаёт в обработчик ключи с истёкшим сроком.
+     * Обработчик вызывается вне блокировки колеса и может снова ставить таймеры.
+     */
+    public void advance(long nowMillis, Consumer<K> onExpired) {
+        var expired = new ArrayList<K>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            // После долгого простоя достаточно одного полного оборота
+            long fromTick = Math.max(currentTick + 1, targetTick - slots.length + 1);
+            for (long tick = fromTick; tick <= targetTick; tick++) {
+                var slot = slots[(int) (tick % slots.length)];
+                slot.removeIf(timer -> {
+                    if (timer.deadline() > nowMillis) {
+                        return false;
+                    }
+                    expired.add(timer.key());
+                    return true;
+                });
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        expired.forEach(onExpired);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (var slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+}
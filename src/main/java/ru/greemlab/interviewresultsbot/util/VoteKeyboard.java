@@ -0,0 +1,52 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import ru.greemlab.interviewresultsbot.service.CallbackCommands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Клавиатура шага голосования, собранная один раз на шаблон: раскладка, подписи и заготовки кнопок.
+ * При выдаче в каждую кнопку подставляются только кандидат и nonce сессии ({@link CallbackCommands#bind}).
+ */
+public final class VoteKeyboard {
+
+    /**
+     * Кнопка раскладки: либо заготовка голосования, либо готовые callbackData (подпись строки).
+     */
+    record Button(String text, long prototype, String data) {
+
+        static Button vote(String text, long prototype) {
+            return new Button(text, prototype, null);
+        }
+
+        static Button fixed(String text, String data) {
+            return new Button(text, 0, data);
+        }
+    }
+
+    private final Button[][] rows;
+
+    VoteKeyboard(List<List<Button>> rows) {
+        this.rows = rows.stream().map(row -> row.toArray(Button[]::new)).toArray(Button[][]::new);
+    }
+
+    /**
+     * Клавиатура для голосования за кандидата с данным nonce.
+     */
+    public InlineKeyboardMarkup render(int candidateId, int nonce) {
+        List<List<InlineKeyboardButton>> keyboard = new ArrayList<>(rows.length);
+        for (var row : rows) {
+            var buttons = new InlineKeyboardButton[row.length];
+            for (int i = 0; i < row.length; i++) {
+                var button = row[i];
+                var data = button.data() != null ? button.data() : CallbackCommands.bind(button.prototype(), candidateId, nonce);
+                buttons[i] = InlineKeyboardButton.builder().text(button.text()).callbackData(data).build();
+            }
+            keyboard.add(List.of(buttons));
+        }
+        return InlineKeyboardMarkup.builder().keyboard(keyboard).build();
+    }
+}
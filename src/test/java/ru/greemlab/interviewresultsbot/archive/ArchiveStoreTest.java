@@ -0,0 +1,96 @@
+package ru.greemlab.interviewresultsbot.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.stats.ScoreAccumulator;
+import ru.greemlab.interviewresultsbot.stats.StatsSnapshot;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pagesByCursorInBothDirections() throws Exception {
+        var store = open();
+        var day = LocalDate.of(2025, 1, 1);
+        for (int i = 1; i <= 7; i++) {
+            store.add("Кандидат " + i, day.plusDays(i), "default", stats(3, i % 2 == 0));
+        }
+
+        var first = store.page(ArchiveOrder.BY_DATE, null, false, 3);
+        assertEquals(List.of("Кандидат 7", "Кандидат 6", "Кандидат 5"), names(first));
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+
+        var second = store.page(ArchiveOrder.BY_DATE, first.lastId(), false, 3);
+        assertEquals(List.of("Кандидат 4", "Кандидат 3", "Кандидат 2"), names(second));
+
+        var back = store.page(ArchiveOrder.BY_DATE, second.firstId(), true, 3);
+        assertEquals(names(first), names(back));
+        assertFalse(back.hasPrevious());
+
+        var invited = store.page(ArchiveOrder.INVITED, null, false, 10);
+        assertEquals(List.of("Кандидат 6", "Кандидат 4", "Кандидат 2"), names(invited));
+        store.close();
+    }
+
+    @Test
+    void reloadsIndexesFromDisk() throws Exception {
+        var store = open();
+        store.add("Средний", LocalDate.of(2025, 2, 1), "default", stats(3, false));
+        store.add("Лучший", LocalDate.of(2025, 1, 1), "default", stats(5, true));
+        store.add("Слабый", LocalDate.of(2025, 3, 1), "default", stats(1, false));
+        store.close();
+
+        var reopened = open();
+        assertEquals(3, reopened.size());
+        var best = reopened.page(ArchiveOrder.BY_SCORE, null, false, 10);
+        assertEquals(List.of("Лучший", "Средний", "Слабый"), names(best));
+
+        // Новые id продолжают нумерацию, а не начинают её заново
+        var added = reopened.add("Новый", LocalDate.of(2025, 4, 1), "default", stats(4, true));
+        assertEquals(4, added.id());
+        reopened.close();
+    }
+
+    @Test
+    void keepsTemplateAcrossReload() throws Exception {
+        var store = open();
+        store.add("Без шаблона", LocalDate.of(2025, 3, 1), null, stats(3, false));
+        store.add("Новый", LocalDate.of(2025, 4, 1), "backend", stats(4, true));
+        store.close();
+
+        var reopened = open();
+        assertNull(reopened.get(1).template());
+        assertEquals(1, reopened.get(1).stats().getScoreCount(0, 3));
+        assertEquals("backend", reopened.get(2).template());
+        assertEquals(4.0, reopened.get(2).averageScore());
+        reopened.close();
+    }
+
+    private ArchiveStore open() throws Exception {
+        var store = new ArchiveStore(dir);
+        store.open();
+        return store;
+    }
+
+    private static StatsSnapshot stats(int score, boolean invite) {
+        var accumulator = new ScoreAccumulator(3, 5);
+        accumulator.recordVote(new int[]{score, score, score}, invite);
+        return accumulator.snapshot();
+    }
+
+    private static List<String> names(ArchivePage page) {
+        return page.items().stream().map(ArchivedCandidate::name).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.greemlab.interviewresultsbot.metrics.BotMetrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboundMessageQueueTest {
+
+    private OutboundMessageQueue queue;
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        queue = new OutboundMessageQueue(1_000, 1_000, 1_000, 1_000, 0, 2, new BotMetrics(new SimpleMeterRegistry()));
+        // Первая отправка «висит», пока тест не наполнит очередь чата
+        queue.send(1L, () -> {
+            awaitQuietly(release);
+            executed.add("send");
+            return 10;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void coalescesPendingEditsOfSameMessage() throws Exception {
+        var first = queue.edit(1L, 10, () -> executed.add("edit-1"));
+        var second = queue.edit(1L, 10, () -> executed.add("edit-2"));
+        release.countDown();
+
+        second.get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("send", "edit-2"), executed);
+    }
+
+    @Test
+    void dropsEditWhenDeleteIsQueued() throws Exception {
+        var edit = queue.edit(1L, 10, () -> executed.add("edit"));
+        var delete = queue.delete(1L, 10, () -> executed.add("delete"));
+        var lateEdit = queue.edit(1L, 10, () -> executed.add("late-edit"));
+        release.countDown();
+
+        delete.get(5, TimeUnit.SECONDS);
+        edit.get(5, TimeUnit.SECONDS);
+        lateEdit.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("send", "delete"), executed);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateDispatcherTest {
+
+    private UpdateDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void keepsFifoOrderPerChat() throws InterruptedException {
+        dispatcher = new UpdateDispatcher(10_000, 1_000, 1_000, 4);
+        int chats = 20;
+        int updatesPerChat = 200;
+        var done = new CountDownLatch(chats * updatesPerChat);
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < updatesPerChat; i++) {
+            for (long chatId = 1; chatId <= chats; chatId++) {
+                final int seq = i;
+                final long chat = chatId;
+                assertTrue(dispatcher.dispatch(chat, () -> {
+                    seen.computeIfAbsent(chat, c -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                    done.countDown();
+                }));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(chats, seen.size());
+        seen.forEach((chat, list) -> {
+            for (int i = 0; i < updatesPerChat; i++) {
+                assertEquals(i, list.get(i), "Нарушен порядок в чате " + chat);
+            }
+        });
+    }
+
+    @Test
+    void rejectsWhenChatQueueIsFull() throws InterruptedException {
+        dispatcher = new UpdateDispatcher(100, 2, 100, 0);
+        var release = new CountDownLatch(1);
+
+        // Первая задача занимает обработчик, следующие две заполняют очередь чата
+        assertTrue(dispatcher.dispatch(1L, () -> awaitQuietly(release)));
+        Thread.sleep(100);
+        assertTrue(dispatcher.dispatch(1L, () -> {}));
+        assertTrue(dispatcher.dispatch(1L, () -> {}));
+        assertFalse(dispatcher.dispatch(1L, () -> {}));
+        assertEquals(1, dispatcher.getRejectedCount());
+
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.greemlab.interviewresultsbot.bot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Webhook проверяется «заглушкой Telegram»: в контроллер POST'ятся записанные JSON-обновления.
+ */
+@WebMvcTest(WebhookController.class)
+@TestPropertySource(properties = {
+        "app.bot.mode=webhook",
+        "app.bot.webhook.secret-token=test-secret"
+})
+class WebhookControllerTest {
+
+    private static final String PATH = "/telegram/webhook";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CandidateEvaluationBot bot;
+
+    @Test
+    void passesRecordedUpdateToBotOnce() throws Exception {
+        when(bot.acceptUpdate(any())).thenReturn(true);
+        var json = recorded("updates/callback-query.json");
+
+        postUpdate(json, "test-secret").andExpect(status().isOk());
+        // Повторная доставка того же update_id не должна обработаться второй раз
+        postUpdate(json, "test-secret").andExpect(status().isOk());
+
+        verify(bot, times(1)).acceptUpdate(argThat((Update u) ->
+                u.getUpdateId() == 100500 && "victoria".equals(u.getCallbackQuery().getData())));
+    }
+
+    @Test
+    void rejectsWrongSecretToken() throws Exception {
+        postUpdate(recorded("updates/text-message.json"), "wrong").andExpect(status().isUnauthorized());
+        postUpdate(recorded("updates/text-message.json"), null).andExpect(status().isUnauthorized());
+
+        verify(bot, never()).acceptUpdate(any());
+    }
+
+    @Test
+    void asksTelegramToRetryWhenQueueIsFull() throws Exception {
+        when(bot.acceptUpdate(any())).thenReturn(false, true);
+        var json = recorded("updates/text-message.json");
+
+        postUpdate(json, "test-secret").andExpect(status().isServiceUnavailable());
+        postUpdate(json, "test-secret").andExpect(status().isOk());
+
+        verify(bot, times(2)).acceptUpdate(any());
+    }
+
+    private ResultActions postUpdate(String json, String secret) throws Exception {
+        var request = post(PATH).contentType(MediaType.APPLICATION_JSON).content(json);
+        if (secret != null) {
+            request.header(WebhookController.SECRET_HEADER, secret);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private static String recorded(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.greemlab.interviewresultsbot.candidate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import ru.greemlab.interviewresultsbot.service.CallbackCommands;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CandidateMenuTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void paginatesAndRebuildsOnlyWhenRegistryChanges() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "a:A,b:B,c:C");
+        registry.load();
+        var menu = new CandidateMenu(registry, 2);
+
+        var first = menu.getPage(0);
+        assertEquals(2, menu.getPageCount());
+        assertSame(first, menu.getPage(0));
+        assertSame(menu.getPage(1), menu.getPage(42));
+        // Первая страница: два кандидата, «Вперёд», «Архив»
+        assertEquals(List.of(
+                        CallbackCommands.selectCandidate(registry.findByKey("a").id()),
+                        CallbackCommands.selectCandidate(registry.findByKey("b").id()),
+                        CallbackCommands.menuPage(1),
+                        CallbackCommands.ARCHIVE),
+                first.getKeyboard().stream().flatMap(List::stream).map(InlineKeyboardButton::getCallbackData).toList());
+
+        registry.add("d", "D");
+        assertNotSame(first, menu.getPage(0));
+        assertEquals(2, menu.getPageCount());
+        registry.add("e", "E");
+        assertEquals(3, menu.getPageCount());
+    }
+}
@@ -0,0 +1,63 @@
+package ru.greemlab.interviewresultsbot.candidate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CandidateRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void persistsChangesAndKeepsIds() throws Exception {
+        var file = dir.resolve("candidates.txt");
+        var registry = new CandidateRegistry(file, "victoria:Виктория,svetlana:Светлана");
+        registry.load();
+        long version = registry.getVersion();
+
+        var added = registry.add("boris", "Борис");
+        registry.changeStatus("victoria", Candidate.Status.RETIRED);
+
+        assertEquals(3, added.id());
+        assertNotEquals(version, registry.getVersion());
+        assertEquals(List.of("svetlana", "boris"), registry.getActive().stream().map(Candidate::key).toList());
+        assertSame(registry.findByKey("boris"), registry.get(added.id()));
+        assertThrows(IllegalArgumentException.class, () -> registry.add("boris", "Ещё Борис"));
+        assertThrows(IllegalArgumentException.class, () -> registry.add("Bad key", "Имя"));
+
+        // Начальный список больше не используется: реестр читается из файла
+        var reloaded = new CandidateRegistry(file, "other:Другой");
+        reloaded.load();
+        assertEquals(Candidate.Status.RETIRED, reloaded.findByKey("victoria").status());
+        assertEquals("Борис", reloaded.get(3).displayName());
+        assertEquals(2, reloaded.getActive().size());
+    }
+
+    @Test
+    void skipsMalformedLines() throws Exception {
+        var file = dir.resolve("candidates.txt");
+        Files.writeString(file, """
+                1;victoria;ACTIVE;Виктория
+                x;boris;ACTIVE;Борис
+                3;anna;HIRED;Анна
+                4;svetlana;ACTIVE/backend;Светлана
+                """);
+        var registry = new CandidateRegistry(file, "");
+        registry.load();
+
+        assertEquals(List.of("victoria", "svetlana"), registry.getActive().stream().map(Candidate::key).toList());
+        assertEquals("backend", registry.findByKey("svetlana").template());
+        assertNull(registry.findByKey("boris"));
+        assertNull(registry.findByKey("anna"));
+    }
+}
@@ -0,0 +1,121 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+import ru.greemlab.interviewresultsbot.service.UserStateService;
+import ru.greemlab.interviewresultsbot.service.VoteLedger;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ClusterNodeTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Узел кластера со своими сервисами в одном процессе с другими узлами.
+     */
+    private record Node(ClusterNode cluster, VoteStatisticsService stats, VoteLedger ledger) {
+
+        VoteLedger.Result vote(long chatId, int score) {
+            return ledger.commit(VoteEvent.of(chatId, "victoria", stats.getRound(), new int[]{score, score, score}, true));
+        }
+    }
+
+    private Node node(SharedStateStore store, String id) throws Exception {
+        var nodeDir = dir.resolve(id);
+        var registry = new CandidateRegistry(nodeDir.resolve("candidates.txt"), "victoria:Виктория");
+        registry.load();
+        var users = new UserStateService(registry, 60_000, 1_000, VoteStore.Mode.HEAP);
+        var stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        var journal = new VoteJournal(stats, users, false, nodeDir, VoteJournal.FsyncPolicy.NEVER, 0, 0, 1);
+        // Фоновая синхронизация не успеет сработать: шаги синхронизации вызываются из теста
+        var cluster = new ClusterNode(store, stats, users, journal, new ObjectMapper(), id, "http://" + id,
+                "/telegram/webhook", "webhook", "irb:", 60_000, 5_000, 64);
+        cluster.start();
+        return new Node(cluster, stats, new VoteLedger(users, stats, journal, Optional.of(cluster)));
+    }
+
+    @Test
+    void mergesCountersAndCountsEachVoteOnceAcrossNodes() throws Exception {
+        var store = new LocalSharedStateStore();
+        var a = node(store, "a");
+        var b = node(store, "b");
+        a.cluster().sync();
+
+        assertEquals(VoteLedger.Result.APPLIED, a.vote(1, 5));
+        assertEquals(VoteLedger.Result.APPLIED, b.vote(2, 3));
+        // Тот же голос дошёл до второго узла после смены владельца чата
+        assertEquals(VoteLedger.Result.DUPLICATE, b.vote(1, 5));
+
+        // Повторная публикация тех же счётчиков ничего не удваивает
+        for (int i = 0; i < 2; i++) {
+            a.cluster().sync();
+            b.cluster().sync();
+            a.cluster().sync();
+        }
+        for (var node : new Node[]{a, b}) {
+            var snapshot = node.stats().getSnapshot("victoria");
+            assertEquals(2, snapshot.getCount(0));
+            assertEquals(4.0, snapshot.getAverage(0));
+            assertEquals(2, snapshot.getInviteYes());
+        }
+        assertEquals(Set.of("a", "b"), a.cluster().liveNodes());
+        assertEquals(a.cluster().ownerOf(42), b.cluster().ownerOf(42));
+    }
+
+    @Test
+    void followsRestartAndDropsStoppedNode() throws Exception {
+        var store = new LocalSharedStateStore();
+        var a = node(store, "a");
+        var b = node(store, "b");
+        a.vote(1, 5);
+        a.cluster().sync();
+        b.cluster().sync();
+        assertEquals(1, b.stats().getSnapshot("victoria").getCount(0));
+
+        // /restart на узле b: узел a сбрасывается при синхронизации, голос из нового раунда снова принимается
+        b.cluster().advanceRound();
+        assertNull(b.stats().getSnapshot("victoria"));
+        a.cluster().sync();
+        assertNull(a.stats().getSnapshot("victoria"));
+        assertEquals(VoteLedger.Result.APPLIED, a.vote(1, 4));
+
+        a.cluster().stop();
+        b.cluster().sync();
+        assertEquals(Set.of("b"), b.cluster().liveNodes());
+        assertEquals("b", b.cluster().ownerOf(42).nodeId());
+    }
+
+    @Test
+    void skipsCorruptedSharedEntries() throws Exception {
+        var store = new LocalSharedStateStore();
+        var a = node(store, "a");
+        var b = node(store, "b");
+        a.vote(1, 5);
+        a.cluster().sync();
+
+        store.put("irb:nodes", "ghost", "никогда|http://ghost");
+        store.put("irb:stats:0", "victoria|ghost", "3:5:x:0:");
+        store.put("irb:stats:0", "victoria|broken", "3");
+        store.put("irb:cluster", "round", "сломан");
+        b.cluster().sync();
+
+        // Повреждённые записи пропущены, остальное синхронизировано как обычно
+        assertEquals(Set.of("a", "b"), b.cluster().liveNodes());
+        assertEquals(1, b.stats().getSnapshot("victoria").getCount(0));
+        assertEquals(VoteLedger.Result.APPLIED, b.vote(2, 3));
+    }
+}
@@ -0,0 +1,41 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int CHATS = 30_000;
+
+    @Test
+    void spreadsChatsEvenlyAndMovesOnlyLostNodeChats() {
+        var full = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        // Порядок перечисления узлов не влияет на кольцо
+        var shuffled = new ConsistentHashRing(List.of("c", "a", "b"), 128);
+        var withoutB = new ConsistentHashRing(List.of("a", "c"), 128);
+
+        var perNode = new HashMap<String, Integer>();
+        for (long chatId = 1; chatId <= CHATS; chatId++) {
+            var owner = full.owner(chatId);
+            assertEquals(owner, shuffled.owner(chatId));
+            perNode.merge(owner, 1, Integer::sum);
+            if (!owner.equals("b")) {
+                assertEquals(owner, withoutB.owner(chatId), "чат " + chatId + " сменил живого владельца");
+            }
+        }
+        for (int count : perNode.values()) {
+            assertTrue(Math.abs(count - CHATS / 3) < CHATS / 10, "перекос распределения: " + perNode);
+        }
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertNull(new ConsistentHashRing(List.of(), 16).owner(42));
+    }
+}
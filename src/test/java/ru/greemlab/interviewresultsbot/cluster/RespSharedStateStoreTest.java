@@ -0,0 +1,154 @@
+package ru.greemlab.interviewresultsbot.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Клиент RESP против заглушки сервера в том же процессе: заглушка разбирает команды по протоколу
+ * и выполняет их на {@link LocalSharedStateStore}.
+ */
+class RespSharedStateStoreTest {
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private final LocalSharedStateStore backend = new LocalSharedStateStore();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new ServerSocket(0);
+        acceptor = Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    var client = server.accept();
+                    Thread.ofVirtual().start(() -> serve(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.close();
+        acceptor.join();
+    }
+
+    @Test
+    void speaksRedisProtocol() {
+        try (var store = new RespSharedStateStore("localhost", server.getLocalPort(), 2_000, "secret")) {
+            store.put("h", "узел", "1|http://a");
+            store.put("h", "b", "");
+            assertEquals(Map.of("узел", "1|http://a", "b", ""), store.entries("h"));
+            assertEquals(Map.of(), store.entries("missing"));
+
+            assertEquals(5, store.increment("cluster", "round", 5));
+            assertEquals(4, store.increment("cluster", "round", -1));
+
+            assertTrue(store.addMember("voted:0", "1:victoria"));
+            assertFalse(store.addMember("voted:0", "1:victoria"));
+
+            store.remove("h", "b");
+            assertEquals(Map.of("узел", "1|http://a"), store.entries("h"));
+            store.delete("h");
+            assertEquals(Map.of(), store.entries("h"));
+
+            assertThrows(IllegalStateException.class, () -> store.call("FLUSHALL"));
+            // Ошибка команды не рвёт соединение
+            assertEquals("PONG", store.call("PING"));
+        }
+    }
+
+    /* ====================== Заглушка сервера ====================== */
+
+    private void serve(Socket client) {
+        try (client; InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+            List<String> command;
+            while ((command = readCommand(in)) != null) {
+                out.write(execute(command).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // клиент отключился
+        }
+    }
+
+    private String execute(List<String> command) {
+        var args = command.subList(1, command.size());
+        return switch (command.get(0)) {
+            case "AUTH" -> args.get(0).equals("secret") ? "+OK\r\n" : "-WRONGPASS\r\n";
+            case "PING" -> "+PONG\r\n";
+            case "HSET" -> {
+                backend.put(args.get(0), args.get(1), args.get(2));
+                yield ":1\r\n";
+            }
+            case "HGETALL" -> {
+                var sb = new StringBuilder();
+                var entries = backend.entries(args.get(0));
+                sb.append('*').append(entries.size() * 2).append("\r\n");
+                entries.forEach((field, value) -> sb.append(bulk(field)).append(bulk(value)));
+                yield sb.toString();
+            }
+            case "HDEL" -> {
+                backend.remove(args.get(0), args.get(1));
+                yield ":1\r\n";
+            }
+            case "HINCRBY" -> ":" + backend.increment(args.get(0), args.get(1), Long.parseLong(args.get(2))) + "\r\n";
+            case "SADD" -> backend.addMember(args.get(0), args.get(1)) ? ":1\r\n" : ":0\r\n";
+            case "DEL" -> {
+                backend.delete(args.get(0));
+                yield ":1\r\n";
+            }
+            default -> "-ERR unknown command '" + command.get(0) + "'\r\n";
+        };
+    }
+
+    private static String bulk(String value) {
+        return "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        int count = Integer.parseInt(readLine(in));
+        var command = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            in.read(); // '$'
+            int length = Integer.parseInt(readLine(in));
+            command.add(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            in.readNBytes(2);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        var sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            sb.append((char) b);
+        }
+        in.read();
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.greemlab.interviewresultsbot.evaluation;
+
+import org.junit.jupiter.api.Test;
+import ru.greemlab.interviewresultsbot.service.CallbackCommands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.greemlab.interviewresultsbot.service.UserStateService.UserState;
+
+class EvaluationFlowTest {
+
+    private static long token(String data) {
+        return CallbackCommands.decode(data);
+    }
+
+    @Test
+    void walksTemplateStepByStep() {
+        var templates = new EvaluationTemplates("default=Ответственность:5,Интерес:5;short=Код:10", "default",
+                EvaluationFlow.Mode.STEPS);
+        var flow = templates.flow("short");
+
+        var begin = flow.transition(EvaluationFlow.START, token(CallbackCommands.selectCandidate(7)));
+        assertEquals(EvaluationFlow.Effect.BEGIN, begin.effect());
+        assertEquals(1, begin.nextStep());
+        assertEquals("➡ Шаг 1/2: Оцените «Код» (1-10)", flow.prompt(1));
+        assertEquals(2, flow.keyboard(1, 7, 42).getKeyboard().size());
+        // Раскладка шага общая, а кандидат и nonce свои у каждой выданной клавиатуры
+        var ten = token(flow.keyboard(1, 7, 42).getKeyboard().get(1).get(4).getCallbackData());
+        assertEquals(10, CallbackCommands.score(ten));
+        assertEquals(7, CallbackCommands.candidateId(ten));
+        assertEquals(42, CallbackCommands.nonce(ten));
+        assertEquals(43, CallbackCommands.nonce(token(flow.keyboard(1, 8, 43).getKeyboard().get(0).get(0).getCallbackData())));
+
+        var score = flow.transition(1, token(CallbackCommands.score(0, 10, 7, 42)));
+        assertEquals(EvaluationFlow.Effect.RECORD_SCORE, score.effect());
+        assertEquals(UserState.WAITING_INVITE, score.nextState());
+
+        var finish = flow.transition(2, token(CallbackCommands.invite(true, 7, 42)));
+        assertEquals(EvaluationFlow.Effect.FINISH, finish.effect());
+        assertEquals(EvaluationFlow.START, finish.nextStep());
+    }
+
+    @Test
+    void rejectsButtonsOfOtherSteps() {
+        var flow = EvaluationTemplates.defaults().flow(null);
+
+        assertNull(flow.transition(EvaluationFlow.START, token(CallbackCommands.score(0, 5, 1, 1))));
+        // Оценка второго критерия на шаге первого — кнопка старой клавиатуры
+        assertNull(flow.transition(1, token(CallbackCommands.score(1, 5, 1, 1))));
+        assertNull(flow.transition(3, token(CallbackCommands.invite(false, 1, 1))));
+        assertNull(flow.transition(4, token(CallbackCommands.score(2, 5, 1, 1))));
+    }
+
+    @Test
+    void rejectsScoresAboveCriterionScale() {
+        var flow = new EvaluationFlow(EvaluationTemplate.parse("t", "Код:3"));
+
+        assertNull(flow.transition(1, token(CallbackCommands.score(0, 4, 1, 1))));
+        assertEquals(EvaluationFlow.Effect.RECORD_SCORE, flow.transition(1, token(CallbackCommands.score(0, 3, 1, 1))).effect());
+    }
+
+    @Test
+    void scorecardMarksInPlaceAndSubmitsOnce() {
+        var flow = new EvaluationFlow(EvaluationTemplate.parse("t", "Код:3,Команда:5"), EvaluationFlow.Mode.SCORECARD);
+
+        var begin = flow.transition(EvaluationFlow.START, token(CallbackCommands.selectCandidate(7)));
+        assertEquals(UserState.SCORECARD, begin.nextState());
+        // Подпись, три оценки, подпись, пять оценок, приглашение и «Отправить»
+        assertEquals(6, flow.keyboard(begin.nextStep(), 7, 42).getKeyboard().size());
+
+        int card = begin.nextStep();
+        assertEquals(EvaluationFlow.Effect.MARK_SCORE, flow.transition(card, token(CallbackCommands.score(1, 5, 7, 42))).effect());
+        assertNull(flow.transition(card, token(CallbackCommands.score(0, 4, 7, 42))));
+        assertNull(flow.transition(card, token(CallbackCommands.score(2, 1, 7, 42))));
+        assertEquals(EvaluationFlow.Effect.MARK_INVITE, flow.transition(card, token(CallbackCommands.invite(true, 7, 42))).effect());
+
+        var submit = flow.transition(card, token(CallbackCommands.submit(7, 42)));
+        assertEquals(EvaluationFlow.Effect.SUBMIT, submit.effect());
+        assertEquals(EvaluationFlow.START, submit.nextStep());
+    }
+
+    @Test
+    void fallsBackToDefaultTemplate() {
+        var templates = EvaluationTemplates.defaults();
+
+        assertEquals("default", templates.flow("missing").getTemplate().key());
+        assertThrows(IllegalStateException.class, () -> new EvaluationTemplates("a=Код:5", "default", EvaluationFlow.Mode.STEPS));
+        assertThrows(IllegalArgumentException.class, () -> EvaluationTemplate.parse("t", "Код:1"));
+    }
+}
@@ -0,0 +1,283 @@
+package ru.greemlab.interviewresultsbot.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.service.UserStateService;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoteJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysVotesAfterRestart() throws Exception {
+        var first = open(newStats(), newUsers(), 1_000);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 4, 0}, true));
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 0, 0}, false));
+        first.appendVote(VoteEvent.of(1L, "svetlana", 0, new int[]{2, 2, 2}, false));
+        first.appendArchive("svetlana");
+        first.stop();
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        var snapshot = stats.getSnapshot("victoria");
+        assertEquals(2, snapshot.getCount(0));
+        assertEquals(4.0, snapshot.getAverage(0));
+        assertEquals(1, snapshot.getCount(1));
+        assertEquals(1, snapshot.getInviteYes());
+        assertTrue(users.hasVoted(1L, "victoria"));
+        assertTrue(users.hasVoted(2L, "victoria"));
+        assertNull(stats.getSnapshot("svetlana"));
+        assertFalse(users.hasVoted(1L, "svetlana"));
+    }
+
+    @Test
+    void replaysWholeVotesOncePerInterviewer() throws Exception {
+        var first = open(newStats(), newUsers(), 1_000);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 4, 3}, true));
+        // Повтор того же голоса (например, после сбоя до отметки «голосовал») не учитывается
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{1, 1, 1}, false));
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 4, 5}, false));
+        first.stop();
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        var snapshot = stats.getSnapshot("victoria");
+        assertEquals(2, snapshot.getCount(0));
+        assertEquals(4.0, snapshot.getAverage(0));
+        assertEquals(1, snapshot.getInviteYes());
+        assertEquals(1, snapshot.getInviteNo());
+        assertTrue(users.hasVoted(2L, "victoria"));
+    }
+
+    @Test
+    void compactsIntoSnapshotWithoutDoubleCounting() throws Exception {
+        var first = open(newStats(), newUsers(), 3);
+        for (int i = 0; i < 7; i++) {
+            first.appendVote(VoteEvent.of(i, "svetlana", 0, new int[]{0, 0, 5}, true));
+        }
+        first.stop();
+        assertTrue(Files.exists(dir.resolve(VoteJournal.SNAPSHOT_FILE)));
+
+        // Два перезапуска подряд не должны удваивать голоса
+        open(newStats(), newUsers(), 3).stop();
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 3).stop();
+
+        assertEquals(7, stats.getSnapshot("svetlana").getCount(2));
+        assertEquals(7, stats.getSnapshot("svetlana").getInviteYes());
+        assertTrue(users.hasVoted(6L, "svetlana"));
+    }
+
+    @Test
+    void skipsCorruptedSnapshotWithoutKeepingItsCounters() throws Exception {
+        var first = open(newStats(), newUsers(), 3);
+        for (int i = 0; i < 7; i++) {
+            first.appendVote(VoteEvent.of(i, "svetlana", 0, new int[]{0, 0, 5}, true));
+        }
+        first.stop();
+        var snapshot = dir.resolve(VoteJournal.SNAPSHOT_FILE);
+        var bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        // Счётчики и отметки из снапшота с неверной суммой не учитываются ни целиком, ни частично
+        assertNull(stats.getSnapshot("svetlana"));
+        assertFalse(users.hasVoted(0L, "svetlana"));
+    }
+
+    @Test
+    void restoresRoundAndDayBucketsFromSnapshotAndTail() throws Exception {
+        var first = open(newStats(), newUsers(), 2);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, true));
+        first.appendRoundClose();
+        // После закрытия раунда тот же интервьюер снова голосует — в корзину раунда 1
+        first.appendVote(VoteEvent.of(1L, "victoria", 1, new int[]{1, 1, 1}, false));
+        first.stop();
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        assertEquals(1, stats.getRound());
+        assertEquals(4.0, stats.getRoundSnapshot("victoria", 0).getAverage(0));
+        assertEquals(1, stats.getRoundSnapshot("victoria", 1).getCount(0));
+        assertEquals(3, stats.getDaysSnapshot("victoria", 1).getCount(0));
+        assertEquals(3, stats.getSnapshot("victoria").getCount(0));
+        assertTrue(users.hasVoted(1L, "victoria"));
+        assertFalse(users.hasVoted(2L, "victoria"));
+    }
+
+    @Test
+    void replaysVoteAppendedAfterRoundCloseIntoItsOwnRound() throws Exception {
+        var first = open(newStats(), newUsers(), 1_000);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        first.appendRoundClose();
+        // Голос учтён до /new_round, но лёг в журнал уже после закрытия раунда
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, false));
+        first.appendVote(VoteEvent.of(1L, "victoria", 1, new int[]{1, 1, 1}, false));
+        first.stop();
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        assertEquals(1, stats.getRound());
+        assertEquals(2, stats.getRoundSnapshot("victoria", 0).getCount(0));
+        assertEquals(4.0, stats.getRoundSnapshot("victoria", 0).getAverage(0));
+        assertEquals(1, stats.getRoundSnapshot("victoria", 1).getCount(0));
+        assertEquals(1.0, stats.getRoundSnapshot("victoria", 1).getAverage(0));
+        assertEquals(3, stats.getSnapshot("victoria").getCount(0));
+        assertTrue(users.hasVoted(1L, "victoria"));
+        // Отметка запоздавшего голоса не переносится в новый раунд
+        assertFalse(users.hasVoted(2L, "victoria"));
+    }
+
+    @Test
+    void dropsVoteOfRoundWipedByReset() throws Exception {
+        var first = open(newStats(), newUsers(), 2);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        first.appendReset();
+        // Голос раунда, стёртого /restart, лёг в журнал после сброса (и после снапшота)
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, false));
+        first.appendVote(VoteEvent.of(1L, "svetlana", 1, new int[]{4, 4, 4}, true));
+        first.stop();
+
+        var stats = newStats();
+        var users = newUsers();
+        open(stats, users, 1_000).stop();
+
+        assertEquals(1, stats.getRound());
+        assertNull(stats.getSnapshot("victoria"));
+        assertFalse(users.hasVoted(2L, "victoria"));
+        assertEquals(1, stats.getSnapshot("svetlana").getCount(0));
+    }
+
+    @Test
+    void ignoresTornTailAndReset() throws Exception {
+        var first = open(newStats(), newUsers(), 1_000);
+        first.appendVote(VoteEvent.of(1L, "alexander", 0, new int[]{0, 2, 0}, true));
+        first.appendReset();
+        first.appendVote(VoteEvent.of(1L, "svetlana", 1, new int[]{0, 3, 0}, true));
+        first.stop();
+        // Имитируем недописанную запись при падении процесса
+        Files.write(dir.resolve(VoteJournal.JOURNAL_FILE), new byte[]{0, 0, 0, 40, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        var stats = newStats();
+        var journal = open(stats, newUsers(), 1_000);
+        journal.appendVote(VoteEvent.of(2L, "svetlana", 1, new int[]{0, 5, 0}, false));
+        journal.stop();
+
+        assertNull(stats.getSnapshot("alexander"));
+        var restored = newStats();
+        open(restored, newUsers(), 1_000).stop();
+        assertEquals(2, restored.getSnapshot("svetlana").getCount(1));
+        assertEquals(4.0, restored.getSnapshot("svetlana").getAverage(1));
+    }
+
+    @Test
+    void truncatesJournalAtRecordWithBadChecksum() throws Exception {
+        var first = open(newStats(), newUsers(), 1_000);
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{1, 1, 1}, false));
+        first.appendVote(VoteEvent.of(3L, "victoria", 0, new int[]{1, 1, 1}, false));
+        first.stop();
+        // Портим байт внутри второй записи: она и всё после неё отбрасываются
+        var file = dir.resolve(VoteJournal.JOURNAL_FILE);
+        var bytes = Files.readAllBytes(file);
+        int second = JournalRecord.HEADER_BYTES + ByteBuffer.wrap(bytes).getInt(0);
+        bytes[second + JournalRecord.HEADER_BYTES + 10] ^= 1;
+        Files.write(file, bytes);
+
+        var stats = newStats();
+        var users = newUsers();
+        var journal = open(stats, users, 1_000);
+        assertEquals(second, Files.size(file));
+        assertEquals(1, stats.getSnapshot("victoria").getCount(0));
+        assertFalse(users.hasVoted(2L, "victoria"));
+        // Новый голос пишется сразу за последней целой записью
+        journal.appendVote(VoteEvent.of(4L, "victoria", 0, new int[]{3, 3, 3}, true));
+        journal.stop();
+
+        var restored = newStats();
+        open(restored, newUsers(), 1_000).stop();
+        assertEquals(2, restored.getSnapshot("victoria").getCount(0));
+        assertEquals(4.0, restored.getSnapshot("victoria").getAverage(0));
+    }
+
+    @Test
+    void retriesBatchAfterFailedWrite() throws Exception {
+        var stats = newStats();
+        var first = new VoteJournal(stats, newUsers(), true, dir, VoteJournal.FsyncPolicy.ALWAYS, 0, 1_000, 1_024) {
+            private boolean failed;
+
+            @Override
+            void write(ByteBuffer data) throws IOException {
+                if (!failed) {
+                    // Диск отказал, успев принять половину пачки
+                    failed = true;
+                    super.write(data.slice(data.position(), data.remaining() / 2));
+                    throw new IOException("Диск недоступен");
+                }
+                super.write(data);
+            }
+        };
+        first.start();
+        first.appendVote(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        first.appendVote(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, false));
+        first.stop();
+
+        // Пачка дописана повтором поверх обрывка — каждый голос ровно один раз
+        var restored = newStats();
+        var users = newUsers();
+        open(restored, users, 1_000).stop();
+        var snapshot = restored.getSnapshot("victoria");
+        assertEquals(2, snapshot.getCount(0));
+        assertEquals(4.0, snapshot.getAverage(0));
+        assertEquals(1, snapshot.getInviteYes());
+        assertTrue(users.hasVoted(2L, "victoria"));
+    }
+
+    private VoteStatisticsService newStats() {
+        return new VoteStatisticsService(new CandidateRegistry(dir.resolve("candidates.txt"), ""), EvaluationTemplates.defaults());
+    }
+
+    private UserStateService newUsers() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория,svetlana:Светлана");
+        registry.load();
+        return new UserStateService(registry, 60_000, 1_000, VoteStore.Mode.HEAP);
+    }
+
+    private VoteJournal open(VoteStatisticsService stats, UserStateService users, long snapshotEvery) throws Exception {
+        var journal = new VoteJournal(stats, users, true, dir, VoteJournal.FsyncPolicy.ALWAYS, 0,
+                snapshotEvery, 1_024);
+        journal.start();
+        return journal;
+    }
+}
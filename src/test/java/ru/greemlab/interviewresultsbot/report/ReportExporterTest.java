@@ -0,0 +1,78 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private ReportExporter exporter() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория \"Вика\"");
+        registry.load();
+        var stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        stats.apply(VoteEvent.of(1L, "victoria", stats.getRound(), new int[]{5, 4, 3}, true));
+        stats.apply(VoteEvent.of(2L, "victoria", stats.getRound(), new int[]{4, 4, 0}, false));
+        var archive = new ArchiveStore(dir);
+        archive.open();
+        // Больше одной страницы архива — выгрузка должна пройти их все
+        for (int i = 0; i < 300; i++) {
+            archive.add("Архивный " + i, LocalDate.of(2024, 1, 1).plusDays(i), "default", stats.getSnapshot("victoria"));
+        }
+        return new ReportExporter(stats, archive, registry, EvaluationTemplates.defaults(), 1);
+    }
+
+    @Test
+    void writesCsvRowPerCriterion() throws Exception {
+        var out = new ByteArrayOutputStream();
+        exporter().write(ReportFormat.CSV, out);
+        var lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+
+        assertTrue(lines[0].startsWith("\uFEFFРаздел,Кандидат,Дата архивации,Критерий,Оценок,Среднее,Медиана,Оценка 1"));
+        // Заголовок, три критерия текущего кандидата и по три на каждого архивного
+        assertEquals(1 + 3 + 300 * 3, lines.length);
+        assertEquals("Текущая статистика,\"Виктория \"\"Вика\"\"\",,Ответственность,2,4.5,4.5,0,0,0,1,1,,,,,,,,,,,1,1",
+                lines[1]);
+        assertEquals("Текущая статистика,\"Виктория \"\"Вика\"\"\",,Результативность,1,3.0,3.0,0,0,1,0,0,,,,,,,,,,,1,1",
+                lines[3]);
+        assertTrue(lines[4].startsWith("Архив,Архивный 299,2024-10-26,Ответственность,2,"));
+    }
+
+    @Test
+    void writesXlsxSheetsAsZipParts() throws Exception {
+        var out = new ByteArrayOutputStream();
+        exporter().write(ReportFormat.XLSX, out);
+
+        var parts = new HashMap<String, String>();
+        try (var zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertTrue(parts.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels",
+                "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml", "xl/worksheets/sheet2.xml")));
+        assertTrue(parts.get("xl/workbook.xml").contains("<sheet name=\"Архив\" sheetId=\"2\" r:id=\"rId2\"/>"));
+        var current = parts.get("xl/worksheets/sheet1.xml");
+        assertTrue(current.contains("<t xml:space=\"preserve\">Виктория &quot;Вика&quot;</t>"));
+        assertTrue(current.contains("<c><v>4.5</v></c>"));
+        assertEquals(1 + 300 * 3, parts.get("xl/worksheets/sheet2.xml").split("<row>").length - 1);
+    }
+}
@@ -0,0 +1,148 @@
+package ru.greemlab.interviewresultsbot.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.greemlab.interviewresultsbot.archive.ArchiveStore;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationFlow;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.service.VoteStatisticsService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StatsApiControllerTest {
+
+    private static final String TOKEN = "test-token";
+
+    @TempDir
+    Path dir;
+
+    private VoteStatisticsService stats;
+    private ArchiveStore archive;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория,alexander:Александр");
+        registry.load();
+        stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        archive = new ArchiveStore(dir);
+        archive.open();
+        var controller = new StatsApiController(stats, registry, EvaluationTemplates.defaults(), archive,
+                new ReportAccess(TOKEN), new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("app.report.api-path", "/api/stats")
+                .build();
+    }
+
+    private MvcResult fetch(String path, String etag) throws Exception {
+        var request = get(path).header(ReportAccess.TOKEN_HEADER, TOKEN);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        var started = mockMvc.perform(request).andReturn();
+        return started.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(started)).andReturn() : started;
+    }
+
+    @Test
+    void answersNotModifiedUntilCandidateVersionChanges() throws Exception {
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 4, 0}, true));
+
+        var first = fetch("/api/stats/candidates/victoria", null);
+        assertEquals(200, first.getResponse().getStatus());
+        var etag = first.getResponse().getHeader("ETag");
+        assertTrue(first.getResponse().getContentAsString().contains(
+                "\"criteria\":[{\"title\":\"Ответственность\",\"count\":1,\"average\":5.0,\"median\":5.0,"
+                + "\"histogram\":[0,0,0,0,1]}"));
+        assertTrue(first.getResponse().getContentAsString().contains("\"average\":null"));
+
+        assertEquals(304, fetch("/api/stats/candidates/victoria", etag).getResponse().getStatus());
+
+        stats.apply(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, false));
+        var changed = fetch("/api/stats/candidates/victoria", etag);
+        assertEquals(200, changed.getResponse().getStatus());
+        assertNotEquals(etag, changed.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void listTagChangesWithAnyCandidateAndRemoval() throws Exception {
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        stats.apply(VoteEvent.of(1L, "alexander", 0, new int[]{2, 2, 2}, false));
+
+        var first = fetch("/api/stats/candidates", null);
+        var body = first.getResponse().getContentAsString();
+        assertTrue(body.startsWith("[{\"key\":\"victoria\"") || body.startsWith("[{\"key\":\"alexander\""));
+        assertTrue(body.contains("\"name\":\"Александр\",\"status\":\"active\",\"template\":\"default\""));
+        var etag = first.getResponse().getHeader("ETag");
+        assertEquals(304, fetch("/api/stats/candidates", etag).getResponse().getStatus());
+
+        stats.apply(VoteEvent.of(2L, "alexander", 0, new int[]{3, 0, 0}, true));
+        var afterVote = fetch("/api/stats/candidates", etag).getResponse();
+        assertEquals(200, afterVote.getStatus());
+
+        // Удаление и новый голос могут вернуть ту же сумму версий — метку отличает поколение
+        stats.remove("alexander");
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{1, 1, 1}, false));
+        assertEquals(200, fetch("/api/stats/candidates", afterVote.getHeader("ETag")).getResponse().getStatus());
+    }
+
+    @Test
+    void pagesArchiveWithTagFromArchiveSize() throws Exception {
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{4, 4, 4}, true));
+        for (int i = 0; i < 5; i++) {
+            archive.add("Архивный " + i, LocalDate.of(2024, 1, 1).plusDays(i), "default", stats.getSnapshot("victoria"));
+        }
+
+        var first = fetch("/api/stats/archive?limit=2", null);
+        var body = first.getResponse().getContentAsString();
+        assertTrue(body.startsWith("{\"order\":\"by_date\",\"total\":5,\"hasPrevious\":false,\"hasNext\":true,"
+                                   + "\"items\":[{\"id\":5,\"name\":\"Архивный 4\",\"archivedOn\":\"2024-01-05\""));
+        var etag = first.getResponse().getHeader("ETag");
+        assertEquals(304, fetch("/api/stats/archive?limit=2", etag).getResponse().getStatus());
+
+        archive.add("Архивный 5", LocalDate.of(2024, 2, 1), "default", stats.getSnapshot("victoria"));
+        assertEquals(200, fetch("/api/stats/archive?limit=2", etag).getResponse().getStatus());
+        assertEquals(400, fetch("/api/stats/archive?order=unknown", null).getResponse().getStatus());
+    }
+
+    @Test
+    void labelsArchivedCandidatesWithTheirTemplate() throws Exception {
+        var templates = new EvaluationTemplates(EvaluationTemplates.DEFAULT_TEMPLATES + ";backend=Алгоритмы:5,Код:5",
+                EvaluationTemplates.DEFAULT_KEY, EvaluationFlow.Mode.STEPS);
+        var controller = new StatsApiController(stats, new CandidateRegistry(dir.resolve("none.txt"), ""), templates,
+                archive, new ReportAccess(TOKEN), new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("app.report.api-path", "/api/stats")
+                .build();
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{4, 4, 4}, true));
+        archive.add("Бэкендер", LocalDate.of(2024, 1, 2), "backend", stats.getSnapshot("victoria"));
+        // Запись без шаблона (старого формата) подписывается шаблоном по умолчанию
+        archive.add("Старый", LocalDate.of(2024, 1, 1), null, stats.getSnapshot("victoria"));
+
+        var body = fetch("/api/stats/archive?limit=2", null).getResponse().getContentAsString();
+        assertTrue(body.contains("\"name\":\"Бэкендер\",\"archivedOn\":\"2024-01-02\",\"template\":\"backend\""));
+        assertTrue(body.contains("{\"title\":\"Алгоритмы\""));
+        assertTrue(body.contains("\"name\":\"Старый\",\"archivedOn\":\"2024-01-01\",\"template\":\"default\""));
+        assertTrue(body.contains("{\"title\":\"Ответственность\""));
+    }
+
+    @Test
+    void rejectsMissingTokenAndUnknownCandidate() throws Exception {
+        assertEquals(401, mockMvc.perform(get("/api/stats/candidates")).andReturn().getResponse().getStatus());
+        assertEquals(404, fetch("/api/stats/candidates/nobody", null).getResponse().getStatus());
+    }
+}
@@ -0,0 +1,65 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.junit.jupiter.api.Test;
+import ru.greemlab.interviewresultsbot.archive.ArchiveOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallbackCommandsTest {
+
+    @Test
+    void roundTripsVotingButtons() {
+        var data = CallbackCommands.score(2, 3, 123_456, 65_535);
+        assertTrue(data.length() <= 64);
+
+        long token = CallbackCommands.decode(data);
+        assertEquals(CallbackCommands.Action.SCORE, CallbackCommands.action(token));
+        assertEquals(2, CallbackCommands.criterion(token));
+        assertEquals(3, CallbackCommands.score(token));
+        assertEquals(123_456, CallbackCommands.candidateId(token));
+        assertEquals(65_535, CallbackCommands.nonce(token));
+
+        long invite = CallbackCommands.decode(CallbackCommands.invite(false, 7, 9));
+        assertEquals(CallbackCommands.Action.INVITE, CallbackCommands.action(invite));
+        assertFalse(CallbackCommands.invite(invite));
+        assertEquals(7, CallbackCommands.candidateId(invite));
+    }
+
+    @Test
+    void roundTripsNavigationButtons() {
+        long archive = CallbackCommands.decode(
+                CallbackCommands.archivePage(ArchiveOrder.INVITED, CallbackCommands.ARCHIVE_PREV, 0));
+        assertEquals(ArchiveOrder.INVITED, CallbackCommands.archiveOrder(archive));
+        assertEquals(CallbackCommands.ARCHIVE_PREV, CallbackCommands.archiveDirection(archive));
+        assertEquals(0, CallbackCommands.archiveCursor(archive));
+
+        long first = CallbackCommands.decode(
+                CallbackCommands.archivePage(ArchiveOrder.BY_DATE, CallbackCommands.ARCHIVE_FIRST, null));
+        assertNull(CallbackCommands.archiveCursor(first));
+
+        assertEquals(2, CallbackCommands.page(CallbackCommands.decode(CallbackCommands.menuPage(2))));
+        assertEquals(CallbackCommands.Action.CURRENT_STATS,
+                CallbackCommands.action(CallbackCommands.decode(CallbackCommands.CURRENT_STATS)));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        var data = CallbackCommands.selectCandidate(5);
+        assertEquals(CallbackCommands.INVALID, CallbackCommands.decode(null));
+        assertEquals(CallbackCommands.INVALID, CallbackCommands.decode("victoria"));
+        assertEquals(CallbackCommands.INVALID, CallbackCommands.decode("RESP_5_____"));
+        assertEquals(CallbackCommands.INVALID, CallbackCommands.decode(data + "A"));
+        assertEquals(CallbackCommands.INVALID, CallbackCommands.decode("Ж" + data.substring(1)));
+
+        // Любая изменённая буква ломает контрольную сумму
+        for (int i = 0; i < data.length(); i++) {
+            char replacement = data.charAt(i) == 'B' ? 'C' : 'B';
+            var corrupted = data.substring(0, i) + replacement + data.substring(i + 1);
+            assertEquals(CallbackCommands.INVALID, CallbackCommands.decode(corrupted), corrupted);
+        }
+        assertNull(CallbackCommands.action(CallbackCommands.INVALID));
+    }
+}
@@ -0,0 +1,175 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import ru.greemlab.interviewresultsbot.bot.CandidateEvaluationBot;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LiveStatsBoardTest {
+
+    private static final long CHAT = 7L;
+    private static final int MESSAGE = 42;
+    private static final long INTERVAL = 10_000;
+
+    @TempDir
+    Path dir;
+
+    private VoteStatisticsService stats;
+    private CandidateEvaluationBot bot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория");
+        registry.load();
+        stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        bot = mock(CandidateEvaluationBot.class);
+        when(bot.sendTextMessage(eq(CHAT), anyString(), any())).thenReturn(CompletableFuture.completedFuture(MESSAGE));
+        when(bot.pinMessage(CHAT, MESSAGE)).thenReturn(CompletableFuture.completedFuture(true));
+        when(bot.editMessage(eq(CHAT), eq(MESSAGE), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private LiveStatsBoard board() throws Exception {
+        var factory = new DefaultListableBeanFactory();
+        factory.registerSingleton("bot", bot);
+        var board = new LiveStatsBoard(stats, factory.getBeanProvider(CandidateEvaluationBot.class),
+                dir.resolve("live-boards.txt"), INTERVAL, 1_000);
+        board.load();
+        return board;
+    }
+
+    @Test
+    void coalescesVotesIntoOneEditPerInterval() throws Exception {
+        var board = board();
+        long now = System.currentTimeMillis();
+        board.subscribe(bot, CHAT);
+        verify(bot).pinMessage(CHAT, MESSAGE);
+
+        // Без новых голосов текст тот же — правки нет, даже когда интервал прошёл
+        board.tick(now + INTERVAL * 2);
+        verify(bot, never()).editMessage(any(), any(), anyString(), any());
+
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        board.tick(now + INTERVAL * 3);
+        stats.apply(VoteEvent.of(2L, "victoria", 0, new int[]{3, 3, 3}, true));
+        stats.apply(VoteEvent.of(3L, "victoria", 0, new int[]{4, 4, 4}, false));
+        board.tick(now + INTERVAL * 3 + 1_000);
+        verify(bot, times(1)).editMessage(eq(CHAT), eq(MESSAGE), anyString(), any());
+
+        board.tick(now + INTERVAL * 4);
+        verify(bot, times(2)).editMessage(eq(CHAT), eq(MESSAGE), anyString(), any());
+        verify(bot).editMessage(eq(CHAT), eq(MESSAGE), argThat((String text) -> text.contains("(голосов: 3)")), any());
+    }
+
+    private static TelegramApiRequestException apiError(int code, String description) throws IOException {
+        var response = new ObjectMapper().readValue("{\"ok\":false,\"error_code\":" + code
+                                                     + ",\"description\":\"" + description + "\"}", ApiResponse.class);
+        return new TelegramApiRequestException("Ошибка Bot API", response);
+    }
+
+    private void failEdits(Throwable failure) {
+        when(bot.editMessage(eq(CHAT), eq(MESSAGE), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(failure));
+    }
+
+    @Test
+    void keepsRestoredBoardWhenTextIsNotModified() throws Exception {
+        board().subscribe(bot, CHAT);
+
+        var restored = board();
+        assertTrue(restored.isSubscribed(CHAT));
+        failEdits(apiError(400, "Bad Request: message is not modified"));
+        // После перезапуска показанный текст неизвестен, поэтому первая проверка правит сообщение
+        long now = System.currentTimeMillis();
+        restored.tick(now + INTERVAL);
+        verify(bot).editMessage(eq(CHAT), eq(MESSAGE), anyString(), any());
+
+        assertTrue(restored.isSubscribed(CHAT));
+        assertTrue(board().isSubscribed(CHAT));
+        // Текст признан показанным — без новых голосов повторной правки нет
+        restored.tick(now + INTERVAL * 3);
+        verify(bot, times(1)).editMessage(eq(CHAT), eq(MESSAGE), anyString(), any());
+    }
+
+    @Test
+    void retriesAfterTransientFailureAndDropsBoardWhenMessageIsGone() throws Exception {
+        var board = board();
+        board.subscribe(bot, CHAT);
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        long now = System.currentTimeMillis();
+
+        failEdits(new TelegramApiRequestException("Сеть недоступна", new IOException("connection reset")));
+        board.tick(now + INTERVAL);
+        assertTrue(board.isSubscribed(CHAT));
+
+        failEdits(apiError(400, "Bad Request: message to edit not found"));
+        board.tick(now + INTERVAL * 2);
+        verify(bot, times(2)).editMessage(eq(CHAT), eq(MESSAGE), anyString(), any());
+        assertFalse(board.isSubscribed(CHAT));
+        assertFalse(board().isSubscribed(CHAT));
+    }
+
+    @Test
+    void dropsBoardWhenBotIsKickedFromChat() throws Exception {
+        var board = board();
+        board.subscribe(bot, CHAT);
+        stats.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+
+        failEdits(apiError(403, "Forbidden: bot was kicked from the group chat"));
+        board.tick(System.currentTimeMillis() + INTERVAL);
+
+        assertFalse(board.isSubscribed(CHAT));
+    }
+
+    @Test
+    void deletesBoardReplacedByConcurrentSubscribe() throws Exception {
+        var first = new CompletableFuture<Integer>();
+        var second = new CompletableFuture<Integer>();
+        when(bot.sendTextMessage(eq(CHAT), anyString(), any())).thenReturn(first, second);
+        when(bot.pinMessage(eq(CHAT), any())).thenReturn(CompletableFuture.completedFuture(true));
+        var board = board();
+
+        // Оба /live отправлены раньше, чем пришёл ответ на первый
+        board.subscribe(bot, CHAT);
+        board.subscribe(bot, CHAT);
+        first.complete(MESSAGE);
+        second.complete(MESSAGE + 1);
+
+        verify(bot).deleteMessage(CHAT, MESSAGE);
+        assertTrue(board.unsubscribe(bot, CHAT));
+        verify(bot).deleteMessage(CHAT, MESSAGE + 1);
+    }
+
+    @Test
+    void unsubscribeDeletesBoardMessage() throws Exception {
+        var board = board();
+        assertFalse(board.unsubscribe(bot, CHAT));
+        board.subscribe(bot, CHAT);
+
+        assertTrue(board.unsubscribe(bot, CHAT));
+        verify(bot).deleteMessage(CHAT, MESSAGE);
+        assertFalse(board.isSubscribed(CHAT));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStateServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void evictsIdleSessionsButKeepsVotes() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория,svetlana:Светлана");
+        registry.load();
+        var service = new UserStateService(registry, 100, 10, VoteStore.Mode.HEAP);
+        var first = service.getOrCreateSession(1L);
+
+        service.setState(1L, UserStateService.UserState.WAITING_INVITE);
+        service.setState(2L, UserStateService.UserState.SCORING);
+        service.markVoted(1L, "svetlana");
+        assertEquals(2, service.getSessionCount());
+
+        // Второй чат продолжает работать, первый молчит
+        Thread.sleep(60);
+        service.getOrCreateSession(2L);
+        service.evictIdle(System.currentTimeMillis() + 50);
+
+        assertEquals(1, service.getSessionCount());
+        // Поздний ответ Telegram для вытесненной сессии не должен попасть в новую
+        assertFalse(service.isCurrentSession(1L, first));
+        assertTrue(service.isCurrentSession(2L, service.getOrCreateSession(2L)));
+        assertEquals(UserStateService.UserState.SCORING, service.getState(2L));
+        assertEquals(UserStateService.UserState.START, service.getState(1L));
+        assertTrue(service.hasVoted(1L, "svetlana"));
+        assertFalse(service.hasVoted(1L, "victoria"));
+    }
+}
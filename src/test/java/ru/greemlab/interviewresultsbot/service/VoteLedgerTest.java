@@ -0,0 +1,68 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+import ru.greemlab.interviewresultsbot.journal.VoteJournal;
+import ru.greemlab.interviewresultsbot.stats.VoteStore;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VoteLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void countsEachInterviewerOncePerRound() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория");
+        registry.load();
+        var users = new UserStateService(registry, 60_000, 1_000, VoteStore.Mode.HEAP);
+        var stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        var journal = new VoteJournal(stats, users, false, dir, VoteJournal.FsyncPolicy.NEVER, 0, 0, 1);
+        var ledger = new VoteLedger(users, stats, journal, Optional.empty());
+
+        var vote = VoteEvent.of(1L, "victoria", stats.getRound(), new int[]{5, 4, 3}, true);
+        assertEquals(VoteLedger.Result.APPLIED, ledger.commit(vote));
+        assertEquals(VoteLedger.Result.DUPLICATE, ledger.commit(vote));
+        assertEquals(1, stats.getSnapshot("victoria").getCount(0));
+        assertEquals(1, stats.getSnapshot("victoria").getInviteYes());
+
+        // Голос, начатый до /restart, в новый раунд не попадает
+        var started = VoteEvent.of(2L, "victoria", stats.getRound(), new int[]{1, 1, 1}, false);
+        users.resetAllSessions();
+        stats.resetStatistic();
+        assertEquals(VoteLedger.Result.STALE_ROUND, ledger.commit(started));
+        assertNull(stats.getSnapshot("victoria"));
+    }
+
+    @Test
+    void releasesMarkWhenRoundClosesDuringCommit() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория");
+        registry.load();
+        var stats = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+        var users = new UserStateService(registry, 60_000, 1_000, VoteStore.Mode.SLAB) {
+            @Override
+            public boolean markVoted(long chatId, String candidateKey) {
+                // /new_round срабатывает между проверкой раунда и отметкой
+                stats.closeRound();
+                clearVotes();
+                return super.markVoted(chatId, candidateKey);
+            }
+        };
+        var journal = new VoteJournal(stats, users, false, dir, VoteJournal.FsyncPolicy.NEVER, 0, 0, 1);
+        var ledger = new VoteLedger(users, stats, journal, Optional.empty());
+
+        var started = VoteEvent.of(1L, "victoria", stats.getRound(), new int[]{5, 4, 3}, true);
+        assertEquals(VoteLedger.Result.STALE_ROUND, ledger.commit(started));
+        assertFalse(users.hasVoted(1L, "victoria"));
+        assertNull(stats.getSnapshot("victoria"));
+    }
+}
@@ -0,0 +1,87 @@
+package ru.greemlab.interviewresultsbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.greemlab.interviewresultsbot.candidate.CandidateRegistry;
+import ru.greemlab.interviewresultsbot.evaluation.EvaluationTemplates;
+import ru.greemlab.interviewresultsbot.journal.VoteEvent;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoteStatisticsServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reusesRenderedTextUntilCandidateChanges() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория,alexander:Александр");
+        registry.load();
+        var service = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+
+        service.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 0, 0}, true));
+        service.apply(VoteEvent.of(1L, "alexander", 0, new int[]{0, 3, 0}, false));
+
+        var first = service.getAllCandidatesStatistics();
+        var candidate = service.getCandidateStatistics("victoria");
+        assertTrue(first.contains("👤 Кандидат: Виктория\n"));
+        assertSame(first, service.getAllCandidatesStatistics());
+        assertSame(candidate, service.getCandidateStatistics("victoria"));
+
+        service.apply(VoteEvent.of(2L, "victoria", 0, new int[]{3, 0, 0}, true));
+
+        var updated = service.getAllCandidatesStatistics();
+        assertNotSame(first, updated);
+        assertTrue(updated.contains("4.00 (голосов: 2)") || updated.contains("4,00 (голосов: 2)"));
+        assertNotSame(candidate, service.getCandidateStatistics("victoria"));
+    }
+
+    @Test
+    void closesRoundWithoutWipingTotals() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"), "victoria:Виктория");
+        registry.load();
+        var service = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+
+        service.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 5}, true));
+        var stale = VoteEvent.of(2L, "victoria", 0, new int[]{1, 1, 1}, false);
+        assertEquals(1, service.closeRound());
+        // Голос, начатый до закрытия раунда, не попадает ни в новый раунд, ни в итоги
+        assertFalse(service.apply(stale));
+        service.apply(VoteEvent.of(1L, "victoria", 1, new int[]{3, 3, 3}, false));
+
+        assertEquals(2, service.getSnapshot("victoria").getCount(0));
+        assertEquals(5.0, service.getRoundSnapshot("victoria", 0).getAverage(0));
+        assertEquals(3.0, service.getRoundSnapshot("victoria", 1).getAverage(0));
+        assertEquals(4.0, service.getDaysSnapshot("victoria", 7).getAverage(0));
+        assertTrue(service.getRoundStatistics(1).contains("Виктория"));
+        assertTrue(service.getTrend(7).contains("Виктория →") || service.getTrend(7).contains("Виктория ↘"));
+    }
+
+    @Test
+    void ranksCandidatesByNormalizedScore() throws Exception {
+        var registry = new CandidateRegistry(dir.resolve("candidates.txt"),
+                "victoria:Виктория,alexander:Александр,maria:Мария");
+        registry.load();
+        var service = new VoteStatisticsService(registry, EvaluationTemplates.defaults());
+
+        service.apply(VoteEvent.of(1L, "victoria", 0, new int[]{5, 5, 0}, true));
+        service.apply(VoteEvent.of(1L, "alexander", 0, new int[]{3, 3, 3}, false));
+        service.apply(VoteEvent.of(2L, "alexander", 0, new int[]{5, 5, 5}, true));
+
+        assertEquals(1, service.getRanking().rank("victoria"));
+        assertEquals(0.75, service.getRanking().get("alexander").score());
+        assertEquals(0, service.getRanking().rank("maria"));
+        assertTrue(service.getTopStatistics(10).contains("2. Александр — 75% (✅ 50%, голосов: 2)"));
+        assertTrue(service.getRankingAtLeast(80, 10).contains("1. Виктория"));
+        assertFalse(service.getRankingAtLeast(80, 10).contains("Александр"));
+
+        service.remove("victoria");
+        assertEquals(1, service.getRanking().rank("alexander"));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BucketRingTest {
+
+    @Test
+    void mergesOnlyBucketsInsideWindow() {
+        var ring = new BucketRing(3, 2, 5);
+        ring.recordVote(10, new int[]{5, 4}, true);
+        ring.recordVote(11, new int[]{3, 0}, false);
+        ring.recordVote(12, new int[]{1, 2}, true);
+
+        var lastTwo = ring.merge(11, 12);
+        assertEquals(2, lastTwo.getCount(0));
+        assertEquals(2.0, lastTwo.getAverage(0));
+        assertEquals(1, lastTwo.getCount(1));
+        assertEquals(1, lastTwo.getInviteYes());
+        assertEquals(1, lastTwo.getInviteNo());
+        assertEquals(3, ring.merge(0, 12).getCount(0));
+    }
+
+    @Test
+    void newerBucketEvictsOldestAndStaleVotesAreDropped() {
+        var ring = new BucketRing(3, 1, 5);
+        ring.recordVote(1, new int[]{5}, true);
+        ring.recordVote(4, new int[]{3}, true);
+
+        assertNull(ring.bucket(1));
+        assertEquals(1, ring.bucket(4).getCount(0));
+        // Голос за вытесненную корзину не портит ту, что заняла её ячейку
+        ring.recordVote(1, new int[]{1}, false);
+        assertNull(ring.bucket(1));
+        assertEquals(3.0, ring.bucket(4).getAverage(0));
+        assertEquals(0, ring.bucket(4).getInviteNo());
+    }
+
+    @Test
+    void addsRestoredCounters() {
+        var ring = new BucketRing(2, 1, 5);
+        var saved = new ScoreAccumulator(1, 5);
+        saved.recordVote(new int[]{4}, true);
+        ring.add(7, saved.snapshot());
+        ring.recordVote(7, new int[]{2}, false);
+
+        assertEquals(2, ring.bucket(7).getCount(0));
+        assertEquals(3.0, ring.bucket(7).getAverage(0));
+    }
+}
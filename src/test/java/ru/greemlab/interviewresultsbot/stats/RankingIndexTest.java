@@ -0,0 +1,88 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankingIndexTest {
+
+    private static RankingIndex.Entry entry(String key, double score, double inviteRatio, long version) {
+        return new RankingIndex.Entry(key, score, inviteRatio, 1, version);
+    }
+
+    private static List<String> keys(List<RankingIndex.Entry> entries) {
+        return entries.stream().map(RankingIndex.Entry::candidateKey).toList();
+    }
+
+    @Test
+    void ordersByScoreThenInviteRatioThenKey() {
+        var index = new RankingIndex();
+        index.update(entry("c", 0.5, 0.5, 1));
+        index.update(entry("a", 0.9, 0.0, 1));
+        index.update(entry("b", 0.5, 1.0, 1));
+        index.update(entry("d", 0.5, 0.5, 1));
+
+        assertEquals(List.of("a", "b", "c", "d"), keys(index.top(1, 10)));
+        assertEquals(List.of("b", "c"), keys(index.top(2, 2)));
+        assertEquals(3, index.rank("c"));
+        assertEquals(0, index.rank("missing"));
+        assertEquals(List.of("a"), keys(index.atLeast(0.6, 10)));
+        assertEquals(List.of("a", "b"), keys(index.atLeast(0.5, 2)));
+    }
+
+    @Test
+    void movesCandidateOnUpdateAndIgnoresStaleVersions() {
+        var index = new RankingIndex();
+        index.update(entry("a", 0.9, 0, 1));
+        index.update(entry("b", 0.5, 0, 1));
+
+        index.update(entry("b", 0.95, 0, 3));
+        // Снимок, снятый раньше уже учтённого, место не меняет
+        index.update(entry("b", 0.1, 0, 2));
+        assertEquals(1, index.rank("b"));
+        assertEquals(0.95, index.get("b").score());
+
+        index.remove("b");
+        assertEquals(1, index.size());
+        assertNull(index.get("b"));
+        assertEquals(List.of("a"), keys(index.top(1, 10)));
+    }
+
+    @Test
+    void matchesSortedListUnderRandomUpdates() {
+        var index = new RankingIndex();
+        var random = new Random(7);
+        var latest = new RankingIndex.Entry[200];
+        for (int i = 0; i < 5_000; i++) {
+            int id = random.nextInt(latest.length);
+            var key = "k" + id;
+            if (random.nextInt(10) == 0) {
+                index.remove(key);
+                latest[id] = null;
+            } else {
+                latest[id] = entry(key, random.nextInt(20) / 20.0, random.nextInt(3) / 2.0, i);
+                index.update(latest[id]);
+            }
+        }
+        var expected = new ArrayList<RankingIndex.Entry>();
+        for (var e : latest) {
+            if (e != null) {
+                expected.add(e);
+            }
+        }
+        expected.sort(RankingIndex.BEST_FIRST);
+
+        assertEquals(expected, index.top(1, Integer.MAX_VALUE));
+        assertEquals(expected.subList(40, 50), index.top(41, 10));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, index.rank(expected.get(i).candidateKey()));
+        }
+        assertTrue(index.top(expected.size() + 1, 10).isEmpty());
+    }
+}
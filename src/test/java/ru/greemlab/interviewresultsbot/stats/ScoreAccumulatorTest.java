@@ -0,0 +1,87 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreAccumulatorTest {
+
+    @Test
+    void derivesAverageAndMedianFromHistogram() {
+        var accumulator = new ScoreAccumulator(2, 5);
+        accumulator.record(0, 5);
+        accumulator.record(0, 4);
+        accumulator.record(0, 1);
+        accumulator.record(0, 2);
+        accumulator.recordInvite(true);
+
+        var snapshot = accumulator.snapshot();
+        assertEquals(4, snapshot.getCount(0));
+        assertEquals(12, snapshot.getSum(0));
+        assertEquals(3.0, snapshot.getAverage(0));
+        assertEquals(3.0, snapshot.getMedian(0));
+        assertTrue(Double.isNaN(snapshot.getAverage(1)));
+        assertEquals(1, snapshot.getInviteYes());
+        assertEquals(5, snapshot.getVersion());
+        assertEquals(5, accumulator.version());
+    }
+
+    @Test
+    void rejectsOutOfRangeScore() {
+        var accumulator = new ScoreAccumulator(3, 5);
+        assertThrows(IllegalArgumentException.class, () -> accumulator.record(0, 6));
+        assertThrows(IllegalArgumentException.class, () -> accumulator.record(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> accumulator.recordVote(new int[]{1, 0}, null));
+    }
+
+    @Test
+    void snapshotsNeverSeePartialVotes() throws InterruptedException {
+        var accumulator = new ScoreAccumulator(3, 5);
+        int writers = 8;
+        int votesPerWriter = 20_000;
+        var running = new AtomicBoolean(true);
+        var violation = new AtomicReference<String>();
+
+        var reader = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                var s = accumulator.snapshot();
+                long votes = s.getInviteYes() + s.getInviteNo();
+                for (int c = 0; c < 3; c++) {
+                    if (s.getCount(c) != votes) {
+                        violation.set("критерий " + c + ": " + s.getCount(c) + " оценок при " + votes + " голосах");
+                    }
+                }
+            }
+        });
+
+        var threads = new ArrayList<Thread>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < votesPerWriter; i++) {
+                    accumulator.recordVote(
+                            new int[]{random.nextInt(1, 6), random.nextInt(1, 6), random.nextInt(1, 6)},
+                            random.nextBoolean());
+                }
+            }));
+        }
+        for (var t : threads) {
+            t.join();
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(violation.get());
+        var total = accumulator.snapshot();
+        assertEquals((long) writers * votesPerWriter, total.getInviteYes() + total.getInviteNo());
+        assertEquals((long) writers * votesPerWriter, total.getCount(2));
+    }
+}
@@ -0,0 +1,119 @@
+package ru.greemlab.interviewresultsbot.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VoteSlabTest {
+
+    @Test
+    void countsVotesPerRow() {
+        var slab = new VoteSlab();
+        var first = slab.counters(2, 5);
+        var second = slab.counters(2, 5);
+        first.recordVote(new int[]{5, 3}, true);
+        first.recordVote(new int[]{4, 0}, false);
+        second.record(1, 2);
+
+        var snapshot = first.snapshot();
+        assertEquals(2, snapshot.getCount(0));
+        assertEquals(4.5, snapshot.getAverage(0));
+        assertEquals(1, snapshot.getCount(1));
+        assertEquals(1, snapshot.getInviteYes());
+        assertEquals(1, snapshot.getInviteNo());
+        assertEquals(2, first.version());
+        assertEquals(0, second.snapshot().getCount(0));
+        assertEquals(1, second.snapshot().getCount(1));
+        assertThrows(IllegalArgumentException.class, () -> first.recordVote(new int[]{6, 1}, null));
+    }
+
+    @Test
+    void releasedRowIsReusedWithoutLeakingOldWriters() {
+        var slab = new VoteSlab();
+        var archived = slab.counters(3, 5);
+        archived.recordVote(new int[]{5, 5, 5}, true);
+        archived.release();
+
+        var reused = slab.counters(3, 5);
+        assertEquals(0, reused.snapshot().getCount(0));
+        // Запись по старой ссылке не попадает к новому владельцу строки
+        archived.recordVote(new int[]{1, 1, 1}, false);
+        reused.recordVote(new int[]{3, 3, 3}, true);
+        assertEquals(3.0, reused.snapshot().getAverage(0));
+        assertEquals(1, reused.snapshot().getCount(0));
+        assertEquals(0, archived.snapshot().getCount(0));
+        assertEquals(1L << VoteSlab.CHUNK_BITS << 3, slab.getReservedBytes());
+    }
+
+    @Test
+    void ringReusesRowsForNewerBuckets() {
+        var ring = new VoteSlab().buckets(3, 1, 5);
+        ring.recordVote(0, new int[]{5}, true);
+        ring.recordVote(1, new int[]{4}, true);
+        ring.recordVote(3, new int[]{2}, false);
+
+        assertNull(ring.bucket(0));
+        assertEquals(2.0, ring.bucket(3).getAverage(0));
+        // Голос за вытесненную корзину отбрасывается
+        ring.recordVote(0, new int[]{1}, false);
+        assertNull(ring.bucket(0));
+        assertEquals(1, ring.bucket(3).getCount(0));
+        assertEquals(2, ring.merge(1, 3).getCount(0));
+
+        ring.release();
+        assertNull(ring.bucket(3));
+        ring.recordVote(4, new int[]{5}, true);
+        assertNull(ring.bucket(4));
+    }
+
+    @Test
+    void snapshotsNeverSeePartialVotes() throws InterruptedException {
+        var slab = new VoteSlab();
+        var counters = slab.counters(3, 5);
+        int writers = 8;
+        int votesPerWriter = 20_000;
+        var running = new AtomicBoolean(true);
+        var violation = new AtomicReference<String>();
+
+        var reader = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                var s = counters.snapshot();
+                long votes = s.getInviteYes() + s.getInviteNo();
+                for (int c = 0; c < 3; c++) {
+                    if (s.getCount(c) != votes) {
+                        violation.set("критерий " + c + ": " + s.getCount(c) + " оценок при " + votes + " голосах");
+                    }
+                }
+            }
+        });
+
+        var threads = new ArrayList<Thread>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                var random = ThreadLocalRandom.current();
+                for (int i = 0; i < votesPerWriter; i++) {
+                    counters.recordVote(
+                            new int[]{random.nextInt(1, 6), random.nextInt(1, 6), random.nextInt(1, 6)},
+                            random.nextBoolean());
+                }
+            }));
+        }
+        for (var t : threads) {
+            t.join();
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(violation.get());
+        var total = counters.snapshot();
+        assertEquals((long) writers * votesPerWriter, total.getInviteYes() + total.getInviteNo());
+        assertEquals((long) writers * votesPerWriter, total.getCount(2));
+    }
+}
@@ -0,0 +1,34 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongBitSetMapTest {
+
+    @Test
+    void keepsBitsAcrossResizeAndHighIds() {
+        var map = new LongBitSetMap();
+        for (long chatId = -500; chatId < 500; chatId++) {
+            map.set(chatId, (int) Math.floorMod(chatId, 3));
+        }
+        map.set(42L, 130);
+
+        assertEquals(1_000, map.size());
+        for (long chatId = -500; chatId < 500; chatId++) {
+            assertTrue(map.get(chatId, (int) Math.floorMod(chatId, 3)));
+            assertFalse(map.get(chatId, (int) Math.floorMod(chatId + 1, 3)));
+        }
+        assertTrue(map.get(42L, 130));
+        assertFalse(map.get(42L, 66));
+        assertFalse(map.get(43L, 130));
+
+        map.clearBit(130);
+        map.clearBit(0);
+        assertFalse(map.get(42L, 130));
+        assertFalse(map.get(0L, 0));
+        assertTrue(map.get(1L, 1));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.greemlab.interviewresultsbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntPairSetTest {
+
+    @Test
+    void keepsPairsAcrossResizeAndClearBit() {
+        var set = new LongIntPairSet();
+        for (long chatId = -500; chatId < 500; chatId++) {
+            assertTrue(set.set(chatId, 40_000 + (int) Math.floorMod(chatId, 3)));
+        }
+        assertFalse(set.set(7L, 40_001));
+
+        assertEquals(1_000, set.size());
+        for (long chatId = -500; chatId < 500; chatId++) {
+            assertTrue(set.get(chatId, 40_000 + (int) Math.floorMod(chatId, 3)));
+            assertFalse(set.get(chatId, 40_000 + (int) Math.floorMod(chatId + 1, 3)));
+        }
+
+        set.clearBit(40_000);
+        assertFalse(set.get(0L, 40_000));
+        assertTrue(set.get(1L, 40_001));
+        assertEquals(667, set.size());
+    }
+
+    @Test
+    void unsetKeepsRestOfProbeChainReachable() {
+        var set = new LongIntPairSet();
+        for (long chatId = 0; chatId < 200; chatId++) {
+            set.set(chatId, 7);
+        }
+        for (long chatId = 0; chatId < 200; chatId += 2) {
+            assertTrue(set.unset(chatId, 7));
+        }
+        assertFalse(set.unset(0L, 7));
+
+        assertEquals(100, set.size());
+        for (long chatId = 0; chatId < 200; chatId++) {
+            assertEquals(chatId % 2 == 1, set.get(chatId, 7));
+        }
+    }
+}